@@ -1,7 +1,10 @@
 package com.example.demo.aspect;
 
+import com.example.demo.common.audit.AuditPolicyManager;
+import com.example.demo.common.util.ClientIpUtils;
 import com.example.demo.entity.OperationLog;
 import com.example.demo.service.OperationLogService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -9,14 +12,23 @@ import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Pointcut;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpEntity;
 import org.springframework.stereotype.Component;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static com.example.demo.common.context.SecurityContext.*;
 
@@ -26,31 +38,55 @@ import static com.example.demo.common.context.SecurityContext.*;
 @RequiredArgsConstructor
 public class OperationLogAspect {
 
+    // 敏感参数关键字（统一小写）
+    private static final String[] SENSITIVE_FIELDS = {"password", "pwd", "token", "authorization", "secret", "key"};
+
+    // 参数名判定结果缓存的上限，防止恶意参数名撑爆内存
+    private static final int MAX_CACHED_PARAM_NAMES = 1024;
+
+    // 响应数据最大记录长度
+    private static final int MAX_RESPONSE_LENGTH = 2000;
+
+    private static final int MAX_STRING_RESPONSE_LENGTH = 1000;
+
+    // 按类缓存反射字段，避免每次调用都 getDeclaredField
+    private static final ClassValue<Optional<Field>> USERNAME_FIELD = new FieldLookup("user", "username");
+
+    private static final ClassValue<Optional<Field>> ROLE_NAME_FIELD = new FieldLookup("role", "name");
+
     private final OperationLogService operationLogService;
 
+    private final ObjectMapper objectMapper;
+
+    private final AuditPolicyManager auditPolicyManager;
+
+    // 每个处理方法只解析一次模块、类型和操作描述
+    private final Map<Method, HandlerDescriptor> descriptorCache = new ConcurrentHashMap<>();
+
+    // 参数名 -> 是否敏感
+    private final Map<String, Boolean> sensitiveParamCache = new ConcurrentHashMap<>();
+
     @Pointcut("@annotation(com.example.demo.annotation.OperationLog)")
     public void operationLogPointcut() {}
 
 //    @Pointcut("execution(* com.example.demo.controller..*.*(..))")
-    // 使用 !execution() 排除特定类
+    // 使用 !execution() 排除特定类（只能引用存在的类，引用不存在的类会导致整个切点无法匹配）
     @Pointcut("execution(* com.example.demo.controller..*.*(..)) && " +
             "!execution(* com.example.demo.controller.OperationLogController.*(..)) && " +
-            "!execution(* com.example.demo.controller.OnlineUserController.*(..)) && " +
-            "!execution(* com.example.demo.controller.SystemMonitorController.*(..)) && " +
-            "!execution(* com.example.demo.controller.StatsController.*(..))")
+            "!execution(* com.example.demo.controller.SystemMonitorController.*(..))")
     public void controllerPointcut() {}
 
     @Around("operationLogPointcut() || controllerPointcut()")
     public Object around(ProceedingJoinPoint joinPoint) throws Throwable {
+        HandlerDescriptor descriptor = getDescriptor(joinPoint);
+
         // 获取请求信息进行判断
         ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
-        if (attributes != null) {
-            HttpServletRequest request = attributes.getRequest();
+        HttpServletRequest request = attributes != null ? attributes.getRequest() : null;
 
-            // 判断是否是不需要记录的请求
-            if (isExcludeRequest(request, joinPoint)) {
-                return joinPoint.proceed();
-            }
+        // 判断是否是不需要记录的请求
+        if (request != null && isExcludeRequest(request, descriptor)) {
+            return joinPoint.proceed();
         }
         long startTime = System.currentTimeMillis();
         Object result = null;
@@ -64,7 +100,9 @@ public class OperationLogAspect {
         } finally {
             long executionTime = System.currentTimeMillis() - startTime;
             try {
-                saveOperationLog(joinPoint, result, error, executionTime);
+                if (shouldLog(descriptor, request, error != null)) {
+                    saveOperationLog(joinPoint, descriptor, request, result, error, executionTime);
+                }
             } catch (Exception e) {
                 log.error("保存操作日志异常", e);
             }
@@ -73,30 +111,62 @@ public class OperationLogAspect {
         return result;
     }
 
-    private void saveOperationLog(ProceedingJoinPoint joinPoint, Object result, Throwable error, long executionTime) {
+    private HandlerDescriptor getDescriptor(ProceedingJoinPoint joinPoint) {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        HandlerDescriptor descriptor = descriptorCache.get(method);
+        if (descriptor == null) {
+            descriptor = descriptorCache.computeIfAbsent(method,
+                    m -> createDescriptor(joinPoint.getTarget().getClass().getSimpleName(), m.getName()));
+        }
+        return descriptor;
+    }
+
+    private HandlerDescriptor createDescriptor(String className, String methodName) {
+        String module = parseModule(className);
+        // 只有用户、角色的新增/修改描述依赖参数，其余描述与参数无关，可以预先生成
+        boolean argDependent = ("用户管理".equals(module)
+                && (methodName.contains("update") || methodName.contains("edit")
+                || methodName.contains("create") || methodName.contains("add")))
+                || ("角色管理".equals(module)
+                && (methodName.contains("create") || methodName.contains("add")));
+        String operation = argDependent ? null : parseOperation(className, methodName, null);
+        boolean layoutMenu = className.equals("MenuController") && methodName.equals("getUserMenus");
+        return new HandlerDescriptor(className, methodName, module, parseOperationType(methodName),
+                operation, layoutMenu);
+    }
+
+    // 按记录策略判断是否需要记录，被采样掉的请求不再构建日志对象
+    private boolean shouldLog(HandlerDescriptor descriptor, HttpServletRequest request, boolean failed) {
+        String requestMethod = request != null ? request.getMethod() : null;
+        Long userId = getCurrentUserId();
+        String userKey = userId != null ? String.valueOf(userId) : (request != null ? ClientIpUtils.getClientIp(request) : null);
+        return auditPolicyManager.shouldLog(descriptor.module, descriptor.className, requestMethod,
+                descriptor.type, failed, userKey);
+    }
+
+    private void saveOperationLog(ProceedingJoinPoint joinPoint, HandlerDescriptor descriptor,
+                                  HttpServletRequest request, Object result, Throwable error,
+                                  long executionTime) {
         OperationLog operationLog = new OperationLog();
 
         // 获取请求信息
-        ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder.getRequestAttributes();
-        if (attributes != null) {
-            HttpServletRequest request = attributes.getRequest();
-            operationLog.setOperatorIp(getClientIp(request));
+        if (request != null) {
+            operationLog.setOperatorIp(ClientIpUtils.getClientIp(request));
             operationLog.setRequestMethod(request.getMethod());
             operationLog.setRequestUrl(request.getRequestURI());
             operationLog.setUserAgent(request.getHeader("User-Agent"));
             operationLog.setAccessTime(LocalDateTime.now());
 
             // 记录请求参数（避免记录敏感信息）
-            operationLog.setRequestParams(getRequestParams(request, joinPoint));
+            operationLog.setRequestParams(getRequestParams(request));
         }
 
         // 设置操作信息
-        String className = joinPoint.getTarget().getClass().getSimpleName();
-        String methodName = joinPoint.getSignature().getName();
-        operationLog.setModule(parseModule(className));
-        operationLog.setType(parseOperationType(methodName));
+        operationLog.setModule(descriptor.module);
+        operationLog.setType(descriptor.type);
         // 使用新的解析方法生成友好的操作描述
-        operationLog.setOperation(parseOperation(className, methodName, joinPoint.getArgs()));
+        operationLog.setOperation(descriptor.operation != null ? descriptor.operation
+                : parseOperation(descriptor.className, descriptor.methodName, joinPoint.getArgs()));
 
         // 设置操作者和租户信息
         operationLog.setOperator(getCurrentUsername());
@@ -115,57 +185,68 @@ public class OperationLogAspect {
         operationLogService.saveLog(operationLog);
     }
 
-    // 获取请求参数（过滤敏感信息）
-    private String getRequestParams(HttpServletRequest request, ProceedingJoinPoint joinPoint) {
+    // 获取请求参数（过滤敏感信息），直接拼接字符串，不再构建中间Map
+    private String getRequestParams(HttpServletRequest request) {
         try {
             Map<String, String[]> parameterMap = request.getParameterMap();
             if (parameterMap.isEmpty()) {
                 return null;
             }
 
-            Map<String, Object> filteredParams = new HashMap<>();
+            StringBuilder params = new StringBuilder(64).append('{');
             for (Map.Entry<String, String[]> entry : parameterMap.entrySet()) {
                 String key = entry.getKey();
                 String[] values = entry.getValue();
+                if (params.length() > 1) {
+                    params.append(", ");
+                }
+                params.append(key).append('=');
 
                 // 过滤敏感字段
                 if (isSensitiveField(key)) {
-                    filteredParams.put(key, "***");
+                    params.append("***");
+                } else if (values.length == 1) {
+                    params.append(values[0]);
                 } else {
-                    filteredParams.put(key, values.length == 1 ? values[0] : Arrays.toString(values));
+                    params.append(Arrays.toString(values));
                 }
             }
 
-            return filteredParams.toString();
+            return params.append('}').toString();
         } catch (Exception e) {
             log.warn("获取请求参数失败", e);
             return null;
         }
     }
 
-    // 判断是否为敏感字段
+    // 判断是否为敏感字段，结果按参数名缓存
     private boolean isSensitiveField(String fieldName) {
-        String[] sensitiveFields = {"password", "pwd", "token", "authorization", "secret", "key"};
-        for (String sensitive : sensitiveFields) {
-            if (fieldName.toLowerCase().contains(sensitive)) {
-                return true;
+        Boolean cached = sensitiveParamCache.get(fieldName);
+        if (cached != null) {
+            return cached;
+        }
+        boolean sensitive = false;
+        for (String sensitiveField : SENSITIVE_FIELDS) {
+            if (containsIgnoreCase(fieldName, sensitiveField)) {
+                sensitive = true;
+                break;
             }
         }
-        return false;
+        if (sensitiveParamCache.size() < MAX_CACHED_PARAM_NAMES) {
+            sensitiveParamCache.put(fieldName, sensitive);
+        }
+        return sensitive;
     }
 
-    private String getClientIp(HttpServletRequest request) {
-        String ip = request.getHeader("X-Forwarded-For");
-        if (ip == null || ip.length() == 0 || "unknown".equalsIgnoreCase(ip)) {
-            ip = request.getHeader("Proxy-Client-IP");
-        }
-        if (ip == null || ip.length() == 0 || "unknown".equalsIgnoreCase(ip)) {
-            ip = request.getHeader("WL-Proxy-Client-IP");
-        }
-        if (ip == null || ip.length() == 0 || "unknown".equalsIgnoreCase(ip)) {
-            ip = request.getRemoteAddr();
+    // 不区分大小写的包含判断（fragment 已是小写），不产生新字符串
+    private static boolean containsIgnoreCase(String source, String fragment) {
+        int max = source.length() - fragment.length();
+        for (int i = 0; i <= max; i++) {
+            if (source.regionMatches(true, i, fragment, 0, fragment.length())) {
+                return true;
+            }
         }
-        return ip;
+        return false;
     }
 
     private String parseModule(String className) {
@@ -353,17 +434,9 @@ public class OperationLogAspect {
             }
 
             // 如果是用户对象，尝试获取用户名
-            try {
-                if (arg.getClass().getSimpleName().toLowerCase().contains("user")) {
-                    var nameField = arg.getClass().getDeclaredField("username");
-                    nameField.setAccessible(true);
-                    Object nameValue = nameField.get(arg);
-                    if (nameValue instanceof String) {
-                        return (String) nameValue;
-                    }
-                }
-            } catch (Exception e) {
-                // 忽略反射异常
+            String userName = readStringField(USERNAME_FIELD, arg);
+            if (userName != null) {
+                return userName;
             }
         }
         return null;
@@ -387,22 +460,31 @@ public class OperationLogAspect {
             }
 
             // 如果是角色对象，尝试获取角色名
-            try {
-                if (arg.getClass().getSimpleName().toLowerCase().contains("role")) {
-                    var nameField = arg.getClass().getDeclaredField("name");
-                    nameField.setAccessible(true);
-                    Object nameValue = nameField.get(arg);
-                    if (nameValue instanceof String) {
-                        return (String) nameValue;
-                    }
-                }
-            } catch (Exception e) {
-                // 忽略反射异常
+            String roleName = readStringField(ROLE_NAME_FIELD, arg);
+            if (roleName != null) {
+                return roleName;
             }
         }
         return null;
     }
 
+    /**
+     * 读取缓存的反射字段值
+     */
+    private String readStringField(ClassValue<Optional<Field>> fieldLookup, Object target) {
+        Optional<Field> field = fieldLookup.get(target.getClass());
+        if (field.isEmpty()) {
+            return null;
+        }
+        try {
+            Object value = field.get().get(target);
+            return value instanceof String ? (String) value : null;
+        } catch (Exception e) {
+            // 忽略反射异常
+            return null;
+        }
+    }
+
     /**
      * 提取响应数据
      */
@@ -415,26 +497,37 @@ public class OperationLogAspect {
             return toJsonString(errorResponse);
         }
 
+        if (result instanceof HttpEntity) {
+            result = ((HttpEntity<?>) result).getBody();
+        }
         if (result == null) {
             return null;
         }
 
-        try {
-            // 如果已经是字符串，直接返回
-            if (result instanceof String) {
-                String response = (String) result;
-                // 避免记录过长的响应
-                return response.length() > 1000 ? response.substring(0, 1000) + "..." : response;
-            }
+        // 文件下载只记录文件名，不读取内容
+        if (result instanceof Resource) {
+            return "[file] " + ((Resource) result).getFilename();
+        }
 
-            // 对于对象，转换为JSON字符串
-            String jsonResult = toJsonString(result);
-            // 限制响应数据长度，避免数据库字段过长
-            return jsonResult.length() > 2000 ? jsonResult.substring(0, 2000) + "..." : jsonResult;
+        // 如果已经是字符串，直接截断
+        if (result instanceof String) {
+            String response = (String) result;
+            // 避免记录过长的响应
+            return response.length() > MAX_STRING_RESPONSE_LENGTH
+                    ? response.substring(0, MAX_STRING_RESPONSE_LENGTH) + "..." : response;
+        }
 
-        } catch (Exception e) {
+        // 对于对象，流式序列化为JSON，写满上限即停止，不再生成完整字符串
+        BoundedWriter writer = new BoundedWriter(MAX_RESPONSE_LENGTH);
+        try {
+            objectMapper.writeValue(writer, result);
+            return writer.toString();
+        } catch (IOException e) {
+            if (writer.isTruncated()) {
+                return writer + "...";
+            }
             log.warn("序列化响应数据失败: {}", e.getMessage());
-            return "Unable to serialize response: " + result.toString();
+            return "Unable to serialize response: " + result.getClass().getSimpleName();
         }
     }
 
@@ -454,16 +547,100 @@ public class OperationLogAspect {
     /**
      * 判断是否是不需要记录的请求
      */
-    private boolean isExcludeRequest(HttpServletRequest request, ProceedingJoinPoint joinPoint) {
-        String requestURI = request.getRequestURI();
-        String methodName = joinPoint.getSignature().getName();
-        String className = joinPoint.getTarget().getClass().getSimpleName();
-
+    private boolean isExcludeRequest(HttpServletRequest request, HandlerDescriptor descriptor) {
         // 1. Layout加载菜单的请求
-        boolean isLayoutMenu = className.equals("MenuController") &&
-                methodName.equals("getUserMenus") &&
-                requestURI.equals("/api/menus/tree");
+        return descriptor.layoutMenu && request.getRequestURI().equals("/api/menus/tree");
+    }
 
-        return isLayoutMenu;
+    /**
+     * 处理方法的预解析信息
+     */
+    private record HandlerDescriptor(String className, String methodName, String module, String type,
+                                     String operation, boolean layoutMenu) {
+    }
+
+    /**
+     * 按类名关键字查找字段并缓存结果
+     */
+    private static final class FieldLookup extends ClassValue<Optional<Field>> {
+
+        private final String classKeyword;
+
+        private final String fieldName;
+
+        private FieldLookup(String classKeyword, String fieldName) {
+            this.classKeyword = classKeyword;
+            this.fieldName = fieldName;
+        }
+
+        @Override
+        protected Optional<Field> computeValue(Class<?> type) {
+            if (!containsIgnoreCase(type.getSimpleName(), classKeyword)) {
+                return Optional.empty();
+            }
+            try {
+                Field field = type.getDeclaredField(fieldName);
+                field.setAccessible(true);
+                return Optional.of(field);
+            } catch (Exception e) {
+                return Optional.empty();
+            }
+        }
+    }
+
+    /**
+     * 有长度上限的字符输出，写满后抛出异常中断序列化
+     */
+    private static final class BoundedWriter extends Writer {
+
+        private final StringBuilder buffer;
+
+        private final int limit;
+
+        private boolean truncated;
+
+        private BoundedWriter(int limit) {
+            this.limit = limit;
+            this.buffer = new StringBuilder(Math.min(limit, 256));
+        }
+
+        @Override
+        public void write(char[] chars, int off, int len) throws IOException {
+            int remaining = limit - buffer.length();
+            if (len > remaining) {
+                buffer.append(chars, off, remaining);
+                truncated = true;
+                throw new IOException("response data exceeds " + limit + " chars");
+            }
+            buffer.append(chars, off, len);
+        }
+
+        @Override
+        public void write(String str, int off, int len) throws IOException {
+            int remaining = limit - buffer.length();
+            if (len > remaining) {
+                buffer.append(str, off, off + remaining);
+                truncated = true;
+                throw new IOException("response data exceeds " + limit + " chars");
+            }
+            buffer.append(str, off, off + len);
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+
+        boolean isTruncated() {
+            return truncated;
+        }
+
+        @Override
+        public String toString() {
+            return buffer.toString();
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,398 @@
+package com.example.demo.common.audit;
+
+import com.example.demo.common.cache.DataVersions;
+import com.example.demo.entity.OperationLog;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 操作日志异步批量写入器
+ * 请求线程只负责入队，后台线程按批量大小或时间间隔用JDBC批处理写库
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AuditLogWriter {
+
+    private static final String INSERT_SQL = "INSERT INTO operation_log (module, type, operation, operator, operator_id, "
+            + "operator_ip, request_url, request_method, request_params, result, error_message, execution_time, "
+            + "create_time, tenant_id, status_code, user_agent, response_data, access_time) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    /**
+     * 队列满时的处理策略
+     */
+    public enum OverflowPolicy {
+        // 阻塞等待（最多 block-timeout-ms），超时后丢弃
+        BLOCK,
+        // 丢弃队列中最旧的日志
+        DROP_OLDEST,
+        // 写入本地溢出文件，队列空闲时再回放
+        SPILL
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ObjectMapper objectMapper;
+
+    private final DataVersions dataVersions;
+
+    @Value("${app.audit.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${app.audit.batch-size:200}")
+    private int batchSize;
+
+    @Value("${app.audit.flush-interval-ms:1000}")
+    private long flushIntervalMs;
+
+    @Value("${app.audit.overflow-policy:DROP_OLDEST}")
+    private OverflowPolicy overflowPolicy;
+
+    @Value("${app.audit.block-timeout-ms:500}")
+    private long blockTimeoutMs;
+
+    @Value("${app.audit.spill-file:./data/audit-spill.log}")
+    private String spillFile;
+
+    private BlockingQueue<OperationLog> queue;
+
+    private Thread writerThread;
+
+    private volatile boolean running;
+
+    private final Object spillLock = new Object();
+
+    // 监控指标
+    private final LongAdder enqueuedCount = new LongAdder();
+    private final LongAdder writtenCount = new LongAdder();
+    private final LongAdder failedCount = new LongAdder();
+    private final LongAdder droppedCount = new LongAdder();
+    private final LongAdder spilledCount = new LongAdder();
+    private final LongAdder quarantinedCount = new LongAdder();
+    private final LongAdder flushCount = new LongAdder();
+    private final LongAdder flushNanos = new LongAdder();
+    private final AtomicLong maxFlushMillis = new AtomicLong();
+    private volatile long lastFlushMillis;
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        running = true;
+        writerThread = new Thread(this::runLoop, "audit-log-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        log.info("操作日志写入器已启动: capacity={}, batchSize={}, flushInterval={}ms, overflow={}",
+                queueCapacity, batchSize, flushIntervalMs, overflowPolicy);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        writerThread.interrupt();
+        try {
+            writerThread.join(10_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!queue.isEmpty()) {
+            log.warn("关闭时仍有 {} 条操作日志未写入", queue.size());
+        }
+    }
+
+    /**
+     * 提交一条操作日志（请求线程调用，不做任何数据库操作）
+     */
+    public void submit(OperationLog operationLog) {
+        if (operationLog.getCreateTime() == null) {
+            operationLog.setCreateTime(LocalDateTime.now());
+        }
+        enqueuedCount.increment();
+        if (queue.offer(operationLog)) {
+            return;
+        }
+
+        switch (overflowPolicy) {
+            case BLOCK:
+                try {
+                    if (!queue.offer(operationLog, blockTimeoutMs, TimeUnit.MILLISECONDS)) {
+                        droppedCount.increment();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    droppedCount.increment();
+                }
+                break;
+            case SPILL:
+                spill(operationLog);
+                break;
+            case DROP_OLDEST:
+            default:
+                while (!queue.offer(operationLog)) {
+                    if (queue.poll() != null) {
+                        droppedCount.increment();
+                    }
+                }
+                break;
+        }
+    }
+
+    /**
+     * 获取写入器运行指标
+     */
+    public Map<String, Object> getMetrics() {
+        long flushes = flushCount.sum();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("queueDepth", queue.size());
+        metrics.put("queueCapacity", queueCapacity);
+        metrics.put("overflowPolicy", overflowPolicy.name());
+        metrics.put("enqueued", enqueuedCount.sum());
+        metrics.put("written", writtenCount.sum());
+        metrics.put("failed", failedCount.sum());
+        metrics.put("dropped", droppedCount.sum());
+        metrics.put("spilled", spilledCount.sum());
+        metrics.put("quarantined", quarantinedCount.sum());
+        metrics.put("flushes", flushes);
+        metrics.put("lastFlushMillis", lastFlushMillis);
+        metrics.put("maxFlushMillis", maxFlushMillis.get());
+        metrics.put("avgFlushMillis", flushes == 0 ? 0.0 : flushNanos.sum() / 1_000_000.0 / flushes);
+        return metrics;
+    }
+
+    private void runLoop() {
+        List<OperationLog> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                OperationLog first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    replaySpillFile();
+                    continue;
+                }
+                batch.add(first);
+
+                // 攒批：凑满batchSize或等到flushInterval为止
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0 || !running) {
+                        break;
+                    }
+                    OperationLog next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                // 关闭时被中断，继续把剩余日志写完
+                queue.drainTo(batch, batchSize - batch.size());
+            }
+
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<OperationLog> batch) {
+        long start = System.nanoTime();
+        try {
+            jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), this::bindValues);
+            writtenCount.add(batch.size());
+        } catch (DataAccessException e) {
+            // 批量失败时逐条重试，避免一条脏数据拖累整批
+            log.warn("操作日志批量写入失败，改为逐条写入: {}", e.getMessage());
+            for (OperationLog operationLog : batch) {
+                try {
+                    jdbcTemplate.update(INSERT_SQL, ps -> bindValues(ps, operationLog));
+                    writtenCount.increment();
+                } catch (DataAccessException ex) {
+                    failedCount.increment();
+                    log.error("保存操作日志失败: {}", ex.getMessage());
+                }
+            }
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(elapsed);
+            flushCount.increment();
+            flushNanos.add(elapsed);
+            lastFlushMillis = elapsedMillis;
+            maxFlushMillis.accumulateAndGet(elapsedMillis, Math::max);
+            // 直接用 JDBC 写入，不会触发 Hibernate 事件，需要手动更新版本号
+            dataVersions.bump(OperationLog.class);
+        }
+    }
+
+    private void bindValues(PreparedStatement ps, OperationLog log) throws SQLException {
+        ps.setString(1, log.getModule());
+        ps.setString(2, log.getType());
+        ps.setString(3, log.getOperation());
+        ps.setString(4, log.getOperator());
+        setLong(ps, 5, log.getOperatorId());
+        ps.setString(6, log.getOperatorIp());
+        ps.setString(7, log.getRequestUrl());
+        ps.setString(8, log.getRequestMethod());
+        ps.setString(9, log.getRequestParams());
+        ps.setString(10, log.getResult());
+        ps.setString(11, log.getErrorMessage());
+        setLong(ps, 12, log.getExecutionTime());
+        setTimestamp(ps, 13, log.getCreateTime());
+        setLong(ps, 14, log.getTenantId());
+        if (log.getStatusCode() != null) {
+            ps.setInt(15, log.getStatusCode());
+        } else {
+            ps.setNull(15, Types.INTEGER);
+        }
+        ps.setString(16, log.getUserAgent());
+        ps.setString(17, log.getResponseData());
+        setTimestamp(ps, 18, log.getAccessTime());
+    }
+
+    private void setLong(PreparedStatement ps, int index, Long value) throws SQLException {
+        if (value != null) {
+            ps.setLong(index, value);
+        } else {
+            ps.setNull(index, Types.BIGINT);
+        }
+    }
+
+    private void setTimestamp(PreparedStatement ps, int index, LocalDateTime value) throws SQLException {
+        if (value != null) {
+            ps.setTimestamp(index, Timestamp.valueOf(value));
+        } else {
+            ps.setNull(index, Types.TIMESTAMP);
+        }
+    }
+
+    // 队列溢出时追加写入本地文件，每行一条JSON
+    private void spill(OperationLog operationLog) {
+        synchronized (spillLock) {
+            Path path = Paths.get(spillFile);
+            try {
+                if (path.getParent() != null) {
+                    Files.createDirectories(path.getParent());
+                }
+                try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                    writer.write(objectMapper.writeValueAsString(operationLog));
+                    writer.newLine();
+                }
+                spilledCount.increment();
+            } catch (IOException e) {
+                droppedCount.increment();
+                log.error("操作日志写入溢出文件失败: {}", e.getMessage());
+            }
+        }
+    }
+
+    // 队列空闲时把溢出文件中的日志重新入队
+    // 已处理的行数记录在 .pos 文件中，回放中断后从断点继续，已入队的行不会再次回放；
+    // 无法解析的行移到 .quarantine 文件，不阻塞后续回放
+    private void replaySpillFile() {
+        Path path = Paths.get(spillFile);
+        Path replaying = Paths.get(spillFile + ".replaying");
+        Path position = Paths.get(spillFile + ".replaying.pos");
+        synchronized (spillLock) {
+            if (!Files.exists(replaying)) {
+                try {
+                    if (!Files.exists(path) || Files.size(path) == 0) {
+                        return;
+                    }
+                    Files.deleteIfExists(position);
+                    Files.move(path, replaying, StandardCopyOption.REPLACE_EXISTING);
+                } catch (IOException e) {
+                    log.error("读取操作日志溢出文件失败: {}", e.getMessage());
+                    return;
+                }
+            }
+        }
+
+        int replayed = 0;
+        int quarantined = 0;
+        try (BufferedReader reader = Files.newBufferedReader(replaying, StandardCharsets.UTF_8);
+             RandomAccessFile progress = new RandomAccessFile(position.toFile(), "rw")) {
+            long done = progress.length() >= Long.BYTES ? progress.readLong() : 0;
+            long lineNumber = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (++lineNumber <= done) {
+                    continue;
+                }
+                if (!line.isBlank()) {
+                    OperationLog operationLog = parseSpilledLine(line);
+                    if (operationLog == null) {
+                        quarantine(line);
+                        quarantined++;
+                    } else {
+                        if (!queue.offer(operationLog)) {
+                            spill(operationLog);
+                        }
+                        replayed++;
+                    }
+                }
+                progress.seek(0);
+                progress.writeLong(lineNumber);
+            }
+        } catch (IOException e) {
+            log.error("回放操作日志溢出文件失败，下次从断点继续: {}", e.getMessage());
+            return;
+        }
+        try {
+            Files.delete(replaying);
+            Files.deleteIfExists(position);
+        } catch (IOException e) {
+            log.error("删除已回放的溢出文件失败: {}", e.getMessage());
+        }
+        log.info("已从溢出文件回放 {} 条操作日志，隔离无法解析的 {} 条", replayed, quarantined);
+    }
+
+    private OperationLog parseSpilledLine(String line) {
+        try {
+            return objectMapper.readValue(line, OperationLog.class);
+        } catch (JsonProcessingException e) {
+            log.warn("操作日志溢出文件中有无法解析的行，已移到隔离文件: {}", e.getOriginalMessage());
+            return null;
+        }
+    }
+
+    private void quarantine(String line) throws IOException {
+        Files.writeString(Paths.get(spillFile + ".quarantine"), line + System.lineSeparator(), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        quarantinedCount.increment();
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.demo.common.audit;
+
+import lombok.Data;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 操作日志记录策略
+ * 决定哪些请求必须记录、哪些按比例采样，以及每个用户每分钟最多记录多少条采样日志
+ */
+@Data
+public class AuditPolicy {
+
+    // 是否启用策略，关闭时所有请求都记录
+    private boolean enabled = true;
+
+    // 必须记录的操作类型（parseOperationType 的结果）
+    private Set<String> alwaysLogTypes = new LinkedHashSet<>(Set.of("CREATE", "UPDATE", "DELETE", "LOGIN"));
+
+    // 必须记录的HTTP方法
+    private Set<String> alwaysLogMethods = new LinkedHashSet<>(Set.of("POST", "PUT", "DELETE", "PATCH"));
+
+    // 按模块采样比例，key 可以是模块名（如 用户管理）或控制器类名（如 NotificationController）
+    private Map<String, Double> moduleSampleRates = new LinkedHashMap<>();
+
+    // 按HTTP方法采样比例
+    private Map<String, Double> methodSampleRates = new LinkedHashMap<>();
+
+    // 按操作类型采样比例
+    private Map<String, Double> typeSampleRates = new LinkedHashMap<>();
+
+    // 未命中任何规则时的采样比例
+    private double defaultSampleRate = 1.0;
+
+    // 每个用户每分钟最多记录的采样日志条数，0 表示不限制
+    private int userRateLimitPerMinute = 0;
+}
@@ -0,0 +1,284 @@
+package com.example.demo.common.audit;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 操作日志记录策略管理
+ * 启动时从配置加载默认策略，运行期间可通过接口整体替换，替换后立即生效
+ */
+@Slf4j
+@Component
+public class AuditPolicyManager {
+
+    // 限流计数最多跟踪的用户数，超出后新用户不再限流，避免计数表无限增长
+    private static final int MAX_TRACKED_USERS = 100_000;
+
+    private static final long WINDOW_MILLIS = 60_000L;
+
+    @Value("${app.audit.policy.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.audit.policy.always-log-types:CREATE,UPDATE,DELETE,LOGIN}")
+    private String alwaysLogTypes;
+
+    @Value("${app.audit.policy.always-log-methods:POST,PUT,DELETE,PATCH}")
+    private String alwaysLogMethods;
+
+    @Value("${app.audit.policy.module-sample-rates:}")
+    private String moduleSampleRates;
+
+    @Value("${app.audit.policy.method-sample-rates:}")
+    private String methodSampleRates;
+
+    @Value("${app.audit.policy.type-sample-rates:}")
+    private String typeSampleRates;
+
+    @Value("${app.audit.policy.default-sample-rate:1.0}")
+    private double defaultSampleRate;
+
+    @Value("${app.audit.policy.user-rate-limit-per-minute:0}")
+    private int userRateLimitPerMinute;
+
+    private final AtomicReference<Rules> rules = new AtomicReference<>();
+
+    // 当前限流窗口（分钟序号）及窗口内每个用户的计数
+    private final AtomicLong currentWindow = new AtomicLong();
+    private final Map<String, AtomicInteger> userCounters = new ConcurrentHashMap<>();
+
+    private final LongAdder sampledOutCount = new LongAdder();
+    private final LongAdder rateLimitedCount = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        AuditPolicy policy = new AuditPolicy();
+        policy.setEnabled(enabled);
+        policy.setAlwaysLogTypes(parseSet(alwaysLogTypes));
+        policy.setAlwaysLogMethods(parseSet(alwaysLogMethods));
+        policy.setModuleSampleRates(parseRates(moduleSampleRates));
+        policy.setMethodSampleRates(parseRates(methodSampleRates));
+        policy.setTypeSampleRates(parseRates(typeSampleRates));
+        policy.setDefaultSampleRate(defaultSampleRate);
+        policy.setUserRateLimitPerMinute(userRateLimitPerMinute);
+        updatePolicy(policy);
+    }
+
+    /**
+     * 获取当前生效的策略
+     */
+    public AuditPolicy getPolicy() {
+        return rules.get().source;
+    }
+
+    /**
+     * 替换策略，参数不合法时抛出 IllegalArgumentException 且原策略保持不变
+     */
+    public AuditPolicy updatePolicy(AuditPolicy policy) {
+        Rules compiled = compile(policy);
+        rules.set(compiled);
+        userCounters.clear();
+        log.info("操作日志记录策略已更新: {}", compiled.source);
+        return compiled.source;
+    }
+
+    /**
+     * 判断本次请求是否需要记录操作日志
+     *
+     * @param module        模块名
+     * @param className     控制器类名
+     * @param requestMethod HTTP方法，非Web调用时为null
+     * @param type          操作类型
+     * @param failed        是否执行失败，失败的请求总是记录
+     * @param userKey       限流用的用户标识（用户ID或IP），为null时不限流
+     */
+    public boolean shouldLog(String module, String className, String requestMethod, String type,
+                             boolean failed, String userKey) {
+        Rules current = rules.get();
+        if (!current.enabled || failed) {
+            return true;
+        }
+        if (current.alwaysLogTypes.contains(type)
+                || (requestMethod != null && current.alwaysLogMethods.contains(requestMethod))) {
+            return true;
+        }
+
+        double rate = current.sampleRate(module, className, requestMethod, type);
+        if (rate < 1.0 && (rate <= 0.0 || ThreadLocalRandom.current().nextDouble() >= rate)) {
+            sampledOutCount.increment();
+            return false;
+        }
+
+        if (current.userRateLimitPerMinute > 0 && userKey != null && !tryAcquire(userKey, current.userRateLimitPerMinute)) {
+            rateLimitedCount.increment();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 获取策略运行指标
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("enabled", rules.get().enabled);
+        metrics.put("sampledOut", sampledOutCount.sum());
+        metrics.put("rateLimited", rateLimitedCount.sum());
+        metrics.put("trackedUsers", userCounters.size());
+        return metrics;
+    }
+
+    // 固定一分钟窗口计数，进入新窗口时清空所有计数
+    private boolean tryAcquire(String userKey, int limit) {
+        long window = System.currentTimeMillis() / WINDOW_MILLIS;
+        long previous = currentWindow.get();
+        if (window != previous && currentWindow.compareAndSet(previous, window)) {
+            userCounters.clear();
+        }
+
+        AtomicInteger counter = userCounters.get(userKey);
+        if (counter == null) {
+            if (userCounters.size() >= MAX_TRACKED_USERS) {
+                return true;
+            }
+            counter = userCounters.computeIfAbsent(userKey, k -> new AtomicInteger());
+        }
+        return counter.incrementAndGet() <= limit;
+    }
+
+    private Rules compile(AuditPolicy policy) {
+        if (policy == null) {
+            throw new IllegalArgumentException("策略不能为空");
+        }
+        if (policy.getUserRateLimitPerMinute() < 0) {
+            throw new IllegalArgumentException("userRateLimitPerMinute 不能小于0");
+        }
+        checkRate("defaultSampleRate", policy.getDefaultSampleRate());
+
+        // 统一转成大写后保存一份副本，外部对象后续修改不影响生效中的策略
+        AuditPolicy copy = new AuditPolicy();
+        copy.setEnabled(policy.isEnabled());
+        copy.setAlwaysLogTypes(upperCaseSet(policy.getAlwaysLogTypes()));
+        copy.setAlwaysLogMethods(upperCaseSet(policy.getAlwaysLogMethods()));
+        copy.setModuleSampleRates(copyRates(policy.getModuleSampleRates(), false));
+        copy.setMethodSampleRates(copyRates(policy.getMethodSampleRates(), true));
+        copy.setTypeSampleRates(copyRates(policy.getTypeSampleRates(), true));
+        copy.setDefaultSampleRate(policy.getDefaultSampleRate());
+        copy.setUserRateLimitPerMinute(policy.getUserRateLimitPerMinute());
+        return new Rules(copy);
+    }
+
+    private static Set<String> upperCaseSet(Set<String> values) {
+        Set<String> result = new LinkedHashSet<>();
+        if (values != null) {
+            for (String value : values) {
+                if (StringUtils.hasText(value)) {
+                    result.add(value.trim().toUpperCase(Locale.ROOT));
+                }
+            }
+        }
+        return result;
+    }
+
+    private static Map<String, Double> copyRates(Map<String, Double> rates, boolean upperCase) {
+        Map<String, Double> result = new LinkedHashMap<>();
+        if (rates != null) {
+            for (Map.Entry<String, Double> entry : rates.entrySet()) {
+                if (!StringUtils.hasText(entry.getKey()) || entry.getValue() == null) {
+                    continue;
+                }
+                checkRate(entry.getKey(), entry.getValue());
+                String key = entry.getKey().trim();
+                result.put(upperCase ? key.toUpperCase(Locale.ROOT) : key, entry.getValue());
+            }
+        }
+        return result;
+    }
+
+    private static void checkRate(String name, double rate) {
+        if (rate < 0.0 || rate > 1.0) {
+            throw new IllegalArgumentException("采样比例必须在0到1之间: " + name + "=" + rate);
+        }
+    }
+
+    // 解析 "CREATE,UPDATE" 格式的配置
+    private static Set<String> parseSet(String value) {
+        Set<String> result = new LinkedHashSet<>();
+        for (String item : StringUtils.commaDelimitedListToStringArray(value)) {
+            if (StringUtils.hasText(item)) {
+                result.add(item.trim());
+            }
+        }
+        return result;
+    }
+
+    // 解析 "QUERY=0.1,GET=0.5" 格式的配置
+    private static Map<String, Double> parseRates(String value) {
+        Map<String, Double> result = new LinkedHashMap<>();
+        for (String item : StringUtils.commaDelimitedListToStringArray(value)) {
+            int index = item.indexOf('=');
+            if (index <= 0) {
+                continue;
+            }
+            result.put(item.substring(0, index).trim(), Double.parseDouble(item.substring(index + 1).trim()));
+        }
+        return result;
+    }
+
+    /**
+     * 编译后的只读策略，请求线程直接读取，无需加锁
+     */
+    private static final class Rules {
+
+        private final AuditPolicy source;
+        private final boolean enabled;
+        private final Set<String> alwaysLogTypes;
+        private final Set<String> alwaysLogMethods;
+        private final Map<String, Double> moduleSampleRates;
+        private final Map<String, Double> methodSampleRates;
+        private final Map<String, Double> typeSampleRates;
+        private final double defaultSampleRate;
+        private final int userRateLimitPerMinute;
+
+        private Rules(AuditPolicy source) {
+            this.source = source;
+            this.enabled = source.isEnabled();
+            this.alwaysLogTypes = Set.copyOf(source.getAlwaysLogTypes());
+            this.alwaysLogMethods = Set.copyOf(source.getAlwaysLogMethods());
+            this.moduleSampleRates = Map.copyOf(source.getModuleSampleRates());
+            this.methodSampleRates = Map.copyOf(source.getMethodSampleRates());
+            this.typeSampleRates = Map.copyOf(source.getTypeSampleRates());
+            this.defaultSampleRate = source.getDefaultSampleRate();
+            this.userRateLimitPerMinute = source.getUserRateLimitPerMinute();
+        }
+
+        // 优先级：控制器类名 > 模块名 > HTTP方法 > 操作类型 > 默认值
+        private double sampleRate(String module, String className, String requestMethod, String type) {
+            Double rate = moduleSampleRates.get(className);
+            if (rate == null) {
+                rate = moduleSampleRates.get(module);
+            }
+            if (rate == null && requestMethod != null) {
+                rate = methodSampleRates.get(requestMethod);
+            }
+            if (rate == null) {
+                rate = typeSampleRates.get(type);
+            }
+            return rate != null ? rate : defaultSampleRate;
+        }
+    }
+}
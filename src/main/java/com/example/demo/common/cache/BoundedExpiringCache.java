@@ -0,0 +1,91 @@
+package com.example.demo.common.cache;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 有界、按条目过期的本地缓存
+ * 每个条目携带自己的过期时间，容量达到上限时先清理过期条目，仍不足则随机淘汰一部分
+ */
+public class BoundedExpiringCache<K, V> {
+
+    private final int maxSize;
+
+    private final Map<K, Entry<V>> entries;
+
+    private final AtomicBoolean evicting = new AtomicBoolean(false);
+
+    public BoundedExpiringCache(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive: " + maxSize);
+        }
+        this.maxSize = maxSize;
+        this.entries = new ConcurrentHashMap<>(Math.min(maxSize, 1024));
+    }
+
+    /**
+     * 获取未过期的值，过期条目会被顺便移除
+     */
+    public V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expireAt <= System.currentTimeMillis()) {
+            entries.remove(key, entry);
+            return null;
+        }
+        return entry.value;
+    }
+
+    /**
+     * 写入缓存
+     * @param expireAt 过期时间点（毫秒时间戳）
+     */
+    public void put(K key, V value, long expireAt) {
+        if (expireAt <= System.currentTimeMillis()) {
+            return;
+        }
+        if (entries.size() >= maxSize) {
+            evict();
+        }
+        entries.put(key, new Entry<>(value, expireAt));
+    }
+
+    public void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    // 容量不足时淘汰：先删过期条目，再按迭代顺序淘汰约 1/10
+    private void evict() {
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long now = System.currentTimeMillis();
+            entries.values().removeIf(entry -> entry.expireAt <= now);
+
+            int toRemove = entries.size() - maxSize + Math.max(1, maxSize / 10);
+            Iterator<K> iterator = entries.keySet().iterator();
+            while (toRemove-- > 0 && iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    private record Entry<V>(V value, long expireAt) {
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.demo.common.cache;
+
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * 缓存失效广播
+ * 某个实例修改数据后广播失效消息，其他实例收到后清除本地缓存中的对应条目。
+ * 单实例部署使用本地实现（不广播），多实例部署使用 Redis 发布订阅。
+ * 发出消息的实例自己不会收到该消息，本地缓存由调用方直接清除。
+ */
+public interface CacheInvalidationBus {
+
+    /**
+     * 实现类型名称，用于监控指标
+     */
+    String name();
+
+    /**
+     * 是否会把失效消息发送到其他实例
+     */
+    boolean isDistributed();
+
+    /**
+     * 广播失效消息
+     *
+     * @param cacheName 缓存名称
+     * @param key 失效的键，null 表示整个缓存
+     */
+    void publish(String cacheName, String key);
+
+    /**
+     * 订阅其他实例发来的失效消息，监听器参数为失效的键，null 表示整个缓存
+     */
+    void subscribe(String cacheName, Consumer<String> listener);
+
+    /**
+     * 获取运行指标
+     */
+    Map<String, Object> getMetrics();
+}
@@ -0,0 +1,64 @@
+package com.example.demo.common.cache;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.StringJoiner;
+import java.util.function.Supplier;
+
+/**
+ * 条件请求（If-None-Match / 304）
+ * ETag 由数据版本号计算，在查询数据之前比较；客户端缓存仍然有效时直接返回304，不访问数据库也不序列化响应体。
+ * 响应统一带 Cache-Control: private, no-cache，浏览器每次都用 ETag 重新验证。
+ */
+public final class ConditionalResponses {
+
+    // 启动时间：版本号重启后从0开始，且停机期间数据可能被修改，之前签发的ETag全部作废
+    private static final String EPOCH = Long.toString(System.currentTimeMillis(), 36);
+
+    private static final Base64.Encoder URL_ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
+    private ConditionalResponses() {
+    }
+
+    /**
+     * 强ETag，相同的组成部分对应字节完全相同的响应体
+     */
+    public static String etag(String resource, Object... parts) {
+        return "\"" + tag(resource, parts) + "\"";
+    }
+
+    /**
+     * 弱ETag，用于包含服务器时间等次要字段、内容等价但不逐字节相同的响应
+     */
+    public static String weakEtag(String resource, Object... parts) {
+        return "W/" + etag(resource, parts);
+    }
+
+    /**
+     * ETag 与请求的 If-None-Match 匹配时返回304，否则调用 body 生成响应
+     */
+    public static <T> ResponseEntity<T> ifNoneMatch(WebRequest request, String etag, Supplier<T> body) {
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(REVALIDATE).build();
+        }
+        return ResponseEntity.ok().eTag(etag).cacheControl(REVALIDATE).body(body.get());
+    }
+
+    private static String tag(String resource, Object... parts) {
+        StringJoiner joiner = new StringJoiner(".");
+        joiner.add(resource).add(EPOCH);
+        for (Object part : parts) {
+            // 版本号直接拼接；字符串（如角色代码）可能含引号、逗号等不能出现在ETag中的字符，按 Base64 编码
+            joiner.add(part instanceof Number ? part.toString()
+                    : URL_ENCODER.encodeToString(String.valueOf(part).getBytes(StandardCharsets.UTF_8)));
+        }
+        return joiner.toString();
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.demo.common.cache;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按实体类型记录的数据版本号
+ * 通过 Hibernate 提交后事件，实体新增、修改、删除的事务提交后对应类型的版本号加1；
+ * 不经过 Hibernate 的写入（JdbcTemplate 批量写入、批量 UPDATE/DELETE 语句）需要调用方自行 {@link #bump}。
+ *
+ * 版本号只在本进程内有效，用于生成 ETag 等场景时需要同时带上启动时间。
+ * 多实例部署时本实例的修改通过 {@link CacheInvalidationBus} 广播，其他实例收到后递增各自的版本号，
+ * 避免未执行写入的实例一直返回304。
+ */
+@Component
+public class DataVersions implements PostCommitInsertEventListener, PostCommitUpdateEventListener,
+        PostCommitDeleteEventListener {
+
+    static final String CACHE_NAME = "dataVersions";
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final CacheInvalidationBus cacheInvalidationBus;
+
+    // 实体类名 -> 版本号，按类名记录以便与其他实例的消息对应
+    private final Map<String, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    public DataVersions(EntityManagerFactory entityManagerFactory, CacheInvalidationBus cacheInvalidationBus) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.cacheInvalidationBus = cacheInvalidationBus;
+        cacheInvalidationBus.subscribe(CACHE_NAME, this::onRemoteBump);
+    }
+
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+    }
+
+    /**
+     * 指定实体类型的当前版本号
+     */
+    public long version(Class<?> entityType) {
+        AtomicLong version = versions.get(entityType.getName());
+        return version != null ? version.get() : 0L;
+    }
+
+    /**
+     * 指定实体类型的数据已修改，并通知其他实例
+     */
+    public void bump(Class<?> entityType) {
+        bumpLocal(entityType.getName());
+        cacheInvalidationBus.publish(CACHE_NAME, entityType.getName());
+    }
+
+    private void bumpLocal(String entityName) {
+        versions.computeIfAbsent(entityName, name -> new AtomicLong()).incrementAndGet();
+    }
+
+    // 其他实例修改了数据；key为null时全部类型的版本号都递增
+    private void onRemoteBump(String entityName) {
+        if (entityName != null) {
+            bumpLocal(entityName);
+        } else {
+            versions.values().forEach(AtomicLong::incrementAndGet);
+        }
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        bump(event.getPersister().getMappedClass());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        bump(event.getPersister().getMappedClass());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        bump(event.getPersister().getMappedClass());
+    }
+
+    // 回滚的事务没有修改数据
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return true;
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.demo.common.cache;
+
+import org.hibernate.boot.spi.SessionFactoryOptions;
+import org.hibernate.cache.cfg.spi.DomainDataRegionBuildingContext;
+import org.hibernate.cache.cfg.spi.DomainDataRegionConfig;
+import org.hibernate.cache.spi.support.DomainDataStorageAccess;
+import org.hibernate.cache.spi.support.RegionFactoryTemplate;
+import org.hibernate.cache.spi.support.StorageAccess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hibernate 二级缓存的进程内实现
+ * 每个缓存区域（实体区域、查询结果区域）有独立的容量上限和过期时间，未单独配置的区域使用默认值。
+ * 更新时间戳区域记录每张表最后修改时间，用于判断查询缓存是否过期，不能丢失，因此不限容量、不过期。
+ *
+ * 缓存只在本进程内有效，多实例部署时其他实例的修改要等条目过期后才能看到，
+ * 因此只适合很少修改的基础数据。
+ */
+public class LocalCacheRegionFactory extends RegionFactoryTemplate {
+
+    private final int defaultMaxEntries;
+
+    private final long defaultTtlSeconds;
+
+    private final Map<String, Integer> regionMaxEntries;
+
+    private final Map<String, Long> regionTtlSeconds;
+
+    private final Map<String, LocalRegionStorage> storages = new ConcurrentHashMap<>();
+
+    public LocalCacheRegionFactory(int defaultMaxEntries, long defaultTtlSeconds,
+                                   Map<String, Integer> regionMaxEntries, Map<String, Long> regionTtlSeconds) {
+        this.defaultMaxEntries = defaultMaxEntries;
+        this.defaultTtlSeconds = defaultTtlSeconds;
+        this.regionMaxEntries = Map.copyOf(regionMaxEntries);
+        this.regionTtlSeconds = Map.copyOf(regionTtlSeconds);
+    }
+
+    @Override
+    protected void prepareForUse(SessionFactoryOptions settings, Map<String, Object> configValues) {
+    }
+
+    @Override
+    protected void releaseFromUse() {
+        storages.values().forEach(LocalRegionStorage::release);
+        storages.clear();
+    }
+
+    @Override
+    protected DomainDataStorageAccess createDomainDataStorageAccess(DomainDataRegionConfig regionConfig,
+                                                                    DomainDataRegionBuildingContext buildingContext) {
+        return storage(regionConfig.getRegionName());
+    }
+
+    @Override
+    protected StorageAccess createQueryResultsRegionStorageAccess(String regionName,
+                                                                  SessionFactoryImplementor sessionFactory) {
+        return storage(regionName);
+    }
+
+    @Override
+    protected StorageAccess createTimestampsRegionStorageAccess(String regionName,
+                                                                SessionFactoryImplementor sessionFactory) {
+        return storages.computeIfAbsent(regionName, name -> new LocalRegionStorage(Integer.MAX_VALUE, 0));
+    }
+
+    /**
+     * 各区域的容量、过期时间和命中统计
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new TreeMap<>();
+        storages.forEach((name, storage) -> metrics.put(name, storage.getMetrics()));
+        return metrics;
+    }
+
+    private LocalRegionStorage storage(String regionName) {
+        return storages.computeIfAbsent(regionName, name -> new LocalRegionStorage(
+                regionMaxEntries.getOrDefault(name, defaultMaxEntries),
+                TimeUnit.SECONDS.toMillis(regionTtlSeconds.getOrDefault(name, defaultTtlSeconds))));
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.demo.common.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * 单实例部署的失效广播，没有其他实例需要通知，只统计发布次数
+ */
+public class LocalInvalidationBus implements CacheInvalidationBus {
+
+    private final LongAdder publishCount = new LongAdder();
+
+    @Override
+    public String name() {
+        return "local";
+    }
+
+    @Override
+    public boolean isDistributed() {
+        return false;
+    }
+
+    @Override
+    public void publish(String cacheName, String key) {
+        publishCount.increment();
+    }
+
+    @Override
+    public void subscribe(String cacheName, Consumer<String> listener) {
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("backend", name());
+        metrics.put("published", publishCount.sum());
+        return metrics;
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.demo.common.cache;
+
+import org.hibernate.cache.spi.support.DomainDataStorageAccess;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 二级缓存单个区域的本地存储，基于 {@link BoundedExpiringCache}，并统计命中、未命中和写入次数
+ */
+class LocalRegionStorage implements DomainDataStorageAccess {
+
+    private final int maxEntries;
+
+    private final long ttlMillis;
+
+    private final BoundedExpiringCache<Object, Object> cache;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder puts = new LongAdder();
+
+    /**
+     * @param ttlMillis 条目存活时间，0 表示不过期
+     */
+    LocalRegionStorage(int maxEntries, long ttlMillis) {
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMillis;
+        this.cache = new BoundedExpiringCache<>(maxEntries);
+    }
+
+    @Override
+    public Object getFromCache(Object key, SharedSessionContractImplementor session) {
+        Object value = cache.get(key);
+        if (value != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return value;
+    }
+
+    @Override
+    public void putIntoCache(Object key, Object value, SharedSessionContractImplementor session) {
+        cache.put(key, value, ttlMillis > 0 ? System.currentTimeMillis() + ttlMillis : Long.MAX_VALUE);
+        puts.increment();
+    }
+
+    @Override
+    public void removeFromCache(Object key, SharedSessionContractImplementor session) {
+        cache.invalidate(key);
+    }
+
+    @Override
+    public void clearCache(SharedSessionContractImplementor session) {
+        cache.clear();
+    }
+
+    @Override
+    public boolean contains(Object key) {
+        return cache.get(key) != null;
+    }
+
+    @Override
+    public void evictData() {
+        cache.clear();
+    }
+
+    @Override
+    public void evictData(Object key) {
+        cache.invalidate(key);
+    }
+
+    @Override
+    public void release() {
+        cache.clear();
+    }
+
+    Map<String, Object> getMetrics() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("maxEntries", maxEntries);
+        metrics.put("ttlSeconds", ttlMillis / 1000);
+        metrics.put("size", cache.size());
+        metrics.put("hits", hitCount);
+        metrics.put("misses", missCount);
+        metrics.put("puts", puts.sum());
+        metrics.put("hitRate", hitCount + missCount > 0 ? (double) hitCount / (hitCount + missCount) : 0.0);
+        return metrics;
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.demo.common.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * 基于 Redis 发布订阅的失效广播
+ * 所有缓存共用一个频道，消息带上发送实例的ID，实例收到自己发出的消息时忽略。
+ * 发布订阅不保证送达（订阅连接断开期间的消息会丢失），缓存条目的过期时间是最终兜底。
+ */
+@Slf4j
+public class RedisInvalidationBus implements CacheInvalidationBus, MessageListener {
+
+    private final StringRedisTemplate redisTemplate;
+
+    private final ObjectMapper objectMapper;
+
+    private final String channel;
+
+    // 本实例ID，每次启动不同
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final Map<String, List<Consumer<String>>> listeners = new ConcurrentHashMap<>();
+
+    private final RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+
+    // 监控指标
+    private final LongAdder publishCount = new LongAdder();
+    private final LongAdder publishErrorCount = new LongAdder();
+    private final LongAdder receiveCount = new LongAdder();
+    private final LongAdder listenerErrorCount = new LongAdder();
+
+    public RedisInvalidationBus(StringRedisTemplate redisTemplate, ObjectMapper objectMapper, String channel) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.channel = channel;
+    }
+
+    /**
+     * 建立订阅连接，开始接收其他实例的失效消息
+     */
+    public void start() {
+        container.setConnectionFactory(redisTemplate.getRequiredConnectionFactory());
+        container.addMessageListener(this, new ChannelTopic(channel));
+        container.afterPropertiesSet();
+        container.start();
+    }
+
+    public void close() throws Exception {
+        container.destroy();
+    }
+
+    @Override
+    public String name() {
+        return "redis";
+    }
+
+    @Override
+    public boolean isDistributed() {
+        return true;
+    }
+
+    @Override
+    public void publish(String cacheName, String key) {
+        try {
+            redisTemplate.convertAndSend(channel,
+                    objectMapper.writeValueAsString(new InvalidationMessage(nodeId, cacheName, key)));
+            publishCount.increment();
+        } catch (JsonProcessingException | RuntimeException e) {
+            // 广播失败时其他实例只能等缓存过期
+            publishErrorCount.increment();
+            log.warn("广播缓存失效消息失败: cache={}, key={}, error={}", cacheName, key, e.getMessage());
+        }
+    }
+
+    @Override
+    public void subscribe(String cacheName, Consumer<String> listener) {
+        listeners.computeIfAbsent(cacheName, name -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        InvalidationMessage invalidation;
+        try {
+            invalidation = objectMapper.readValue(message.getBody(), InvalidationMessage.class);
+        } catch (IOException e) {
+            log.warn("无法解析缓存失效消息: {}", e.getMessage());
+            return;
+        }
+        if (nodeId.equals(invalidation.node())) {
+            return;
+        }
+        receiveCount.increment();
+        for (Consumer<String> listener : listeners.getOrDefault(invalidation.cache(), List.of())) {
+            try {
+                listener.accept(invalidation.key());
+            } catch (RuntimeException e) {
+                listenerErrorCount.increment();
+                log.warn("处理缓存失效消息失败: cache={}, key={}", invalidation.cache(), invalidation.key(), e);
+            }
+        }
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("backend", name());
+        metrics.put("channel", channel);
+        metrics.put("subscribed", container.isListening());
+        metrics.put("published", publishCount.sum());
+        metrics.put("publishErrors", publishErrorCount.sum());
+        metrics.put("received", receiveCount.sum());
+        metrics.put("listenerErrors", listenerErrorCount.sum());
+        return metrics;
+    }
+
+    private record InvalidationMessage(String node, String cache, String key) {
+    }
+}
@@ -0,0 +1,241 @@
+package com.example.demo.common.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 两级缓存：本地有界缓存在前，可选的 Redis 共享层在后
+ * 读取顺序为本地 -> Redis -> 加载函数，加载结果同时写入两级。
+ * 失效时清除本地和 Redis 中的条目，并通过 {@link CacheInvalidationBus} 通知其他实例清除各自的本地条目。
+ *
+ * Redis 层把一个缓存的全部条目放在一个哈希中（{prefix}{name}），值为 "过期时间|JSON"，
+ * 整个缓存失效只需删除这个哈希。Redis 不可用时跳过 Redis 层，直接使用加载函数的结果。
+ *
+ * 本地缓存中的值在多个请求间共享，调用方不能修改。
+ */
+@Slf4j
+public class TwoTierCache<V> {
+
+    private final String name;
+
+    private final Class<V> type;
+
+    private final long ttlMillis;
+
+    private final BoundedExpiringCache<String, V> local;
+
+    private final CacheInvalidationBus invalidationBus;
+
+    // 不使用 Redis 层时为null
+    private final StringRedisTemplate redisTemplate;
+
+    private final ObjectMapper objectMapper;
+
+    private final String redisKey;
+
+    // 每次失效（先于清除缓存）加1，加载期间发生过失效时不写入加载结果
+    private final AtomicLong generation = new AtomicLong();
+
+    // 监控指标
+    private final LongAdder localHitCount = new LongAdder();
+    private final LongAdder remoteHitCount = new LongAdder();
+    private final LongAdder loadCount = new LongAdder();
+    private final LongAdder invalidationCount = new LongAdder();
+    private final LongAdder remoteInvalidationCount = new LongAdder();
+    private final LongAdder remoteErrorCount = new LongAdder();
+    private final LongAdder staleLoadCount = new LongAdder();
+
+    TwoTierCache(String name, Class<V> type, int maxEntries, long ttlMillis, CacheInvalidationBus invalidationBus,
+                 StringRedisTemplate redisTemplate, ObjectMapper objectMapper, String redisKeyPrefix) {
+        this.name = name;
+        this.type = type;
+        this.ttlMillis = ttlMillis;
+        this.local = new BoundedExpiringCache<>(maxEntries);
+        this.invalidationBus = invalidationBus;
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.redisKey = redisKeyPrefix + name;
+        invalidationBus.subscribe(name, this::onRemoteInvalidation);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 获取缓存值，两级都未命中时调用加载函数；加载结果为null时不缓存
+     * 加载开始后发生过失效（例如修改数据的事务在加载期间提交），加载结果可能是旧数据，只返回给调用方，不写入缓存
+     */
+    public V get(String key, Supplier<V> loader) {
+        V value = local.get(key);
+        if (value != null) {
+            localHitCount.increment();
+            return value;
+        }
+        long loadGeneration = generation.get();
+        value = getRemote(key);
+        if (value != null) {
+            remoteHitCount.increment();
+            local.put(key, value, System.currentTimeMillis() + ttlMillis);
+            if (generation.get() != loadGeneration) {
+                local.invalidate(key);
+            }
+            return value;
+        }
+        loadCount.increment();
+        value = loader.get();
+        if (value != null) {
+            putIfCurrent(key, value, loadGeneration);
+        }
+        return value;
+    }
+
+    /**
+     * 失效单个条目
+     */
+    public void evict(String key) {
+        invalidate(key);
+    }
+
+    /**
+     * 失效整个缓存
+     */
+    public void clear() {
+        invalidate(null);
+    }
+
+    /**
+     * 获取缓存运行指标
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("remoteTier", redisTemplate != null);
+        metrics.put("size", local.size());
+        metrics.put("localHits", localHitCount.sum());
+        metrics.put("remoteHits", remoteHitCount.sum());
+        metrics.put("loads", loadCount.sum());
+        metrics.put("invalidations", invalidationCount.sum());
+        metrics.put("remoteInvalidations", remoteInvalidationCount.sum());
+        metrics.put("remoteErrors", remoteErrorCount.sum());
+        metrics.put("staleLoads", staleLoadCount.sum());
+        return metrics;
+    }
+
+    // 立即清除一次；在事务中调用时，事务结束后再清除一次并广播，避免其他实例在提交前用旧数据重新加载
+    private void invalidate(String key) {
+        invalidationCount.increment();
+        evictLocalAndRemote(key);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evictLocalAndRemote(key);
+                    invalidationBus.publish(name, key);
+                }
+            });
+        } else {
+            invalidationBus.publish(name, key);
+        }
+    }
+
+    // 写入后再检查一次：检查和写入之间发生的失效可能没有清除到刚写入的值，撤销写入
+    private void putIfCurrent(String key, V value, long loadGeneration) {
+        if (generation.get() != loadGeneration) {
+            staleLoadCount.increment();
+            return;
+        }
+        long expireAt = System.currentTimeMillis() + ttlMillis;
+        local.put(key, value, expireAt);
+        putRemote(key, value, expireAt);
+        if (generation.get() != loadGeneration) {
+            staleLoadCount.increment();
+            local.invalidate(key);
+            deleteRemote(key);
+        }
+    }
+
+    private void evictLocalAndRemote(String key) {
+        generation.incrementAndGet();
+        if (key == null) {
+            local.clear();
+        } else {
+            local.invalidate(key);
+        }
+        deleteRemote(key);
+    }
+
+    private void deleteRemote(String key) {
+        if (redisTemplate == null) {
+            return;
+        }
+        try {
+            if (key == null) {
+                redisTemplate.delete(redisKey);
+            } else {
+                redisTemplate.opsForHash().delete(redisKey, key);
+            }
+        } catch (RuntimeException e) {
+            remoteErrorCount.increment();
+            log.warn("清除Redis缓存失败: cache={}, key={}, error={}", name, key, e.getMessage());
+        }
+    }
+
+    // 其他实例修改了数据，Redis 层已由对方清除，这里只清本地
+    private void onRemoteInvalidation(String key) {
+        remoteInvalidationCount.increment();
+        generation.incrementAndGet();
+        if (key == null) {
+            local.clear();
+        } else {
+            local.invalidate(key);
+        }
+    }
+
+    private V getRemote(String key) {
+        if (redisTemplate == null) {
+            return null;
+        }
+        try {
+            HashOperations<String, String, String> hash = redisTemplate.opsForHash();
+            String stored = hash.get(redisKey, key);
+            if (stored == null) {
+                return null;
+            }
+            int separator = stored.indexOf('|');
+            if (Long.parseLong(stored.substring(0, separator)) <= System.currentTimeMillis()) {
+                hash.delete(redisKey, key);
+                return null;
+            }
+            return objectMapper.readValue(stored.substring(separator + 1), type);
+        } catch (Exception e) {
+            remoteErrorCount.increment();
+            log.debug("读取Redis缓存失败: cache={}, key={}, error={}", name, key, e.getMessage());
+            return null;
+        }
+    }
+
+    private void putRemote(String key, V value, long expireAt) {
+        if (redisTemplate == null) {
+            return;
+        }
+        try {
+            redisTemplate.opsForHash().put(redisKey, key, expireAt + "|" + objectMapper.writeValueAsString(value));
+            // 哈希整体的过期时间只用于回收长期不访问的缓存，条目是否过期以值中的时间为准
+            redisTemplate.expire(redisKey, Duration.ofMillis(ttlMillis));
+        } catch (Exception e) {
+            remoteErrorCount.increment();
+            log.debug("写入Redis缓存失败: cache={}, key={}, error={}", name, key, e.getMessage());
+        }
+    }
+}
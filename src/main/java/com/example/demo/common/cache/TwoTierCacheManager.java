@@ -0,0 +1,71 @@
+package com.example.demo.common.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 创建和登记两级缓存
+ * Redis 不可用（本地模式）时创建的缓存只有本地一级，失效消息也不会广播，适合单实例部署。
+ */
+public class TwoTierCacheManager {
+
+    private final CacheInvalidationBus invalidationBus;
+
+    // 本地模式为null
+    private final StringRedisTemplate redisTemplate;
+
+    private final ObjectMapper objectMapper;
+
+    private final String redisKeyPrefix;
+
+    private final Map<String, TwoTierCache<?>> caches = new ConcurrentHashMap<>();
+
+    public TwoTierCacheManager(CacheInvalidationBus invalidationBus, StringRedisTemplate redisTemplate,
+                               ObjectMapper objectMapper, String redisKeyPrefix) {
+        this.invalidationBus = invalidationBus;
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.redisKeyPrefix = redisKeyPrefix;
+    }
+
+    public CacheInvalidationBus getInvalidationBus() {
+        return invalidationBus;
+    }
+
+    /**
+     * 创建缓存，同名缓存只能创建一次
+     *
+     * @param type 值类型，使用 Redis 层时需要能被 JSON 序列化和反序列化
+     * @param remoteTier 是否使用 Redis 层；含敏感字段的值应只缓存在本地
+     */
+    public <V> TwoTierCache<V> create(String name, Class<V> type, int maxEntries, long ttlSeconds, boolean remoteTier) {
+        if (ttlSeconds <= 0) {
+            throw new IllegalArgumentException("ttlSeconds must be positive: " + ttlSeconds);
+        }
+        TwoTierCache<V> cache = new TwoTierCache<>(name, type, maxEntries, TimeUnit.SECONDS.toMillis(ttlSeconds),
+                invalidationBus, remoteTier ? redisTemplate : null, objectMapper, redisKeyPrefix);
+        if (caches.putIfAbsent(name, cache) != null) {
+            throw new IllegalStateException("cache already exists: " + name);
+        }
+        return cache;
+    }
+
+    /**
+     * 获取运行指标
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> cacheMetrics = new TreeMap<>();
+        caches.forEach((name, cache) -> cacheMetrics.put(name, cache.getMetrics()));
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("remoteTier", redisTemplate != null);
+        metrics.put("invalidation", invalidationBus.getMetrics());
+        metrics.put("caches", cacheMetrics);
+        return metrics;
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.demo.common.pagination;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * 键集分页游标
+ * 记录上一页最后一行的 (时间, id)，编码为不透明字符串返回给前端
+ */
+public record KeysetCursor(LocalDateTime time, long id) {
+
+    private static final char SEPARATOR = '|';
+
+    // 时间为空的行排在最后，用固定标记表示
+    private static final String NULL_TIME = "-";
+
+    public String encode() {
+        String raw = (time != null ? time.toString() : NULL_TIME) + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析游标，为空时返回null（表示第一页）
+     *
+     * @throws IllegalArgumentException 游标格式不正确
+     */
+    public static KeysetCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int index = raw.lastIndexOf(SEPARATOR);
+            if (index < 0) {
+                throw new IllegalArgumentException("无效的分页游标");
+            }
+            String timePart = raw.substring(0, index);
+            LocalDateTime time = NULL_TIME.equals(timePart) ? null : LocalDateTime.parse(timePart);
+            return new KeysetCursor(time, Long.parseLong(raw.substring(index + 1)));
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("无效的分页游标", e);
+        }
+    }
+}
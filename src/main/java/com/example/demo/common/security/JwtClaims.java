@@ -0,0 +1,65 @@
+package com.example.demo.common.security;
+
+import io.jsonwebtoken.Claims;
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 已验签的JWT声明
+ * 每个token只解析、验签一次，之后所有字段都从这里读取
+ */
+@Getter
+public class JwtClaims {
+
+    private final String username;
+    private final Long userId;
+    private final Long tenantId;
+    private final List<String> roles;
+    // 签发时用户的token版本号，旧token没有该声明时视为0
+    private final long tokenEpoch;
+    private final Date issuedAt;
+    private final Date expiration;
+
+    JwtClaims(Claims claims) {
+        this.username = claims.getSubject();
+        this.userId = toLong(claims.get("userId"));
+        this.tenantId = parseTenantId(claims.get("tenantId"));
+        this.roles = parseRoles(claims.get("roles"));
+        Long epoch = toLong(claims.get(JwtTokenProvider.CLAIM_TOKEN_EPOCH));
+        this.tokenEpoch = epoch != null ? epoch : 0L;
+        this.issuedAt = claims.getIssuedAt();
+        this.expiration = claims.getExpiration();
+    }
+
+    private static Long toLong(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        if (value instanceof String) {
+            return Long.valueOf((String) value);
+        }
+        return null;
+    }
+
+    // 处理不同类型的tenantId值，格式不正确时返回null
+    private static Long parseTenantId(Object tenantIdObj) {
+        try {
+            return toLong(tenantIdObj);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static List<String> parseRoles(Object rolesObj) {
+        if (!(rolesObj instanceof List<?> list)) {
+            return Collections.emptyList();
+        }
+        return list.stream()
+                .map(String::valueOf)
+                .collect(Collectors.toUnmodifiableList());
+    }
+}
@@ -1,25 +1,58 @@
 package com.example.demo.common.security;
 
-import io.jsonwebtoken.Claims;
+import com.example.demo.common.cache.BoundedExpiringCache;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
 import java.util.List;
 
+@Slf4j
 @Component
 public class JwtTokenProvider {
 
+    // 用户token版本号声明
+    public static final String CLAIM_TOKEN_EPOCH = "tep";
+
     @Value("${app.jwt.secret}")
     private String jwtSecret;
 
     @Value("${app.jwt.expiration}")
     private int jwtExpirationInMs;
 
+    // 已验签声明缓存的容量上限
+    @Value("${app.jwt.claims-cache-size:10000}")
+    private int claimsCacheSize;
+
+    // 签名密钥和解析器只构建一次，避免每次解析都重新计算HMAC密钥
+    private SecretKey signingKey;
+
+    private JwtParser jwtParser;
+
+    // token哈希 -> 已验签声明，过期时间与token的exp一致
+    private BoundedExpiringCache<String, JwtClaims> claimsCache;
+
+    @PostConstruct
+    public void init() {
+        signingKey = getSigningKey();
+        jwtParser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+        claimsCache = new BoundedExpiringCache<>(claimsCacheSize);
+    }
+
 //    private SecretKey getSigningKey() {
 //        return Keys.hmacShaKeyFor(jwtSecret.getBytes());
 //    }
@@ -42,7 +75,12 @@ public class JwtTokenProvider {
         }
     }
 
-    public String generateToken(String username, Long userId, Long tenantId) {
+    /**
+     * @param tokenEpoch 用户当前的token版本号，版本号递增后该token失效
+     * @param roles      角色代码，接口权限由 PermissionEngine 按角色判断
+     */
+    public String generateToken(String username, Long userId, Long tenantId, long tokenEpoch,
+                                List<String> roles) {
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + jwtExpirationInMs);
 
@@ -50,28 +88,66 @@ public class JwtTokenProvider {
                 .setSubject(username)
                 .claim("userId", userId)
                 .claim("tenantId", tenantId)
+                .claim(CLAIM_TOKEN_EPOCH, tokenEpoch)
+                .claim("roles", roles)
                 .setIssuedAt(now)
                 .setExpiration(expiryDate)
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
+    /**
+     * 解析并验签token，同一token只验签一次，之后命中缓存直到其过期
+     * @throws JwtException token无效或已过期
+     */
+    public JwtClaims parseClaims(String token) {
+        if (token == null || token.isEmpty()) {
+            throw new JwtException("JWT token is empty");
+        }
+
+        String cacheKey = hashToken(token);
+        JwtClaims cached = claimsCache.get(cacheKey);
+        if (cached != null) {
+            return cached;
+        }
+
+        JwtClaims claims = new JwtClaims(jwtParser.parseClaimsJws(token).getBody());
+        long expireAt = claims.getExpiration() != null
+                ? claims.getExpiration().getTime()
+                : System.currentTimeMillis() + jwtExpirationInMs;
+        claimsCache.put(cacheKey, claims, expireAt);
+        return claims;
+    }
+
+    /**
+     * 获取已验签的声明，token无效时返回null
+     */
+    public JwtClaims getClaims(String token) {
+        try {
+            return parseClaims(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            log.debug("JWT解析失败: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    // 缓存键使用token的SHA-256摘要，避免在内存中长期保存原始token
+    private String hashToken(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
     public String getUsernameFromJWT(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-        return claims.getSubject();
+        return parseClaims(token).getUsername();
     }
 
     public Long getUserIdFromJWT(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-        return claims.get("userId", Long.class);
+        return parseClaims(token).getUserId();
     }
 
     /**
@@ -79,37 +155,10 @@ public class JwtTokenProvider {
      */
     public Long getTenantIdFromJWT(String token) {
         try {
-            Claims claims = Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
-
-            // 从claims中获取tenantId
-            Object tenantIdObj = claims.get("tenantId");
-
-            if (tenantIdObj == null) {
-                return null;  // 如果没有tenantId声明，返回null
-            }
-
-            // 处理不同类型的tenantId值
-            if (tenantIdObj instanceof Long) {
-                return (Long) tenantIdObj;
-            } else if (tenantIdObj instanceof Integer) {
-                return ((Integer) tenantIdObj).longValue();
-            } else if (tenantIdObj instanceof String) {
-                try {
-                    return Long.valueOf((String) tenantIdObj);
-                } catch (NumberFormatException e) {
-                    throw new IllegalArgumentException("Invalid tenantId format in token: " + tenantIdObj);
-                }
-            } else {
-                throw new IllegalArgumentException("Unsupported tenantId type in token: " + tenantIdObj.getClass().getName());
-            }
-
+            return parseClaims(token).getTenantId();
         } catch (Exception e) {
             // 记录错误日志但不抛出异常，因为可能在其他验证方法中已经处理过
-            System.err.println("Failed to get tenantId from JWT: " + e.getMessage());
+            log.warn("Failed to get tenantId from JWT: {}", e.getMessage());
             return null;
         }
     }
@@ -118,14 +167,7 @@ public class JwtTokenProvider {
      * 从JWT中解析角色列表
      */
     public List<String> getRolesFromJWT(String token) {
-        Claims claims = Jwts.parserBuilder()
-//                .setSigningKey(jwtSecret)
-                .setSigningKey(getSigningKey())  // 修复：使用getSigningKey()而不是jwtSecret
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-
-        return claims.get("roles", List.class);
+        return parseClaims(token).getRoles();
     }
 
 //    public Long getTenantIdFromJWT(String token) {
@@ -138,14 +180,6 @@ public class JwtTokenProvider {
 //    }
 
     public boolean validateToken(String token) {
-        try {
-            Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(token);
-            return true;
-        } catch (Exception e) {
-            return false;
-        }
+        return getClaims(token) != null;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,237 @@
+package com.example.demo.common.security;
+
+import com.example.demo.common.util.ClientIpUtils;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 登录限流
+ * 按客户端IP和用户名分别做令牌桶限流，超出后直接拒绝，不再查库和计算BCrypt。
+ *
+ * 令牌桶放在固定大小的 AtomicLongArray 中（按哈希分槽），内存占用固定，不随攻击者的IP、用户名数量增长；
+ * 桶状态（剩余令牌 + 上次更新时间）压缩在一个 long 里，用 CAS 更新，无锁。
+ * 长时间不用的桶会自然补满，等同于过期，不需要单独清理。
+ * 每个键映射到两个槽，只有两个槽都没有令牌时才拒绝，避免正常用户因哈希冲突被误伤。
+ * 客户端IP默认取直连地址，只有直连地址是配置的受信任代理时才读取 X-Forwarded-For，避免伪造请求头绕过IP限流。
+ */
+@Slf4j
+@Component
+public class LoginRateLimiter {
+
+    // 低42位：相对启动时间的毫秒数 + 1（0表示槽未使用）；高22位：剩余令牌数 * 1000
+    private static final int TIME_BITS = 42;
+    private static final long TIME_MASK = (1L << TIME_BITS) - 1;
+    private static final long MAX_MILLI_TOKENS = (1L << (64 - TIME_BITS)) - 1;
+
+    @Value("${app.security.login-throttle.enabled:true}")
+    private boolean enabled;
+
+    // 每个维度的槽数
+    @Value("${app.security.login-throttle.slots:65536}")
+    private int slots;
+
+    @Value("${app.security.login-throttle.ip-capacity:20}")
+    private int ipCapacity;
+
+    @Value("${app.security.login-throttle.ip-refill-per-minute:10}")
+    private int ipRefillPerMinute;
+
+    @Value("${app.security.login-throttle.username-capacity:5}")
+    private int usernameCapacity;
+
+    @Value("${app.security.login-throttle.username-refill-per-minute:5}")
+    private int usernameRefillPerMinute;
+
+    // 受信任的反向代理地址，逗号分隔；为空时不读取 X-Forwarded-For
+    @Value("${app.security.login-throttle.trusted-proxies:}")
+    private String trustedProxiesConfig;
+
+    private Set<String> trustedProxies = Set.of();
+
+    private final long startMillis = System.currentTimeMillis();
+
+    private BucketTable ipBuckets;
+
+    private BucketTable usernameBuckets;
+
+    // 监控指标
+    private final LongAdder allowedCount = new LongAdder();
+    private final LongAdder ipRejectedCount = new LongAdder();
+    private final LongAdder usernameRejectedCount = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        int size = Integer.highestOneBit(Math.max(16, slots) - 1) << 1;
+        ipBuckets = new BucketTable(size, ipCapacity, ipRefillPerMinute);
+        usernameBuckets = new BucketTable(size, usernameCapacity, usernameRefillPerMinute);
+        if (trustedProxiesConfig != null) {
+            trustedProxies = Arrays.stream(trustedProxiesConfig.split(","))
+                    .map(String::trim)
+                    .filter(proxy -> !proxy.isEmpty())
+                    .collect(Collectors.toUnmodifiableSet());
+        }
+    }
+
+    /**
+     * 按请求的客户端IP和用户名尝试消耗一次登录机会
+     *
+     * @return 允许时返回0，否则返回建议的重试等待秒数
+     */
+    public long tryAcquire(HttpServletRequest request, String username) {
+        return tryAcquire(ClientIpUtils.getClientIp(request, trustedProxies), username);
+    }
+
+    /**
+     * 尝试消耗一次登录机会
+     *
+     * @return 允许时返回0，否则返回建议的重试等待秒数
+     */
+    public long tryAcquire(String clientIp, String username) {
+        return tryAcquire(clientIp, username, System.currentTimeMillis());
+    }
+
+    long tryAcquire(String clientIp, String username, long nowMillis) {
+        if (!enabled) {
+            return 0;
+        }
+        long now = nowMillis - startMillis + 1;
+
+        long waitMillis = ipBuckets.tryAcquire(clientIp != null ? clientIp : "", now);
+        if (waitMillis > 0) {
+            ipRejectedCount.increment();
+            return toSeconds(waitMillis);
+        }
+        if (username != null && !username.isEmpty()) {
+            // 用户名不区分大小写，避免通过大小写变化绕过
+            waitMillis = usernameBuckets.tryAcquire(username.toLowerCase(Locale.ROOT), now);
+            if (waitMillis > 0) {
+                usernameRejectedCount.increment();
+                return toSeconds(waitMillis);
+            }
+        }
+        allowedCount.increment();
+        return 0;
+    }
+
+    /**
+     * 获取限流运行指标
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("enabled", enabled);
+        metrics.put("allowed", allowedCount.sum());
+        metrics.put("ipRejected", ipRejectedCount.sum());
+        metrics.put("usernameRejected", usernameRejectedCount.sum());
+        metrics.put("slots", ipBuckets.size());
+        return metrics;
+    }
+
+    private static long toSeconds(long millis) {
+        return Math.max(1, (millis + 999) / 1000);
+    }
+
+    /**
+     * 一组按哈希分槽的令牌桶
+     */
+    static final class BucketTable {
+
+        private final AtomicLongArray states;
+
+        private final int mask;
+
+        private final long capacityMilli;
+
+        // 每毫秒补充的令牌数 * 1000
+        private final double refillMilliPerMillis;
+
+        BucketTable(int size, int capacity, int refillPerMinute) {
+            this.states = new AtomicLongArray(size);
+            this.mask = size - 1;
+            this.capacityMilli = Math.min(MAX_MILLI_TOKENS, Math.max(1, capacity) * 1000L);
+            this.refillMilliPerMillis = Math.max(1, refillPerMinute) * 1000.0 / 60_000;
+        }
+
+        int size() {
+            return states.length();
+        }
+
+        /**
+         * @return 允许时返回0，否则返回至少要等待的毫秒数
+         */
+        long tryAcquire(String key, long now) {
+            int[] slots = slotsOf(key);
+            // 两个槽都消耗一次，只要有一个成功就放行
+            long wait1 = consume(slots[0], now);
+            long wait2 = consume(slots[1], now);
+            if (wait1 == 0 || wait2 == 0) {
+                return 0;
+            }
+            return Math.min(wait1, wait2);
+        }
+
+        // 键对应的两个槽，保证不相同
+        int[] slotsOf(String key) {
+            long hash = hash(key);
+            int slot1 = (int) hash & mask;
+            int slot2 = (int) (hash >>> 32) & mask;
+            if (slot2 == slot1) {
+                slot2 = (slot1 + 1) & mask;
+            }
+            return new int[]{slot1, slot2};
+        }
+
+        private long consume(int slot, long now) {
+            while (true) {
+                long state = states.get(slot);
+                long tokens = currentTokens(state, now);
+                if (tokens < 1000) {
+                    // 令牌不足，不修改状态，返回补足一个令牌所需时间
+                    return (long) Math.ceil((1000 - tokens) / refillMilliPerMillis);
+                }
+                long next = ((tokens - 1000) << TIME_BITS) | (now & TIME_MASK);
+                if (states.compareAndSet(slot, state, next)) {
+                    return 0;
+                }
+            }
+        }
+
+        private long currentTokens(long state, long now) {
+            if (state == 0) {
+                return capacityMilli;
+            }
+            long tokens = state >>> TIME_BITS;
+            long elapsed = now - (state & TIME_MASK);
+            if (elapsed <= 0) {
+                return tokens;
+            }
+            // 四舍五入而不是截断，否则算出的等待时间会因为丢掉的小数多出1毫秒，Retry-After 多报1秒
+            return Math.min(capacityMilli, tokens + Math.round(elapsed * refillMilliPerMillis));
+        }
+
+        // FNV-1a 64位后再做一次混合，高低32位分别作为两个槽的哈希
+        private static long hash(String key) {
+            long h = 0xcbf29ce484222325L;
+            for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+                h ^= b;
+                h *= 0x100000001b3L;
+            }
+            h ^= h >>> 33;
+            h *= 0xff51afd7ed558ccdL;
+            h ^= h >>> 33;
+            return h;
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.example.demo.common.security;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * 密码哈希线程池
+ * BCrypt 计算放到按CPU核数设置的独立线程池中执行，排队已满时立即拒绝，
+ * 登录高峰或撞库时不会占满Tomcat工作线程、拖慢其他接口。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PasswordHashingPool {
+
+    private final PasswordEncoder passwordEncoder;
+
+    // 线程数，0表示按CPU核数
+    @Value("${app.security.password-hashing.threads:0}")
+    private int threads;
+
+    @Value("${app.security.password-hashing.queue-capacity:64}")
+    private int queueCapacity;
+
+    // 请求线程等待哈希结果的最长时间
+    @Value("${app.security.password-hashing.wait-timeout-ms:5000}")
+    private long waitTimeoutMillis;
+
+    private ThreadPoolExecutor executor;
+
+    // 监控指标
+    private final LongAdder completedCount = new LongAdder();
+    private final LongAdder rejectedCount = new LongAdder();
+    private final LongAdder timeoutCount = new LongAdder();
+    private final LongAdder rehashCount = new LongAdder();
+    private final LongAdder totalHashNanos = new LongAdder();
+    private final LongAdder totalQueueWaitNanos = new LongAdder();
+    private final AtomicLong maxHashNanos = new AtomicLong();
+    private final AtomicLong maxQueueWaitNanos = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadIndex = new AtomicInteger();
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, "password-hash-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        log.info("密码哈希线程池已启动: threads={}, queueCapacity={}", poolSize, queueCapacity);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 校验密码
+     *
+     * @throws RejectedExecutionException 线程池繁忙
+     */
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return await(submit(() -> passwordEncoder.matches(rawPassword, encodedPassword)));
+    }
+
+    /**
+     * 加密密码
+     *
+     * @throws RejectedExecutionException 线程池繁忙
+     */
+    public String encode(CharSequence rawPassword) {
+        return await(submit(() -> passwordEncoder.encode(rawPassword)));
+    }
+
+    /**
+     * 已存储的哈希是否低于当前配置的强度，需要重新加密
+     */
+    public boolean needsRehash(String encodedPassword) {
+        try {
+            return passwordEncoder.upgradeEncoding(encodedPassword);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 在后台按当前强度重新加密，不阻塞请求线程；线程池繁忙时放弃，下次登录再处理
+     *
+     * @param onEncoded 新哈希的保存逻辑，在哈希线程中执行
+     */
+    public void rehashAsync(CharSequence rawPassword, Consumer<String> onEncoded) {
+        try {
+            submit(() -> {
+                // 没有调用方等待结果，异常在这里记录
+                try {
+                    onEncoded.accept(passwordEncoder.encode(rawPassword));
+                    rehashCount.increment();
+                } catch (RuntimeException e) {
+                    log.warn("重新加密密码失败: {}", e.getMessage());
+                }
+                return null;
+            });
+        } catch (RejectedExecutionException e) {
+            log.debug("密码哈希线程池繁忙，跳过重新加密");
+        }
+    }
+
+    /**
+     * 获取线程池运行指标
+     */
+    public Map<String, Object> getMetrics() {
+        long completed = completedCount.sum();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("poolSize", executor.getPoolSize());
+        metrics.put("active", executor.getActiveCount());
+        metrics.put("queueDepth", executor.getQueue().size());
+        metrics.put("queueCapacity", queueCapacity);
+        metrics.put("completed", completed);
+        metrics.put("rejected", rejectedCount.sum());
+        metrics.put("timeouts", timeoutCount.sum());
+        metrics.put("rehashed", rehashCount.sum());
+        metrics.put("avgHashMillis", completed == 0 ? 0.0 : totalHashNanos.sum() / 1_000_000.0 / completed);
+        metrics.put("maxHashMillis", maxHashNanos.get() / 1_000_000.0);
+        metrics.put("avgQueueWaitMillis", completed == 0 ? 0.0 : totalQueueWaitNanos.sum() / 1_000_000.0 / completed);
+        metrics.put("maxQueueWaitMillis", maxQueueWaitNanos.get() / 1_000_000.0);
+        return metrics;
+    }
+
+    private <T> Future<T> submit(Callable<T> task) {
+        long submitTime = System.nanoTime();
+        try {
+            return executor.submit(() -> {
+                long startTime = System.nanoTime();
+                try {
+                    return task.call();
+                } finally {
+                    record(startTime - submitTime, System.nanoTime() - startTime);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejectedCount.increment();
+            throw e;
+        }
+    }
+
+    private <T> T await(Future<T> future) {
+        try {
+            return future.get(waitTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            timeoutCount.increment();
+            throw new RejectedExecutionException("password hashing timed out", e);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("password hashing interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    private void record(long queueWaitNanos, long hashNanos) {
+        completedCount.increment();
+        totalQueueWaitNanos.add(queueWaitNanos);
+        totalHashNanos.add(hashNanos);
+        maxQueueWaitNanos.accumulateAndGet(queueWaitNanos, Math::max);
+        maxHashNanos.accumulateAndGet(hashNanos, Math::max);
+    }
+}
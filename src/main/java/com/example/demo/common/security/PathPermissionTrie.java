@@ -0,0 +1,181 @@
+package com.example.demo.common.security;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 请求路径 -> 权限位 的前缀树
+ * 路径按 "/" 分段逐级匹配，支持三种段：字面量、单段通配（"*" 或 "{id}"）、剩余全部段（"**"，只能出现在末尾）。
+ * 同一路径匹配多条规则时取最具体的：字面量优先于 "*"，"*" 优先于 "**"；同一节点上指定了请求方法的规则优先。
+ * 构建完成后只读，可以被多个线程同时查询。
+ */
+public final class PathPermissionTrie {
+
+    // 没有匹配的规则
+    public static final int NO_RULE = -2;
+
+    // 匹配到规则，但不需要任何权限位
+    public static final int OPEN = -1;
+
+    private final Node root;
+
+    private final int size;
+
+    private PathPermissionTrie(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * 规则数
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 查找请求需要的权限位
+     *
+     * @return 权限位，或 {@link #OPEN} / {@link #NO_RULE}
+     */
+    public int lookup(String method, String path) {
+        return match(root, path, 0, method);
+    }
+
+    // 从 path 的 offset 位置开始匹配下一段，失败时回溯尝试优先级更低的分支
+    private static int match(Node node, String path, int offset, String method) {
+        int start = offset;
+        while (start < path.length() && path.charAt(start) == '/') {
+            start++;
+        }
+        if (start >= path.length()) {
+            int value = node.value(method);
+            if (value != NO_RULE) {
+                return value;
+            }
+            // "**" 也匹配零个段
+            return node.rest != null ? node.rest.value(method) : NO_RULE;
+        }
+        int end = path.indexOf('/', start);
+        if (end < 0) {
+            end = path.length();
+        }
+
+        if (node.literals != null) {
+            Node child = node.literals.get(path.substring(start, end));
+            if (child != null) {
+                int value = match(child, path, end, method);
+                if (value != NO_RULE) {
+                    return value;
+                }
+            }
+        }
+        if (node.wildcard != null) {
+            int value = match(node.wildcard, path, end, method);
+            if (value != NO_RULE) {
+                return value;
+            }
+        }
+        return node.rest != null ? node.rest.value(method) : NO_RULE;
+    }
+
+    private static final class Node {
+
+        private Map<String, Node> literals;
+
+        private Node wildcard;
+
+        private Node rest;
+
+        private Map<String, Integer> methodValues;
+
+        private int anyMethodValue = NO_RULE;
+
+        private int value(String method) {
+            if (methodValues != null && method != null) {
+                Integer value = methodValues.get(method);
+                if (value != null) {
+                    return value;
+                }
+            }
+            return anyMethodValue;
+        }
+    }
+
+    public static final class Builder {
+
+        private final Node root = new Node();
+
+        private int size;
+
+        private boolean built;
+
+        private Builder() {
+        }
+
+        /**
+         * 添加规则，同一方法和路径重复添加时后者覆盖前者
+         *
+         * @param method 请求方法，null 表示所有方法
+         * @param pattern 路径模式，如 /api/users/**、/api/roles/{id}
+         * @param bit 需要的权限位，不需要权限时为 {@link #OPEN}
+         */
+        public Builder add(String method, String pattern, int bit) {
+            if (built) {
+                throw new IllegalStateException("trie already built");
+            }
+            if (bit < OPEN) {
+                throw new IllegalArgumentException("invalid permission bit: " + bit);
+            }
+            String[] segments = pattern.split("/");
+            Node node = root;
+            for (int i = 0; i < segments.length; i++) {
+                String segment = segments[i];
+                if (segment.isEmpty()) {
+                    continue;
+                }
+                if (segment.equals("**")) {
+                    if (i != segments.length - 1) {
+                        throw new IllegalArgumentException("'**' must be the last segment: " + pattern);
+                    }
+                    if (node.rest == null) {
+                        node.rest = new Node();
+                    }
+                    node = node.rest;
+                } else if (segment.equals("*") || (segment.startsWith("{") && segment.endsWith("}"))) {
+                    if (node.wildcard == null) {
+                        node.wildcard = new Node();
+                    }
+                    node = node.wildcard;
+                } else {
+                    if (node.literals == null) {
+                        node.literals = new HashMap<>();
+                    }
+                    node = node.literals.computeIfAbsent(segment, key -> new Node());
+                }
+            }
+            if (method == null) {
+                node.anyMethodValue = bit;
+            } else {
+                if (node.methodValues == null) {
+                    node.methodValues = new HashMap<>();
+                }
+                node.methodValues.put(method.toUpperCase(), bit);
+            }
+            size++;
+            return this;
+        }
+
+        /**
+         * 构建后不能再通过此 Builder 添加规则
+         */
+        public PathPermissionTrie build() {
+            built = true;
+            return new PathPermissionTrie(root, size);
+        }
+    }
+}
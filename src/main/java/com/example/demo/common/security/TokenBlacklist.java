@@ -1,94 +1,266 @@
 package com.example.demo.common.security;
 
+import com.example.demo.common.util.BloomFilter;
+import com.example.demo.common.util.HierarchicalTimingWheel;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
+/**
+ * 已注销token的黑名单
+ * - 只保存 token 的128位指纹，过期时间取 token 自身的 exp
+ * - 到期由分层时间轮逐个移除，不再定期全量扫描
+ * - 查询先经过布隆过滤器，绝大多数"未注销"的判断不查表、不分配对象
+ * - 定期把快照写入本地文件，重启后恢复，已注销的 token 不会重新生效
+ */
+@Slf4j
 @Component
 public class TokenBlacklist {
-    private final Map<String, Long> blacklist = new ConcurrentHashMap<>();
 
+    private static final int SNAPSHOT_MAGIC = 0x544B424C; // "TKBL"
+    private static final int SNAPSHOT_VERSION = 1;
+
+    @Value("${app.security.revocation.expected-tokens:100000}")
+    private int expectedTokens;
+
+    @Value("${app.security.revocation.bloom-fpp:0.001}")
+    private double bloomFpp;
+
+    @Value("${app.security.revocation.snapshot-file:./data/revoked-tokens.bin}")
+    private String snapshotFile;
+
+    // 指纹 -> 过期时间
+    private final Map<TokenFingerprint, Long> revoked = new ConcurrentHashMap<>();
+
+    private HierarchicalTimingWheel<TokenFingerprint> timingWheel;
+
+    private volatile BloomFilter bloomFilter;
+
+    // 布隆过滤器只能增加不能删除，累计插入次数超过当前过滤器的容量时按当前有效数据重建
+    private long bloomInsertions;
+
+    // 当前过滤器的容量，重建时至少为有效指纹数的两倍，保证重建的开销被之后的插入均摊
+    private long bloomCapacity;
+
+    private final Object writeLock = new Object();
+
+    private volatile boolean dirty;
+
+    // 监控指标
+    private final LongAdder checkCount = new LongAdder();
+    private final LongAdder bloomPositiveCount = new LongAdder();
+    private final LongAdder falsePositiveCount = new LongAdder();
+    private final LongAdder revokedCount = new LongAdder();
+    private final LongAdder expiredCount = new LongAdder();
+    private final LongAdder bloomRebuildCount = new LongAdder();
+    private volatile long lastSnapshotTime;
+    private volatile int lastSnapshotEntries;
+
+    @PostConstruct
+    public void init() {
+        long now = System.currentTimeMillis();
+        timingWheel = new HierarchicalTimingWheel<>(1000L, 3, now);
+        bloomCapacity = expectedTokens;
+        bloomFilter = new BloomFilter(bloomCapacity, bloomFpp);
+        loadSnapshot(now);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        saveSnapshot();
+    }
+
+    /**
+     * 注销token，保留到 token 自身过期为止
+     *
+     * @param expireAtMillis token 的过期时间（exp）
+     */
+    public void revoke(String token, long expireAtMillis) {
+        if (token == null || expireAtMillis <= System.currentTimeMillis()) {
+            return;
+        }
+        addFingerprint(TokenFingerprint.of(token), expireAtMillis);
+        revokedCount.increment();
+        dirty = true;
+    }
+
+    /**
+     * 按剩余有效时间注销token
+     */
     public void add(String token, long ttlMillis) {
-        long expireTime = System.currentTimeMillis() + ttlMillis;
-        blacklist.put(token, expireTime);
+        revoke(token, System.currentTimeMillis() + ttlMillis);
     }
 
     public boolean contains(String token) {
-        Long expireTime = blacklist.get(token);
-        if (expireTime == null) {
+        checkCount.increment();
+        long high = TokenFingerprint.highHash(token);
+        long low = TokenFingerprint.lowHash(token);
+        if (!bloomFilter.mightContain(high, low)) {
             return false;
         }
 
-        if (expireTime < System.currentTimeMillis()) {
-            blacklist.remove(token);
+        bloomPositiveCount.increment();
+        Long expireAt = revoked.get(new TokenFingerprint(high, low));
+        if (expireAt == null) {
+            falsePositiveCount.increment();
             return false;
         }
+        return expireAt > System.currentTimeMillis();
+    }
+
+    public int size() {
+        return revoked.size();
+    }
+
+    // 每秒推进时间轮，移除已过期的指纹
+    @Scheduled(fixedRate = 1000)
+    public void expireTokens() {
+        long now = System.currentTimeMillis();
+        timingWheel.advance(now, fingerprint -> {
+            Long expireAt = revoked.get(fingerprint);
+            if (expireAt != null && expireAt <= now && revoked.remove(fingerprint, expireAt)) {
+                expiredCount.increment();
+            }
+        });
+    }
 
-        return true;
+    // 有变化时定期写快照
+    @Scheduled(fixedDelayString = "${app.security.revocation.snapshot-interval-ms:60000}")
+    public void snapshotIfDirty() {
+        if (dirty) {
+            saveSnapshot();
+        }
+    }
+
+    /**
+     * 获取黑名单运行指标
+     */
+    public Map<String, Object> getMetrics() {
+        BloomFilter filter = bloomFilter;
+        long checks = checkCount.sum();
+        long falsePositives = falsePositiveCount.sum();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("size", revoked.size());
+        metrics.put("revoked", revokedCount.sum());
+        metrics.put("expired", expiredCount.sum());
+        metrics.put("checks", checks);
+        metrics.put("bloomPositives", bloomPositiveCount.sum());
+        metrics.put("falsePositives", falsePositives);
+        metrics.put("falsePositiveRate", checks == 0 ? 0.0 : (double) falsePositives / checks);
+        metrics.put("estimatedFalsePositiveRate", filter.estimatedFalsePositiveRate());
+        metrics.put("bloomBits", filter.getBitCount());
+        metrics.put("bloomHashes", filter.getHashCount());
+        metrics.put("bloomRebuilds", bloomRebuildCount.sum());
+        metrics.put("lastSnapshotTime", lastSnapshotTime);
+        metrics.put("lastSnapshotEntries", lastSnapshotEntries);
+        return metrics;
     }
 
-    @Scheduled(fixedRate = 30 * 60 * 1000) // 30分钟清理一次
-    public void cleanExpiredTokens() {
-        long currentTime = System.currentTimeMillis();
-        blacklist.entrySet().removeIf(entry -> entry.getValue() < currentTime);
+    private void addFingerprint(TokenFingerprint fingerprint, long expireAtMillis) {
+        synchronized (writeLock) {
+            if (!timingWheel.schedule(fingerprint, expireAtMillis)) {
+                return;
+            }
+            revoked.merge(fingerprint, expireAtMillis, Math::max);
+            if (++bloomInsertions > bloomCapacity) {
+                rebuildBloomFilter();
+            } else {
+                bloomFilter.put(fingerprint.high(), fingerprint.low());
+            }
+        }
+    }
+
+    // 在写锁内按当前有效指纹重建，完成后整体替换，查询线程始终看到完整的过滤器
+    private void rebuildBloomFilter() {
+        long capacity = Math.max(expectedTokens, revoked.size() * 2L);
+        BloomFilter filter = new BloomFilter(capacity, bloomFpp);
+        for (TokenFingerprint fingerprint : revoked.keySet()) {
+            filter.put(fingerprint.high(), fingerprint.low());
+        }
+        bloomFilter = filter;
+        bloomCapacity = capacity;
+        bloomInsertions = revoked.size();
+        bloomRebuildCount.increment();
+        log.info("token黑名单布隆过滤器已重建: entries={}, capacity={}", revoked.size(), capacity);
+    }
+
+    private void saveSnapshot() {
+        Path path = Paths.get(snapshotFile);
+        Path temp = Paths.get(snapshotFile + ".tmp");
+        long now = System.currentTimeMillis();
+        dirty = false;
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            // 先取出未过期的条目，再写文件，保证条目数与内容一致
+            Map<TokenFingerprint, Long> entries = new HashMap<>();
+            revoked.forEach((fingerprint, expireAt) -> {
+                if (expireAt > now) {
+                    entries.put(fingerprint, expireAt);
+                }
+            });
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeInt(SNAPSHOT_VERSION);
+                out.writeInt(entries.size());
+                for (Map.Entry<TokenFingerprint, Long> entry : entries.entrySet()) {
+                    out.writeLong(entry.getKey().high());
+                    out.writeLong(entry.getKey().low());
+                    out.writeLong(entry.getValue());
+                }
+            }
+            // 写临时文件后原子替换，进程中途退出也不会留下半个快照
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            lastSnapshotTime = now;
+            lastSnapshotEntries = entries.size();
+        } catch (IOException e) {
+            dirty = true;
+            log.error("保存token黑名单快照失败: {}", e.getMessage());
+        }
+    }
+
+    private void loadSnapshot(long now) {
+        Path path = Paths.get(snapshotFile);
+        if (!Files.exists(path)) {
+            return;
+        }
+        int loaded = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+                log.warn("token黑名单快照格式不正确，已忽略: {}", path);
+                return;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                TokenFingerprint fingerprint = new TokenFingerprint(in.readLong(), in.readLong());
+                long expireAt = in.readLong();
+                if (expireAt > now) {
+                    addFingerprint(fingerprint, expireAt);
+                    loaded++;
+                }
+            }
+            log.info("已从快照恢复 {} 条已注销token", loaded);
+        } catch (IOException e) {
+            log.error("读取token黑名单快照失败: {}", e.getMessage());
+        }
     }
-//    private final Map<String, Long> blacklist = new ConcurrentHashMap<>();
-//
-//    /**
-//     * 添加token到黑名单
-//     * @param token token字符串
-//     * @param ttlMillis token剩余有效时间（毫秒）
-//     */
-//    public void add(String token, long ttlMillis) {
-//        long expireTime = System.currentTimeMillis() + ttlMillis;
-//        blacklist.put(token, expireTime);
-//    }
-//
-//    /**
-//     * 检查token是否在黑名单中
-//     * @param token token字符串
-//     * @return 是否在黑名单中
-//     */
-//    public boolean contains(String token) {
-//        // 先检查是否存在，如果存在再检查是否过期
-//        Long expireTime = blacklist.get(token);
-//        if (expireTime == null) {
-//            return false;
-//        }
-//
-//        // 如果已过期，移除并返回false
-//        if (expireTime < System.currentTimeMillis()) {
-//            blacklist.remove(token);
-//            return false;
-//        }
-//
-//        return true;
-//    }
-//
-//    /**
-//     * 从黑名单中移除token
-//     * @param token token字符串
-//     */
-//    public void remove(String token) {
-//        blacklist.remove(token);
-//    }
-//
-//    /**
-//     * 定期清理过期token，每30分钟执行一次
-//     */
-//    @Scheduled(fixedRate = 30 * 60 * 1000) // 30分钟
-//    public void cleanExpiredTokens() {
-//        long currentTime = System.currentTimeMillis();
-//        blacklist.entrySet().removeIf(entry -> entry.getValue() < currentTime);
-//    }
-//
-//    /**
-//     * 获取黑名单大小
-//     * @return 黑名单中的token数量
-//     */
-//    public int size() {
-//        return blacklist.size();
-//    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,43 @@
+package com.example.demo.common.security;
+
+/**
+ * token 的 128 位指纹
+ * 黑名单只保存两个 long，不保存原始 token 字符串
+ */
+public record TokenFingerprint(long high, long low) {
+
+    private static final long SEED_HIGH = 0x9E3779B97F4A7C15L;
+    private static final long SEED_LOW = 0xC2B2AE3D27D4EB4FL;
+
+    public static TokenFingerprint of(CharSequence token) {
+        return new TokenFingerprint(highHash(token), lowHash(token));
+    }
+
+    public static long highHash(CharSequence token) {
+        return hash(token, SEED_HIGH, 0xFF51AFD7ED558CCDL);
+    }
+
+    public static long lowHash(CharSequence token) {
+        return hash(token, SEED_LOW, 0x94D049BB133111EBL);
+    }
+
+    // 逐字符混合的 64 位哈希，不分配对象
+    private static long hash(CharSequence token, long seed, long multiplier) {
+        long h = seed ^ token.length();
+        for (int i = 0; i < token.length(); i++) {
+            h ^= token.charAt(i);
+            h *= multiplier;
+            h = Long.rotateLeft(h, 31);
+        }
+        return mix(h ^ seed);
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.demo.common.security;
+
+import java.time.LocalDateTime;
+
+/**
+ * 用户信息快照（不可变）
+ * 登录校验和个人资料查询共用，包含角色名称，避免每次都查询用户表和角色表
+ */
+public record UserPrincipal(
+        Long id,
+        String username,
+        String password,
+        String name,
+        String email,
+        String phone,
+        String nickname,
+        String department,
+        String position,
+        Boolean enabled,
+        String roleCode,
+        String roleName,
+        boolean roleExists,
+        LocalDateTime createTime,
+        LocalDateTime updateTime) {
+
+    public boolean isEnabled() {
+        return enabled == null || enabled;
+    }
+}
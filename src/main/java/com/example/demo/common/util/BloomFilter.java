@@ -0,0 +1,80 @@
+package com.example.demo.common.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 线程安全的布隆过滤器
+ * 调用方自行提供两个独立的64位哈希值，内部用双重哈希派生出 k 个位置，查询过程不分配对象
+ */
+public class BloomFilter {
+
+    private final AtomicLongArray bits;
+
+    private final long bitCount;
+
+    private final int hashCount;
+
+    /**
+     * @param expectedInsertions 预期元素数量
+     * @param falsePositiveRate  期望误判率，例如 0.001
+     */
+    public BloomFilter(long expectedInsertions, double falsePositiveRate) {
+        if (expectedInsertions <= 0) {
+            expectedInsertions = 1;
+        }
+        if (falsePositiveRate <= 0.0 || falsePositiveRate >= 1.0) {
+            throw new IllegalArgumentException("falsePositiveRate must be in (0, 1): " + falsePositiveRate);
+        }
+        // m = -n * ln(p) / (ln2)^2, k = m / n * ln2
+        long optimalBits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int words = (int) Math.max(1, (optimalBits + 63) / 64);
+        this.bits = new AtomicLongArray(words);
+        this.bitCount = (long) words * 64;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+    }
+
+    public void put(long hash1, long hash2) {
+        for (int i = 0; i < hashCount; i++) {
+            long index = index(hash1, hash2, i);
+            int word = (int) (index >>> 6);
+            long mask = 1L << index;
+            long current = bits.get(word);
+            while ((current & mask) == 0 && !bits.compareAndSet(word, current, current | mask)) {
+                current = bits.get(word);
+            }
+        }
+    }
+
+    public boolean mightContain(long hash1, long hash2) {
+        for (int i = 0; i < hashCount; i++) {
+            long index = index(hash1, hash2, i);
+            if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long getBitCount() {
+        return bitCount;
+    }
+
+    public int getHashCount() {
+        return hashCount;
+    }
+
+    /**
+     * 按当前置位比例估算的误判率
+     */
+    public double estimatedFalsePositiveRate() {
+        long setBits = 0;
+        for (int i = 0; i < bits.length(); i++) {
+            setBits += Long.bitCount(bits.get(i));
+        }
+        return Math.pow((double) setBits / bitCount, hashCount);
+    }
+
+    private long index(long hash1, long hash2, int i) {
+        return Math.floorMod(hash1 + i * hash2, bitCount);
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.demo.common.util;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.util.Set;
+
+/**
+ * 客户端IP解析
+ */
+public final class ClientIpUtils {
+
+    private ClientIpUtils() {
+    }
+
+    public static String getClientIp(HttpServletRequest request) {
+        String ip = request.getHeader("X-Forwarded-For");
+        if (ip == null || ip.length() == 0 || "unknown".equalsIgnoreCase(ip)) {
+            ip = request.getHeader("Proxy-Client-IP");
+        }
+        if (ip == null || ip.length() == 0 || "unknown".equalsIgnoreCase(ip)) {
+            ip = request.getHeader("WL-Proxy-Client-IP");
+        }
+        if (ip == null || ip.length() == 0 || "unknown".equalsIgnoreCase(ip)) {
+            ip = request.getRemoteAddr();
+        }
+        return ip;
+    }
+
+    /**
+     * 用于安全判断（如限流）的客户端IP，不信任客户端自己填写的请求头
+     * 直连地址不是受信任的代理时直接使用直连地址；否则从 X-Forwarded-For 右侧开始跳过受信任的代理，
+     * 取第一个不受信任的地址。
+     *
+     * @param trustedProxies 受信任的反向代理地址，为空时只使用直连地址
+     */
+    public static String getClientIp(HttpServletRequest request, Set<String> trustedProxies) {
+        String remoteAddr = request.getRemoteAddr();
+        if (trustedProxies == null || !trustedProxies.contains(remoteAddr)) {
+            return remoteAddr;
+        }
+        String forwardedFor = request.getHeader("X-Forwarded-For");
+        if (forwardedFor == null || forwardedFor.isBlank()) {
+            return remoteAddr;
+        }
+        String[] hops = forwardedFor.split(",");
+        String client = remoteAddr;
+        for (int i = hops.length - 1; i >= 0; i--) {
+            String hop = hops[i].trim();
+            if (hop.isEmpty() || "unknown".equalsIgnoreCase(hop)) {
+                break;
+            }
+            client = hop;
+            if (!trustedProxies.contains(hop)) {
+                break;
+            }
+        }
+        return client;
+    }
+}
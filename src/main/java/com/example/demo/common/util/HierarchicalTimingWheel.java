@@ -0,0 +1,129 @@
+package com.example.demo.common.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 分层时间轮
+ * 每层 64 个槽，第 0 层一个槽代表一个 tick，第 n 层一个槽代表 64^n 个 tick。
+ * 到期时间超出最高层范围的元素先放在最高层，随推进逐层下移，到期后回调处理，
+ * 不需要定期扫描全部元素。
+ */
+public class HierarchicalTimingWheel<T> {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+
+    private final long tickMillis;
+
+    private final int levels;
+
+    // 层 -> 槽 -> 元素
+    private final List<List<List<Node<T>>>> wheels;
+
+    // 当前已推进到的 tick（绝对值：时间戳 / tickMillis）
+    private long currentTick;
+
+    private int size;
+
+    public HierarchicalTimingWheel(long tickMillis, int levels, long startMillis) {
+        if (tickMillis <= 0 || levels <= 0 || levels > 10) {
+            throw new IllegalArgumentException("invalid timing wheel: tickMillis=" + tickMillis + ", levels=" + levels);
+        }
+        this.tickMillis = tickMillis;
+        this.levels = levels;
+        this.wheels = new ArrayList<>(levels);
+        for (int level = 0; level < levels; level++) {
+            List<List<Node<T>>> slots = new ArrayList<>(SLOTS);
+            for (int i = 0; i < SLOTS; i++) {
+                slots.add(new ArrayList<>());
+            }
+            wheels.add(slots);
+        }
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    /**
+     * 添加元素
+     *
+     * @return 已经到期时返回false，元素不会被加入
+     */
+    public synchronized boolean schedule(T item, long expireAtMillis) {
+        long expireTick = (expireAtMillis + tickMillis - 1) / tickMillis;
+        if (expireTick <= currentTick) {
+            return false;
+        }
+        place(new Node<>(item, expireTick));
+        size++;
+        return true;
+    }
+
+    /**
+     * 推进到指定时间，依次回调所有到期元素
+     */
+    public synchronized void advance(long nowMillis, Consumer<T> onExpire) {
+        long targetTick = nowMillis / tickMillis;
+        while (currentTick < targetTick) {
+            currentTick++;
+            // 低层转完一圈时，把上一层对应槽的元素下移
+            for (int level = 1; level < levels; level++) {
+                if (((currentTick >>> (SLOT_BITS * (level - 1))) & SLOT_MASK) != 0) {
+                    break;
+                }
+                cascade(level, onExpire);
+            }
+
+            List<Node<T>> slot = wheels.get(0).get((int) (currentTick & SLOT_MASK));
+            if (!slot.isEmpty()) {
+                for (Node<T> node : slot) {
+                    onExpire.accept(node.item);
+                }
+                size -= slot.size();
+                slot.clear();
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private void cascade(int level, Consumer<T> onExpire) {
+        int index = (int) ((currentTick >>> (SLOT_BITS * level)) & SLOT_MASK);
+        List<Node<T>> slot = wheels.get(level).get(index);
+        if (slot.isEmpty()) {
+            return;
+        }
+        List<Node<T>> nodes = new ArrayList<>(slot);
+        slot.clear();
+        for (Node<T> node : nodes) {
+            if (node.expireTick <= currentTick) {
+                onExpire.accept(node.item);
+                size--;
+            } else {
+                place(node);
+            }
+        }
+    }
+
+    private void place(Node<T> node) {
+        long delta = node.expireTick - currentTick;
+        for (int level = 0; level < levels; level++) {
+            if (delta < 1L << (SLOT_BITS * (level + 1))) {
+                int index = (int) ((node.expireTick >>> (SLOT_BITS * level)) & SLOT_MASK);
+                wheels.get(level).get(index).add(node);
+                return;
+            }
+        }
+        // 超出最高层范围：放在最高层最远的槽，下移时按真实到期时间重新放置
+        int top = levels - 1;
+        long farthestTick = currentTick + (1L << (SLOT_BITS * levels)) - 1;
+        int index = (int) ((farthestTick >>> (SLOT_BITS * top)) & SLOT_MASK);
+        wheels.get(top).get(index).add(node);
+    }
+
+    private record Node<T>(T item, long expireTick) {
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.demo.common.util;
+
+/**
+ * long -> long 的开放寻址哈希表（线性探测）
+ * 键值交替存放在同一个 long[] 中，查询不装箱、不分配对象。
+ * 非线程安全：写操作需要调用方加锁。读操作只访问一次 table 引用，
+ * 配合 StampedLock 乐观读使用时，并发扩容只会导致读到过期数据（由 validate 发现），不会越界。
+ */
+public class LongLongHashMap {
+
+    private static final long EMPTY_KEY = 0L;
+
+    private static final float LOAD_FACTOR = 0.5f;
+
+    // [key0, value0, key1, value1, ...]，键 0 单独存放
+    private long[] table;
+
+    private int size;
+
+    private boolean hasZeroKey;
+
+    private long zeroValue;
+
+    public LongLongHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        this.table = new long[capacity * 2];
+    }
+
+    /**
+     * @return 不存在时返回 missingValue
+     */
+    public long get(long key, long missingValue) {
+        if (key == EMPTY_KEY) {
+            return hasZeroKey ? zeroValue : missingValue;
+        }
+        long[] tab = table;
+        int mask = (tab.length >> 1) - 1;
+        int slot = mix(key) & mask;
+        for (int probes = 0; probes <= mask; probes++) {
+            long current = tab[slot << 1];
+            if (current == key) {
+                return tab[(slot << 1) + 1];
+            }
+            if (current == EMPTY_KEY) {
+                return missingValue;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return missingValue;
+    }
+
+    public void put(long key, long value) {
+        if (key == EMPTY_KEY) {
+            if (!hasZeroKey) {
+                hasZeroKey = true;
+                size++;
+            }
+            zeroValue = value;
+            return;
+        }
+        if (insert(table, key, value)) {
+            size++;
+            if (size > (table.length >> 1) * LOAD_FACTOR) {
+                resize();
+            }
+        }
+    }
+
+    public void remove(long key) {
+        if (key == EMPTY_KEY) {
+            if (hasZeroKey) {
+                hasZeroKey = false;
+                size--;
+            }
+            return;
+        }
+        long[] tab = table;
+        int mask = (tab.length >> 1) - 1;
+        int slot = mix(key) & mask;
+        while (tab[slot << 1] != key) {
+            if (tab[slot << 1] == EMPTY_KEY) {
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        // 删除后把同一探测链上后续的元素前移，保持线性探测的查找正确
+        int gap = slot;
+        int next = (gap + 1) & mask;
+        while (tab[next << 1] != EMPTY_KEY) {
+            int ideal = mix(tab[next << 1]) & mask;
+            if (((next - ideal) & mask) >= ((next - gap) & mask)) {
+                tab[gap << 1] = tab[next << 1];
+                tab[(gap << 1) + 1] = tab[(next << 1) + 1];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        tab[gap << 1] = EMPTY_KEY;
+        tab[(gap << 1) + 1] = 0L;
+        size--;
+    }
+
+    public void clear() {
+        table = new long[table.length];
+        hasZeroKey = false;
+        zeroValue = 0L;
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // 扩容时先在新数组上完成插入，再整体替换引用
+    private void resize() {
+        long[] old = table;
+        long[] resized = new long[old.length * 2];
+        for (int i = 0; i < old.length; i += 2) {
+            if (old[i] != EMPTY_KEY) {
+                insert(resized, old[i], old[i + 1]);
+            }
+        }
+        table = resized;
+    }
+
+    // 返回true表示新增，false表示覆盖已有键
+    private static boolean insert(long[] tab, long key, long value) {
+        int mask = (tab.length >> 1) - 1;
+        int slot = mix(key) & mask;
+        while (true) {
+            long current = tab[slot << 1];
+            if (current == key) {
+                tab[(slot << 1) + 1] = value;
+                return false;
+            }
+            if (current == EMPTY_KEY) {
+                tab[(slot << 1) + 1] = value;
+                tab[slot << 1] = key;
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.demo.config;
+
+import com.example.demo.common.cache.CacheInvalidationBus;
+import com.example.demo.common.cache.LocalInvalidationBus;
+import com.example.demo.common.cache.RedisInvalidationBus;
+import com.example.demo.common.cache.TwoTierCacheManager;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+/**
+ * 服务层缓存的存储和失效广播选择
+ * backend 为 redis 且启动时能连上 Redis 时，缓存增加 Redis 共享层，修改数据后通过发布订阅通知其他实例；
+ * 否则降级为只有本地缓存，不广播失效消息，多实例部署时其他实例要等缓存过期才能看到修改。
+ */
+@Slf4j
+@Configuration
+public class CacheTierConfig {
+
+    // local 或 redis
+    @Value("${app.cache.tier.backend:local}")
+    private String backend;
+
+    @Value("${app.cache.tier.redis-key-prefix:cache:}")
+    private String redisKeyPrefix;
+
+    @Value("${app.cache.tier.invalidation-channel:cache:invalidation}")
+    private String invalidationChannel;
+
+    @Bean
+    public CacheInvalidationBus cacheInvalidationBus(ObjectProvider<StringRedisTemplate> redisTemplateProvider,
+                                                     ObjectMapper objectMapper) {
+        if ("redis".equalsIgnoreCase(backend)) {
+            StringRedisTemplate redisTemplate = redisTemplateProvider.getIfAvailable();
+            if (redisTemplate != null && ping(redisTemplate)) {
+                RedisInvalidationBus bus = new RedisInvalidationBus(redisTemplate, objectMapper, invalidationChannel);
+                bus.start();
+                log.info("服务缓存使用Redis共享层和发布订阅失效广播: channel={}", invalidationChannel);
+                return bus;
+            }
+            log.warn("Redis不可用，服务缓存降级为仅本地缓存，多实例部署时修改要等缓存过期后才对其他实例可见");
+        }
+        return new LocalInvalidationBus();
+    }
+
+    @Bean
+    public TwoTierCacheManager twoTierCacheManager(CacheInvalidationBus cacheInvalidationBus,
+                                                   ObjectProvider<StringRedisTemplate> redisTemplateProvider,
+                                                   ObjectMapper objectMapper) {
+        // 只有失效消息能广播时才使用 Redis 层，否则各实例的本地缓存无法得知其他实例的修改
+        StringRedisTemplate redisTemplate = cacheInvalidationBus.isDistributed()
+                ? redisTemplateProvider.getIfAvailable() : null;
+        return new TwoTierCacheManager(cacheInvalidationBus, redisTemplate, objectMapper, redisKeyPrefix);
+    }
+
+    private boolean ping(StringRedisTemplate redisTemplate) {
+        try {
+            return "PONG".equalsIgnoreCase(redisTemplate.execute((RedisCallback<String>) RedisConnection::ping));
+        } catch (RuntimeException e) {
+            log.warn("连接Redis失败: {}", e.getMessage());
+            return false;
+        }
+    }
+}
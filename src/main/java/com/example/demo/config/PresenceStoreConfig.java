@@ -0,0 +1,59 @@
+package com.example.demo.config;
+
+import com.example.demo.service.LocalPresenceStore;
+import com.example.demo.service.PresenceStore;
+import com.example.demo.service.RedisPresenceStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 在线状态存储选择
+ * presence-backend 为 redis 且启动时能连上 Redis 时使用 Redis（多实例共享），否则使用本地内存。
+ */
+@Slf4j
+@Configuration
+public class PresenceStoreConfig {
+
+    // local 或 redis
+    @Value("${app.online-user.presence-backend:local}")
+    private String presenceBackend;
+
+    // 超过该时间无访问视为离线
+    @Value("${app.online-user.session-timeout-minutes:30}")
+    private long sessionTimeoutMinutes;
+
+    @Value("${app.online-user.redis-key-prefix:presence:}")
+    private String redisKeyPrefix;
+
+    @Bean
+    public PresenceStore presenceStore(ObjectProvider<StringRedisTemplate> redisTemplateProvider, ObjectMapper objectMapper) {
+        long timeoutMillis = TimeUnit.MINUTES.toMillis(sessionTimeoutMinutes);
+        if ("redis".equalsIgnoreCase(presenceBackend)) {
+            StringRedisTemplate redisTemplate = redisTemplateProvider.getIfAvailable();
+            if (redisTemplate != null && ping(redisTemplate)) {
+                log.info("在线状态使用Redis存储: keyPrefix={}", redisKeyPrefix);
+                return new RedisPresenceStore(redisTemplate, objectMapper, timeoutMillis, redisKeyPrefix);
+            }
+            log.warn("Redis不可用，在线状态改用本地存储，多实例部署时在线人数只统计本实例");
+        }
+        return new LocalPresenceStore(timeoutMillis);
+    }
+
+    private boolean ping(StringRedisTemplate redisTemplate) {
+        try {
+            return "PONG".equalsIgnoreCase(redisTemplate.execute((RedisCallback<String>) RedisConnection::ping));
+        } catch (RuntimeException e) {
+            log.warn("连接Redis失败: {}", e.getMessage());
+            return false;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.demo.config;
+
+import com.example.demo.common.cache.LocalCacheRegionFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Hibernate 二级缓存配置
+ * 角色、菜单、角色菜单、系统信息、商品等很少修改的实体使用实体缓存和查询缓存，
+ * 缓存区域名见各实体上的 @Cache 注解，查询结果区域为 default-query-results-region。
+ */
+@Slf4j
+@Configuration
+public class SecondLevelCacheConfig {
+
+    @Value("${app.cache.l2.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.cache.l2.default-max-entries:1000}")
+    private int defaultMaxEntries;
+
+    @Value("${app.cache.l2.default-ttl-seconds:600}")
+    private long defaultTtlSeconds;
+
+    // 按区域覆盖容量，格式 "role=100,menu=500"
+    @Value("${app.cache.l2.region-max-entries:}")
+    private String regionMaxEntries;
+
+    // 按区域覆盖过期时间（秒），格式同上
+    @Value("${app.cache.l2.region-ttl-seconds:}")
+    private String regionTtlSeconds;
+
+    @Bean
+    public LocalCacheRegionFactory localCacheRegionFactory() {
+        return new LocalCacheRegionFactory(defaultMaxEntries, defaultTtlSeconds,
+                parse(regionMaxEntries, Integer::valueOf), parse(regionTtlSeconds, Long::valueOf));
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(LocalCacheRegionFactory regionFactory) {
+        return properties -> {
+            properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, enabled);
+            properties.put(AvailableSettings.USE_QUERY_CACHE, enabled);
+            if (enabled) {
+                properties.put(AvailableSettings.CACHE_REGION_FACTORY, regionFactory);
+            } else {
+                log.info("Hibernate二级缓存已关闭");
+            }
+        };
+    }
+
+    private static <T> Map<String, T> parse(String value, Function<String, T> parser) {
+        Map<String, T> result = new LinkedHashMap<>();
+        for (String item : StringUtils.commaDelimitedListToStringArray(value)) {
+            int index = item.indexOf('=');
+            if (index <= 0) {
+                continue;
+            }
+            result.put(item.substring(0, index).trim(), parser.apply(item.substring(index + 1).trim()));
+        }
+        return result;
+    }
+}
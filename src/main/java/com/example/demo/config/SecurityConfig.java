@@ -1,15 +1,21 @@
 package com.example.demo.config;
 
 import com.example.demo.filter.JwtAuthenticationFilter;
+import com.example.demo.service.PermissionEngine;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authorization.AuthenticatedAuthorizationManager;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
@@ -26,8 +32,11 @@ public class SecurityConfig {
 
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
 
-    public SecurityConfig(JwtAuthenticationFilter jwtAuthenticationFilter) {
+    private final PermissionEngine permissionEngine;
+
+    public SecurityConfig(JwtAuthenticationFilter jwtAuthenticationFilter, PermissionEngine permissionEngine) {
         this.jwtAuthenticationFilter = jwtAuthenticationFilter;
+        this.permissionEngine = permissionEngine;
     }
 
     @Bean
@@ -44,11 +53,15 @@ public class SecurityConfig {
                 .csrf(csrf -> csrf.disable()) // 必须禁用 CSRF
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
 
-                .authorizeRequests(authz -> authz
+                .authorizeHttpRequests(authz -> authz
                         // 公开接口（登录、注册等）
-                        .requestMatchers("/api/auth/login", "/api/auth/register",  "/api/menus/**", "/h2-console/**").permitAll()
-                        // 需要认证的接口
-                        .requestMatchers("/api/**").authenticated()
+                        .requestMatchers("/api/auth/login", "/api/auth/register", "/h2-console/**").permitAll()
+                        // 菜单查询公开，菜单的增删改需要菜单管理权限
+                        .requestMatchers(HttpMethod.GET, "/api/menus/**").permitAll()
+                        // 修改操作日志策略可以关闭审计，只允许管理员，查看日志的菜单权限不够
+                        .requestMatchers(HttpMethod.PUT, "/api/operation-logs/policy").hasAnyRole("super", "admin")
+                        // 需要认证的接口，再按角色的菜单权限判断
+                        .requestMatchers("/api/**").access(rbacAuthorizationManager())
                         .anyRequest().permitAll()
                 )
                 .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
@@ -60,6 +73,19 @@ public class SecurityConfig {
         return http.build();
     }
 
+    // 先要求已登录（未登录时仍由认证入口处理），再由权限引擎判断
+    private AuthorizationManager<RequestAuthorizationContext> rbacAuthorizationManager() {
+        AuthenticatedAuthorizationManager<RequestAuthorizationContext> authenticated =
+                AuthenticatedAuthorizationManager.authenticated();
+        return (authentication, context) -> {
+            AuthorizationDecision decision = authenticated.check(authentication, context);
+            if (decision == null || !decision.isGranted()) {
+                return decision;
+            }
+            return new AuthorizationDecision(permissionEngine.isAllowed(authentication.get(), context.getRequest()));
+        };
+    }
+
     @Bean
     public CorsConfigurationSource corsConfigurationSource() {
         CorsConfiguration configuration = new CorsConfiguration();
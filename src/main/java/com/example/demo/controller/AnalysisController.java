@@ -1,9 +1,15 @@
 package com.example.demo.controller;
 
+import com.example.demo.common.cache.ConditionalResponses;
+import com.example.demo.common.cache.DataVersions;
 import com.example.demo.dto.AnalysisStatsDTO;
 import com.example.demo.dto.BehaviorDataDTO;
 import com.example.demo.dto.RetentionDataDTO;
 import com.example.demo.dto.TrendDataDTO;
+import com.example.demo.entity.Menu;
+import com.example.demo.entity.OperationLog;
+import com.example.demo.entity.Role;
+import com.example.demo.entity.User;
 import com.example.demo.service.AnalysisService;
 import com.example.demo.service.AuthService;
 import com.example.demo.service.UserAnalysisService;
@@ -12,6 +18,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.HashMap;
 import java.util.List;
@@ -31,6 +38,8 @@ public class AnalysisController {
 
     private final AuthService authService;
 
+    private final DataVersions dataVersions;
+
     /**
      * 近期操作
      * @param token
@@ -60,9 +69,13 @@ public class AnalysisController {
      * @return
      */
     @GetMapping("/quick-stats")
-    public ResponseEntity<Map<String, Object>> getQuickStats() {
-        Map<String, Object> stats = analysisService.getQuickStats();
-        return ResponseEntity.ok(stats);
+    public ResponseEntity<Map<String, Object>> getQuickStats(WebRequest request) {
+        String etag = ConditionalResponses.etag("quick-stats",
+                dataVersions.version(User.class),
+                dataVersions.version(Role.class),
+                dataVersions.version(Menu.class),
+                dataVersions.version(OperationLog.class));
+        return ConditionalResponses.ifNoneMatch(request, etag, analysisService::getQuickStats);
     }
 
     @GetMapping("/stats")
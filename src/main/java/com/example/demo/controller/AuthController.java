@@ -1,13 +1,20 @@
 package com.example.demo.controller;
 
+import com.example.demo.common.security.LoginRateLimiter;
 import com.example.demo.dto.ForgotPasswordRequest;
 import com.example.demo.dto.LoginRequest;
 import com.example.demo.dto.LoginResponse;
 import com.example.demo.dto.RegisterRequest;
 import com.example.demo.service.AuthService;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.concurrent.RejectedExecutionException;
+
 @RestController
 @RequestMapping("/api/auth")
 @RequiredArgsConstructor
@@ -15,9 +22,25 @@ public class AuthController {
 
     private final AuthService authService;
 
+    private final LoginRateLimiter loginRateLimiter;
+
     @PostMapping("/login")
-    public LoginResponse login(@RequestBody LoginRequest request) {
-        return authService.login(request);
+    public ResponseEntity<LoginResponse> login(@RequestBody LoginRequest request, HttpServletRequest httpRequest) {
+        // 先按IP和用户名限流，被拒绝的请求不查库、不计算BCrypt
+        long retryAfterSeconds = loginRateLimiter.tryAcquire(httpRequest, request.getUsername());
+        if (retryAfterSeconds > 0) {
+            LoginResponse response = new LoginResponse();
+            response.setSuccess(false);
+            response.setMessage("登录尝试过于频繁，请" + retryAfterSeconds + "秒后再试");
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                    .body(response);
+        }
+        try {
+            return ResponseEntity.ok(authService.login(request));
+        } catch (RejectedExecutionException e) {
+            return busy();
+        }
     }
 
     @PostMapping("/logout")
@@ -26,8 +49,12 @@ public class AuthController {
     }
 
     @PostMapping("/register")
-    public LoginResponse register(@RequestBody RegisterRequest request) {
-        return authService.register(request);
+    public ResponseEntity<LoginResponse> register(@RequestBody RegisterRequest request) {
+        try {
+            return ResponseEntity.ok(authService.register(request));
+        } catch (RejectedExecutionException e) {
+            return busy();
+        }
     }
 
     @PostMapping("/forgot-password")
@@ -39,4 +66,12 @@ public class AuthController {
     public boolean validateToken(@RequestHeader("Authorization") String token) {
         return authService.validateToken(token.replace("Bearer ", ""));
     }
-}
\ No newline at end of file
+
+    // 密码哈希线程池繁忙，快速返回429，不占用工作线程排队
+    private ResponseEntity<LoginResponse> busy() {
+        LoginResponse response = new LoginResponse();
+        response.setSuccess(false);
+        response.setMessage("系统繁忙，请稍后再试");
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(response);
+    }
+}
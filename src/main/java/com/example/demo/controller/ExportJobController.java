@@ -0,0 +1,93 @@
+package com.example.demo.controller;
+
+import com.example.demo.common.context.SecurityContext;
+import com.example.demo.dto.ExportJobDTO;
+import com.example.demo.dto.ExportJobRequest;
+import com.example.demo.service.ExportJobService;
+import com.example.demo.service.PermissionEngine;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.*;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 异步导出任务：提交任务、查询进度、下载文件
+ * 导出的数据与日志查询接口相同，提交、查询和下载时都按导出类型校验对应的菜单权限
+ */
+@RestController
+@RequestMapping("/api/export-jobs")
+@RequiredArgsConstructor
+public class ExportJobController {
+
+    private final ExportJobService exportJobService;
+
+    private final PermissionEngine permissionEngine;
+
+    @PostMapping
+    public ResponseEntity<?> submit(@RequestBody ExportJobRequest request) {
+        String menu = ExportJobService.requiredMenu(request.getType());
+        if (menu != null && !permissionEngine.hasMenu(SecurityContextHolder.getContext().getAuthentication(), menu)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("message", "无权导出该类型的数据"));
+        }
+        try {
+            ExportJobDTO job = exportJobService.submit(request, SecurityContext.getCurrentUserId());
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .body(Map.of("message", "导出任务过多，请稍后再试"));
+        }
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<ExportJobDTO> getJob(@PathVariable String id) {
+        ExportJobDTO job = exportJobService.getJob(id, SecurityContext.getCurrentUserId());
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return canExport(job) ? ResponseEntity.ok(job) : ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+    }
+
+    @GetMapping("/{id}/download")
+    public ResponseEntity<Resource> download(@PathVariable String id) {
+        Long userId = SecurityContext.getCurrentUserId();
+        ExportJobDTO job = exportJobService.getJob(id, userId);
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        // 提交后权限可能已被收回，下载时重新校验
+        if (!canExport(job)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        Path file = exportJobService.getCompletedFile(id, userId);
+        if (file == null) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+
+        MediaType mediaType = job.getFileName().endsWith(".xlsx")
+                ? MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet")
+                : MediaType.parseMediaType("text/csv; charset=UTF-8");
+        return ResponseEntity.ok()
+                .contentType(mediaType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(job.getFileName(), StandardCharsets.UTF_8).build().toString())
+                .body(new FileSystemResource(file));
+    }
+
+    private boolean canExport(ExportJobDTO job) {
+        String menu = ExportJobService.requiredMenu(job.getType());
+        return menu != null && permissionEngine.hasMenu(SecurityContextHolder.getContext().getAuthentication(), menu);
+    }
+}
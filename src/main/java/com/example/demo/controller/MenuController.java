@@ -1,11 +1,16 @@
 package com.example.demo.controller;
 
+import com.example.demo.common.cache.ConditionalResponses;
+import com.example.demo.common.cache.DataVersions;
 import com.example.demo.entity.Menu;
 import com.example.demo.service.AuthService;
 import com.example.demo.service.MenuService;
+import com.example.demo.service.MenuTreeCache;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.HashMap;
 import java.util.List;
@@ -20,26 +25,34 @@ public class MenuController {
 
     private final AuthService authService;
 
+    private final MenuTreeCache menuTreeCache;
+
+    private final DataVersions dataVersions;
+
     @GetMapping
     public List<Menu> getUserMenus() {
         return menuService.getUserMenus();
     }
 
     @GetMapping("/all")
-    public List<Menu> getAllMenus(@RequestHeader(value = "Authorization", required = false) String authHeader) {
+    public ResponseEntity<List<Menu>> getAllMenus(@RequestHeader(value = "Authorization", required = false) String authHeader,
+                                                  WebRequest request) {
         validateToken(authHeader);
-        return menuService.getAllMenus();
+        String etag = ConditionalResponses.etag("menus", dataVersions.version(Menu.class));
+        return ConditionalResponses.ifNoneMatch(request, etag, menuService::getAllMenus);
     }
 
     @GetMapping("/tree")
-    public List<Menu> getMenuTree(@RequestHeader(value = "Authorization", required = false) String authHeader) {
+    public ResponseEntity<List<Menu>> getMenuTree(@RequestHeader(value = "Authorization", required = false) String authHeader,
+                                                  WebRequest request) {
         // 验证token并获取用户角色
         validateTokenAndRole(authHeader);
 
         String userRole = getUserRoleFromToken(authHeader);
 
-        // 根据用户角色返回对应的菜单树
-        return menuService.getMenuTreeByRole(userRole);
+        // 根据用户角色返回对应的菜单树，菜单和角色未修改时返回304
+        String etag = ConditionalResponses.etag("menu-tree", menuTreeCache.version(), userRole);
+        return ConditionalResponses.ifNoneMatch(request, etag, () -> menuService.getMenuTreeByRole(userRole));
     }
 
     // 添加辅助方法
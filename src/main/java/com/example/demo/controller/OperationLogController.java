@@ -1,25 +1,39 @@
 package com.example.demo.controller;
 
+import com.example.demo.common.audit.AuditPolicy;
+import com.example.demo.common.audit.AuditPolicyManager;
+import com.example.demo.common.context.SecurityContext;
+import com.example.demo.common.util.ClientIpUtils;
 import com.example.demo.entity.OperationLog;
+import com.example.demo.service.ExportService;
 import com.example.demo.service.OperationLogService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/operation-logs")
@@ -28,6 +42,16 @@ public class OperationLogController {
 
     private final OperationLogService operationLogService;
 
+    private final AuditPolicyManager auditPolicyManager;
+
+    private final ExportService exportService;
+
+    private final ObjectMapper objectMapper;
+
+    // 客户端支持时是否对全量导出启用gzip压缩
+    @Value("${app.export.gzip-enabled:true}")
+    private boolean gzipEnabled;
+
     @GetMapping("/detailed")
     public ResponseEntity<Page<OperationLog>> getDetailedLogs(
             @RequestParam(defaultValue = "1") int page,
@@ -56,12 +80,87 @@ public class OperationLogController {
         return ResponseEntity.ok(logs);
     }
 
+    /**
+     * 游标分页查询，返回 nextCursor 用于获取下一页，不返回总数
+     */
+    @GetMapping("/cursor")
+    public ResponseEntity<?> getLogsByCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String module,
+            @RequestParam(required = false) String operator,
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) String result,
+            @RequestParam(required = false) String requestMethod,
+            @RequestParam(required = false) Integer statusCode,
+            @RequestParam(required = false) String requestUrl,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime startTime,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime endTime) {
+
+        try {
+            return ResponseEntity.ok(operationLogService.getLogsByCursor(cursor, Math.max(1, Math.min(size, 200)),
+                    module, operator, type, result, requestMethod, statusCode, requestUrl, startTime, endTime));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
+    }
+
     @GetMapping("/recent")
     public ResponseEntity<List<OperationLog>> getRecentLogs() {
         List<OperationLog> logs = operationLogService.getRecentLogs();
         return ResponseEntity.ok(logs);
     }
 
+    /**
+     * 获取当前操作日志记录策略
+     */
+    @GetMapping("/policy")
+    public ResponseEntity<AuditPolicy> getPolicy() {
+        return ResponseEntity.ok(auditPolicyManager.getPolicy());
+    }
+
+    /**
+     * 更新操作日志记录策略，立即生效，无需重启；仅管理员可调用（见 SecurityConfig）
+     * 本控制器不在操作日志切面范围内，策略修改在这里直接记录，不受采样和限流影响
+     */
+    @PutMapping("/policy")
+    public ResponseEntity<?> updatePolicy(@RequestBody AuditPolicy policy, HttpServletRequest request) {
+        long startTime = System.currentTimeMillis();
+        try {
+            AuditPolicy updated = auditPolicyManager.updatePolicy(policy);
+            savePolicyLog(request, policy, null, System.currentTimeMillis() - startTime);
+            return ResponseEntity.ok(updated);
+        } catch (IllegalArgumentException e) {
+            savePolicyLog(request, policy, e.getMessage(), System.currentTimeMillis() - startTime);
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    private void savePolicyLog(HttpServletRequest request, AuditPolicy policy, String error, long executionTime) {
+        OperationLog operationLog = new OperationLog();
+        operationLog.setModule("系统设置");
+        operationLog.setType("UPDATE");
+        operationLog.setOperation("修改了操作日志记录策略");
+        operationLog.setOperator(SecurityContext.getCurrentUsername());
+        operationLog.setOperatorId(SecurityContext.getCurrentUserId());
+        operationLog.setTenantId(SecurityContext.getCurrentTenantId());
+        operationLog.setOperatorIp(ClientIpUtils.getClientIp(request));
+        operationLog.setRequestMethod(request.getMethod());
+        operationLog.setRequestUrl(request.getRequestURI());
+        operationLog.setUserAgent(request.getHeader("User-Agent"));
+        operationLog.setAccessTime(LocalDateTime.now());
+        try {
+            operationLog.setRequestParams(objectMapper.writeValueAsString(policy));
+        } catch (JsonProcessingException e) {
+            operationLog.setRequestParams(String.valueOf(policy));
+        }
+        operationLog.setResult(error == null ? "SUCCESS" : "FAILURE");
+        operationLog.setErrorMessage(error);
+        operationLog.setStatusCode(error == null ? 200 : 400);
+        operationLog.setExecutionTime(executionTime);
+        operationLogService.saveLog(operationLog);
+    }
+
     @GetMapping("/export")
     public void exportCurrentPageLogs(
             @RequestParam(defaultValue = "1") int page,
@@ -132,6 +231,50 @@ public class OperationLogController {
         }
     }
 
+    /**
+     * 导出全部符合条件的日志（不分页）
+     * 按键集分批查询，边查边写，客户端可以立即开始接收数据
+     */
+    @GetMapping("/export/all")
+    public void exportAllLogs(
+            @RequestParam(required = false) String module,
+            @RequestParam(required = false) String operator,
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) String result,
+            @RequestParam(required = false) String requestMethod,
+            @RequestParam(required = false) Integer statusCode,
+            @RequestParam(required = false) String requestUrl,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime startTime,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime endTime,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+
+        String fileName = "操作日志_" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss")) + ".csv";
+        String encodedFileName = URLEncoder.encode(fileName, StandardCharsets.UTF_8)
+                .replaceAll("\\+", "%20");
+
+        response.setContentType("text/csv; charset=UTF-8");
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"" + encodedFileName + "\"; filename*=UTF-8''" + encodedFileName);
+
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        boolean gzip = gzipEnabled && acceptEncoding != null && acceptEncoding.contains("gzip");
+        if (gzip) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+
+        // syncFlush 保证每次刷新时已压缩的数据立即发送给客户端
+        try (OutputStream outputStream = gzip
+                ? new GZIPOutputStream(response.getOutputStream(), 8192, true)
+                : response.getOutputStream()) {
+            exportService.exportOperationLogsCsv(consumer -> operationLogService.streamLogsForExport(
+                    module, operator, type, result, requestMethod, statusCode, requestUrl,
+                    startTime, endTime, consumer), outputStream);
+        }
+    }
+
     // CSV字段转义方法
     private String escapeCsvField(String field) {
         if (field == null) {
@@ -1,7 +1,10 @@
 package com.example.demo.controller;
 
+import com.example.demo.common.cache.ConditionalResponses;
+import com.example.demo.common.cache.DataVersions;
 import com.example.demo.dto.CategorySalesDTO;
 import com.example.demo.dto.ProductDTO;
+import com.example.demo.entity.Product;
 import com.example.demo.service.ProductService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -9,6 +12,7 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -19,18 +23,20 @@ public class ProductController {
 
     private final ProductService productService;
 
+    private final DataVersions dataVersions;
+
     // 获取热门产品
     @GetMapping("/popular")
-    public ResponseEntity<List<ProductDTO>> getPopularProducts() {
-        List<ProductDTO> products = productService.getPopularProducts();
-        return ResponseEntity.ok(products);
+    public ResponseEntity<List<ProductDTO>> getPopularProducts(WebRequest request) {
+        String etag = ConditionalResponses.etag("popular-products", dataVersions.version(Product.class));
+        return ConditionalResponses.ifNoneMatch(request, etag, productService::getPopularProducts);
     }
 
     // 获取品类销售数据
     @GetMapping("/category-sales")
     public ResponseEntity<List<CategorySalesDTO>> getCategorySales(
-            @RequestParam(defaultValue = "sales") String type) {
-        List<CategorySalesDTO> data = productService.getCategorySales(type);
-        return ResponseEntity.ok(data);
+            @RequestParam(defaultValue = "sales") String type, WebRequest request) {
+        String etag = ConditionalResponses.etag("category-sales", dataVersions.version(Product.class), type);
+        return ConditionalResponses.ifNoneMatch(request, etag, () -> productService.getCategorySales(type));
     }
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package com.example.demo.controller;
 
+import com.example.demo.common.security.PasswordHashingPool;
 import com.example.demo.dto.PasswordChangeRequest;
 import com.example.demo.dto.ProfileUpdateRequest;
 import com.example.demo.dto.UserInfoDTO;
@@ -9,13 +10,14 @@ import com.example.demo.service.UserService;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 @Slf4j
 @RestController
@@ -25,7 +27,7 @@ public class ProfileController {
 
     private final UserService userService;
     private final AuthService authService;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingPool passwordHashingPool;
 
     // 获取当前用户ID
     private Long getCurrentUserId(HttpServletRequest request) {
@@ -128,33 +130,47 @@ public class ProfileController {
             return ResponseEntity.badRequest().body(response);
         }
 
-        // 验证旧密码 - 使用 PasswordEncoder 验证
-        if (!passwordEncoder.matches(passwordRequest.getOldPassword(), currentUser.getPassword())) {
+        // 密码校验和加密在密码哈希线程池中执行，繁忙时返回429
+        try {
+            // 验证旧密码
+            if (!passwordHashingPool.matches(passwordRequest.getOldPassword(), currentUser.getPassword())) {
+                response.put("success", false);
+                response.put("message", "旧密码不正确");
+                return ResponseEntity.badRequest().body(response);
+            }
+
+            // 检查新密码是否与旧密码相同
+            if (passwordHashingPool.matches(passwordRequest.getNewPassword(), currentUser.getPassword())) {
+                response.put("success", false);
+                response.put("message", "新密码不能与旧密码相同");
+                return ResponseEntity.badRequest().body(response);
+            }
+
+            // 更新密码
+            User user = new User();
+            user.setPassword(passwordRequest.getNewPassword()); // 这里会被 UserService 加密
+            User updatedUser = userService.updateUserInfo(userId, user);
+
+            if (updatedUser == null) {
+                response.put("success", false);
+                response.put("message", "密码更新失败");
+                return ResponseEntity.badRequest().body(response);
+            }
+        } catch (RejectedExecutionException e) {
             response.put("success", false);
-            response.put("message", "旧密码不正确");
-            return ResponseEntity.badRequest().body(response);
-        }
-
-        // 检查新密码是否与旧密码相同
-        if (passwordEncoder.matches(passwordRequest.getNewPassword(), currentUser.getPassword())) {
-            response.put("success", false);
-            response.put("message", "新密码不能与旧密码相同");
-            return ResponseEntity.badRequest().body(response);
-        }
-
-        // 更新密码
-        User user = new User();
-        user.setPassword(passwordRequest.getNewPassword()); // 这里会被 UserService 加密
-        User updatedUser = userService.updateUserInfo(userId, user);
-
-        if (updatedUser == null) {
-            response.put("success", false);
-            response.put("message", "密码更新失败");
-            return ResponseEntity.badRequest().body(response);
+            response.put("message", "系统繁忙，请稍后再试");
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(response);
         }
 
+        // 修改密码后之前签发的token全部失效，为当前会话签发新token，其他设备需要重新登录
+        String token = authService.reissueToken(userId);
         response.put("success", true);
-        response.put("message", "密码修改成功");
+        if (token != null) {
+            response.put("token", token);
+            response.put("message", "密码修改成功，其他设备需要重新登录");
+        } else {
+            response.put("message", "密码修改成功，请重新登录");
+        }
         return ResponseEntity.ok(response);
     }
 
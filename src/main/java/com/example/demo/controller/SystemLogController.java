@@ -14,6 +14,7 @@ import java.net.URLEncoder;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/system-logs")
@@ -39,6 +40,28 @@ public class SystemLogController {
                 page, size, level, service, module, username, startTime, endTime));
     }
 
+    /**
+     * 游标分页查询，返回 nextCursor 用于获取下一页，不返回总数
+     */
+    @GetMapping("/cursor")
+    public ResponseEntity<?> getSystemLogsByCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String level,
+            @RequestParam(required = false) String service,
+            @RequestParam(required = false) String module,
+            @RequestParam(required = false) String username,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime startTime,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime endTime) {
+
+        try {
+            return ResponseEntity.ok(systemLogService.getSystemLogsByCursor(cursor, Math.max(1, Math.min(size, 200)),
+                    level, service, module, username, startTime, endTime));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
+    }
+
     @GetMapping("/recent")
     public Result getRecentLogs() {
         List<SystemLog> recentLogs = systemLogService.getRecentLogs();
@@ -92,9 +115,9 @@ public class SystemLogController {
                     LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss")) + ".xlsx";
             response.setHeader("Content-disposition", "attachment;filename=" + fileName);
 
-            // 获取数据并导出
-             List<SystemLog> logs = systemLogService.getLogsForExport(level, service, module, username, startTime, endTime);
-             exportService.exportSystemLogs(logs, response.getOutputStream());
+            // 边查询边写入，不在内存中保留完整结果集
+            exportService.exportSystemLogs(consumer -> systemLogService.streamLogsForExport(
+                    level, service, module, username, startTime, endTime, consumer), response.getOutputStream());
 
             // 刷新并关闭输出流
             response.getOutputStream().flush();
@@ -1,12 +1,30 @@
 package com.example.demo.controller;
 
+import com.example.demo.common.audit.AuditLogWriter;
+import com.example.demo.common.audit.AuditPolicyManager;
+import com.example.demo.common.cache.ConditionalResponses;
+import com.example.demo.common.cache.DataVersions;
+import com.example.demo.common.cache.LocalCacheRegionFactory;
+import com.example.demo.common.cache.TwoTierCacheManager;
+import com.example.demo.common.security.LoginRateLimiter;
+import com.example.demo.common.security.PasswordHashingPool;
+import com.example.demo.common.security.TokenBlacklist;
+import com.example.demo.entity.SystemInfo;
+import com.example.demo.service.MenuTreeCache;
+import com.example.demo.service.OnlineUserRegistry;
+import com.example.demo.service.PermissionEngine;
+import com.example.demo.service.SessionAccessTracker;
 import com.example.demo.service.SystemMonitorService;
+import com.example.demo.service.UserPrincipalCache;
+import com.example.demo.service.UsernameFilter;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 @RestController
@@ -16,10 +34,61 @@ public class SystemMonitorController {
 
     private final SystemMonitorService systemMonitorService;
 
+    private final AuditLogWriter auditLogWriter;
+
+    private final AuditPolicyManager auditPolicyManager;
+
+    private final TokenBlacklist tokenBlacklist;
+
+    private final PasswordHashingPool passwordHashingPool;
+
+    private final LoginRateLimiter loginRateLimiter;
+
+    private final UserPrincipalCache userPrincipalCache;
+
+    private final UsernameFilter usernameFilter;
+
+    private final SessionAccessTracker sessionAccessTracker;
+
+    private final OnlineUserRegistry onlineUserRegistry;
+
+    private final MenuTreeCache menuTreeCache;
+
+    private final PermissionEngine permissionEngine;
+
+    private final DataVersions dataVersions;
+
+    private final LocalCacheRegionFactory localCacheRegionFactory;
+
+    private final TwoTierCacheManager twoTierCacheManager;
+
     @GetMapping("/info")
-    public ResponseEntity<Map<String, Object>> getSystemInfo() {
-        Map<String, Object> systemInfo = systemMonitorService.getSystemInfo();
-        return ResponseEntity.ok(systemInfo);
+    public ResponseEntity<Map<String, Object>> getSystemInfo(WebRequest request) {
+        // 响应中的服务器时间每次都不同，使用弱ETag：系统信息和在线人数不变即视为未修改
+        String etag = ConditionalResponses.weakEtag("system-info",
+                dataVersions.version(SystemInfo.class), onlineUserRegistry.count());
+        return ConditionalResponses.ifNoneMatch(request, etag, systemMonitorService::getSystemInfo);
     }
 
-}
\ No newline at end of file
+    /**
+     * 运行指标（审计日志队列深度、写入耗时等）
+     */
+    @GetMapping("/metrics")
+    public ResponseEntity<Map<String, Object>> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("auditLog", auditLogWriter.getMetrics());
+        metrics.put("auditPolicy", auditPolicyManager.getMetrics());
+        metrics.put("tokenRevocation", tokenBlacklist.getMetrics());
+        metrics.put("passwordHashing", passwordHashingPool.getMetrics());
+        metrics.put("loginThrottle", loginRateLimiter.getMetrics());
+        metrics.put("principalCache", userPrincipalCache.getMetrics());
+        metrics.put("usernameFilter", usernameFilter.getMetrics());
+        metrics.put("sessionAccess", sessionAccessTracker.getMetrics());
+        metrics.put("onlineUsers", onlineUserRegistry.getMetrics());
+        metrics.put("menuTree", menuTreeCache.getMetrics());
+        metrics.put("rbac", permissionEngine.getMetrics());
+        metrics.put("secondLevelCache", localCacheRegionFactory.getMetrics());
+        metrics.put("cacheTier", twoTierCacheManager.getMetrics());
+        return ResponseEntity.ok(metrics);
+    }
+}
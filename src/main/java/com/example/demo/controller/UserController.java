@@ -5,7 +5,10 @@ import com.example.demo.dto.UserInfoDTO;
 import com.example.demo.entity.User;
 import com.example.demo.repository.UserRepository;
 import com.example.demo.service.AuthService;
+import com.example.demo.service.TokenEpochService;
+import com.example.demo.service.UserPrincipalCache;
 import com.example.demo.service.UserService;
+import com.example.demo.service.UsernameFilter;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.web.bind.annotation.*;
@@ -13,6 +16,7 @@ import org.springframework.web.bind.annotation.*;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 /**
  * @author Administrator
@@ -28,6 +32,12 @@ public class UserController {
 
     private final UserService userService;
 
+    private final UserPrincipalCache userPrincipalCache;
+
+    private final UsernameFilter usernameFilter;
+
+    private final TokenEpochService tokenEpochService;
+
     @GetMapping("/getAllUsers")
     public List<User> all() {
         List<User> users = repo.findAll();
@@ -49,24 +59,38 @@ public class UserController {
     public User create(@RequestBody User u) {
         u.setCreateTime(LocalDateTime.now());
         u.setUpdateTime(LocalDateTime.now());
-        return repo.save(u);
+        User saved = repo.save(u);
+        usernameFilter.add(saved.getUsername());
+        userPrincipalCache.invalidate(saved.getId());
+        return saved;
     }
 
     @PutMapping("/{id}")
     public User updateUser(@PathVariable Long id, @RequestBody User user) {
         User existingUser = repo.findById(id).orElseThrow();
+        boolean credentialsChanged = !Objects.equals(existingUser.getRoleCode(), user.getRoleCode());
         existingUser.setName(user.getName());
         existingUser.setRoleCode(user.getRoleCode());
         if (user.getPassword() != null && !user.getPassword().isEmpty()) {
             existingUser.setPassword(user.getPassword());
+            credentialsChanged = true;
         }
         existingUser.setUpdateTime(LocalDateTime.now()); // 更新时间
-        return repo.save(existingUser);
+        User saved = repo.save(existingUser);
+        userPrincipalCache.invalidate(id);
+        // token中携带角色代码，角色或密码变更后之前签发的token全部失效
+        if (credentialsChanged) {
+            tokenEpochService.revokeAll(id);
+        }
+        return saved;
     }
 
     @DeleteMapping("/{id}")
     public void delete(@PathVariable Long id) {
         repo.deleteById(id);
+        usernameFilter.removed(1);
+        userPrincipalCache.invalidate(id);
+        tokenEpochService.revokeAll(id);
     }
 
     // 批量删除用户
@@ -0,0 +1,32 @@
+package com.example.demo.dto;
+
+import com.example.demo.common.pagination.KeysetCursor;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 游标分页结果，不包含总数
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+    private List<T> content;
+    private int size;
+    private boolean hasNext;
+    private String nextCursor; // 下一页游标，没有下一页时为null
+
+    /**
+     * 由多查询一行的结果构建分页：rows 最多 size + 1 行，多出的一行只用来判断是否有下一页
+     */
+    public static <T> CursorPage<T> of(List<T> rows, int size, Function<T, KeysetCursor> cursorOf) {
+        boolean hasNext = rows.size() > size;
+        List<T> content = hasNext ? rows.subList(0, size) : rows;
+        String nextCursor = hasNext ? cursorOf.apply(content.get(size - 1)).encode() : null;
+        return new CursorPage<>(content, size, hasNext, nextCursor);
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.demo.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+public class ExportJobDTO {
+    private String id;
+    private String type;
+    private String status; // PENDING, RUNNING, COMPLETED, FAILED
+    private String fileName;
+    private long rowsWritten;
+    private long bytesWritten;
+    private String errorMessage;
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime createTime;
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime finishTime;
+}
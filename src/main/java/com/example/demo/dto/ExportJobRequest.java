@@ -0,0 +1,31 @@
+package com.example.demo.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+public class ExportJobRequest {
+    private String type; // 导出类型：SYSTEM_LOG（Excel）、OPERATION_LOG（CSV）
+
+    // 通用筛选条件
+    private String module;
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime startTime;
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime endTime;
+
+    // 系统日志筛选条件
+    private String level;
+    private String service;
+    private String username;
+
+    // 操作日志筛选条件
+    private String operator;
+    private String operationType;
+    private String result;
+    private String requestMethod;
+    private Integer statusCode;
+    private String requestUrl;
+}
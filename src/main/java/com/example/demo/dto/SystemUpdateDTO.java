@@ -0,0 +1,2 @@
+package com.example.demo.dto;
+public class SystemUpdateDTO {}
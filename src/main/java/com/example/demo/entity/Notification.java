@@ -8,7 +8,14 @@ import java.time.LocalDateTime;
 import java.util.Map;
 
 @Entity
-@Table(name = "system_notification")
+@Table(name = "system_notification", indexes = {
+        // 通知列表、未读数：receiver_id + status，按 create_time 排序
+        @Index(name = "idx_notification_receiver_status_time", columnList = "receiver_id, status, create_time"),
+        // 按类型查询通知
+        @Index(name = "idx_notification_receiver_type_time", columnList = "receiver_id, type, create_time"),
+        // 过期通知归档
+        @Index(name = "idx_notification_expire_time", columnList = "expire_time")
+})
 @Data
 @JsonInclude(JsonInclude.Include.NON_NULL)
 public class Notification {
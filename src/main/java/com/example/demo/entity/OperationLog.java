@@ -6,7 +6,16 @@ import java.time.LocalDateTime;
 
 @Data
 @Entity
-@Table(name = "operation_log")
+@Table(name = "operation_log", indexes = {
+        // 键集分页 / 全量导出：ORDER BY create_time DESC, id DESC
+        @Index(name = "idx_operation_log_create_time_id", columnList = "create_time DESC, id DESC"),
+        // 用户操作统计、最近操作：operator_id + create_time
+        @Index(name = "idx_operation_log_operator_create_time", columnList = "operator_id, create_time"),
+        // 用户访问统计：operator_id + access_time
+        @Index(name = "idx_operation_log_operator_access_time", columnList = "operator_id, access_time"),
+        // 用户操作成功率：operator_id + result + create_time
+        @Index(name = "idx_operation_log_operator_result_time", columnList = "operator_id, result, create_time")
+})
 public class OperationLog {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
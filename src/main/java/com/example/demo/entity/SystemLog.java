@@ -6,7 +6,12 @@ import java.time.LocalDateTime;
 
 @Data
 @Entity
-@Table(name = "system_log")
+@Table(name = "system_log", indexes = {
+        // 键集分页：ORDER BY timestamp DESC, id DESC
+        @Index(name = "idx_system_log_timestamp_id", columnList = "timestamp DESC, id DESC"),
+        // 按级别统计：level + timestamp
+        @Index(name = "idx_system_log_level_timestamp", columnList = "level, timestamp")
+})
 public class SystemLog {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
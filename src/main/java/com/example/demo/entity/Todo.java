@@ -5,7 +5,10 @@ import lombok.Data;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "todos")
+@Table(name = "todos", indexes = {
+        // 用户待办列表、统计、今日到期：user_id + completed，按 due_time 排序或筛选
+        @Index(name = "idx_todos_user_completed_due_time", columnList = "user_id, completed, due_time")
+})
 @Data
 public class Todo {
     @Id
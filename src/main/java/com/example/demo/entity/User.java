@@ -36,6 +36,10 @@ public class User {
     // 角色字段，可以扩展为角色表
     private String roleCode = "user";
 
+    // token版本号，递增后该用户已签发的所有token失效；只通过批量更新语句修改，保存实体时不会覆盖
+    @Column(name = "token_epoch", updatable = false)
+    private Long tokenEpoch = 0L;
+
     @PrePersist
     public void prePersist() {
         createTime = LocalDateTime.now();
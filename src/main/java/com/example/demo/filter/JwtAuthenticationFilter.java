@@ -2,6 +2,7 @@ package com.example.demo.filter;
 
 import com.example.demo.common.context.TenantContext;
 import com.example.demo.common.security.CustomUserDetails;
+import com.example.demo.common.security.JwtClaims;
 import com.example.demo.common.security.JwtTokenProvider;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -20,7 +21,6 @@ import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 
 @Slf4j
@@ -38,25 +38,27 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         try {
             String jwt = getJwtFromRequest(request);
 
-            if (StringUtils.hasText(jwt) && jwtTokenProvider.validateToken(jwt)) {
+            // 整个请求只验签一次，后续字段都从已验签的声明中读取
+            JwtClaims claims = StringUtils.hasText(jwt) ? jwtTokenProvider.getClaims(jwt) : null;
+
+            if (claims != null) {
                 // 从JWT中解析用户信息
-                String username = jwtTokenProvider.getUsernameFromJWT(jwt);
-                Long userId = jwtTokenProvider.getUserIdFromJWT(jwt);
-                Long tenantId = jwtTokenProvider.getTenantIdFromJWT(jwt);
+                String username = claims.getUsername();
+                Long userId = claims.getUserId();
+                Long tenantId = claims.getTenantId();
 
                 // 设置租户上下文
                 TenantContext.setTenantId(tenantId);
 
                 // 从JWT中获取权限信息
-                List<String> roles = jwtTokenProvider.getRolesFromJWT(jwt);
-                List<GrantedAuthority> authorities = convertToAuthorities(roles);
+                List<GrantedAuthority> authorities = convertToAuthorities(claims.getRoles());
 
                 // 创建认证信息
-                CustomUserDetails userDetails = new CustomUserDetails(userId, username, tenantId,  null);
+                CustomUserDetails userDetails = new CustomUserDetails(userId, username, tenantId, authorities);
 
                 // 创建认证令牌
                 UsernamePasswordAuthenticationToken authentication =
-                        new UsernamePasswordAuthenticationToken(userDetails, null, Collections.emptyList());
+                        new UsernamePasswordAuthenticationToken(userDetails, null, authorities);
                 authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
                 // 设置到SecurityContext
@@ -1,7 +1,10 @@
 package com.example.demo.repository;
 
 import com.example.demo.entity.Menu;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
@@ -14,6 +17,7 @@ public interface MenuRepository extends JpaRepository<Menu, Long> {
     List<Menu> findByIdIn(List<Long> menuIds);
 
     // 新增查询方法
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<Menu> findAllByOrderBySortAsc();
 
     List<Menu> findByNameContainingIgnoreCaseOrderBySortAsc(String name);
@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -29,6 +30,23 @@ public interface OnlineUserRepository extends JpaRepository<OnlineUser, String>
     @Modifying
     int deleteByLastAccessTimeBefore(LocalDateTime expireTime);
 
+    // 会话下线，记录保留为历史
+    @Transactional
+    @Modifying
+    @Query("UPDATE OnlineUser ou SET ou.isActive = false WHERE ou.sessionId = :sessionId")
+    int markInactive(@Param("sessionId") String sessionId);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE OnlineUser ou SET ou.isActive = false WHERE ou.isActive = true")
+    int markAllInactive();
+
+    // 清理过旧的离线历史记录
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM OnlineUser ou WHERE ou.isActive = false AND ou.lastAccessTime < :before")
+    int deleteInactiveBefore(@Param("before") LocalDateTime before);
+
     // 更新最后访问时间
     @Modifying
     @Query("UPDATE OnlineUser ou SET ou.lastAccessTime = :accessTime WHERE ou.sessionId = :sessionId")
@@ -1,8 +1,11 @@
 package com.example.demo.repository;
 
 import com.example.demo.entity.Product;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 import java.util.List;
 
@@ -13,6 +16,7 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
 
     List<Product> findTop5ByStatusOrderByMonthlySalesDesc(String status);
 
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     @Query("SELECT p FROM Product p WHERE p.status = 'active' ORDER BY p.monthlySales DESC")
     List<Product> findPopularProducts();
 
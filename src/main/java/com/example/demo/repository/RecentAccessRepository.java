@@ -1,9 +1,12 @@
 package com.example.demo.repository;
 
 import com.example.demo.entity.RecentAccess;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
@@ -24,8 +27,9 @@ public interface RecentAccessRepository extends JpaRepository<RecentAccess, Long
             nativeQuery = true)
     List<Long> findRecentIdsToKeep(@Param("userId") String userId, @Param("limit") int limit);
 
-    // 删除用户的过期访问记录（使用原生SQL）
+    // 删除用户的过期访问记录（使用原生SQL），声明只影响 recent_access 表，避免清空全部二级缓存
     @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "recent_access"))
     @Transactional
     @Query(value = "DELETE FROM recent_access WHERE user_id = :userId AND id NOT IN (:keepIds)",
             nativeQuery = true)
@@ -1,9 +1,12 @@
 package com.example.demo.repository;
 
 import com.example.demo.entity.RoleMenu;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -25,6 +28,7 @@ public interface RoleMenuRepository extends JpaRepository<RoleMenu, Long> {
     void deleteByRoleIdIn(List<Long> roleIds);
 
     // 根据角色ID查找菜单代码列表
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     @Query("SELECT rm.menuCode FROM RoleMenu rm WHERE rm.roleId = :roleId")
     List<Long> findMenuCodesByRoleId(Long roleId);
 
@@ -1,14 +1,18 @@
 package com.example.demo.repository;
 
 import com.example.demo.entity.Role;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Component;
 
 import java.util.Optional;
 
 @Component
 public interface RoleRepository extends JpaRepository<Role, Long>, JpaSpecificationExecutor<Role> {
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<Role> findByCode(String code);
     boolean existsByCode(String code);
     boolean existsByCodeAndIdNot(String code, Long id);
@@ -1,12 +1,16 @@
 package com.example.demo.repository;
 
 import com.example.demo.entity.SystemInfo;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
 
 @Repository
 public interface SystemInfoRepository extends JpaRepository<SystemInfo, Long> {
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<SystemInfo> findFirstByOrderByIdAsc();
 }
\ No newline at end of file
@@ -3,17 +3,49 @@ package com.example.demo.repository;
 import com.example.demo.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 
 @Component
 public interface UserRepository extends JpaRepository<User, Long>, JpaSpecificationExecutor<User> {
     User findByUsername(String username);
 
+    // 只查询ID，走用户名唯一索引，不加载整个实体
+    @Query("SELECT u.id FROM User u WHERE u.username = :username")
+    Long findIdByUsername(@Param("username") String username);
+
+    @Query("SELECT u.username FROM User u WHERE u.username IS NOT NULL")
+    List<String> findAllUsernames();
+
     // 根据多个角色代码查找用户
     List<User> findByRoleCodeIn(List<String> roleCodes);
 
     // 根据部门和职位查找用户
     List<User> findByDepartmentAndPosition(String department, String position);
+
+    // 查询启用用户当前的token版本号，用户不存在或已禁用时无结果
+    @Query("SELECT COALESCE(u.tokenEpoch, 0) FROM User u WHERE u.id = :id AND (u.enabled IS NULL OR u.enabled = true)")
+    Long findActiveTokenEpoch(@Param("id") Long id);
+
+    @Query("SELECT u.id FROM User u WHERE u.roleCode = :roleCode")
+    List<Long> findIdsByRoleCode(@Param("roleCode") String roleCode);
+
+    // 递增token版本号，使这些用户已签发的token全部失效
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.tokenEpoch = COALESCE(u.tokenEpoch, 0) + 1 WHERE u.id IN :ids")
+    int incrementTokenEpoch(@Param("ids") Collection<Long> ids);
+
+    // 仅当密码哈希未被修改时替换，避免覆盖并发修改的新密码
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.password = :newPassword WHERE u.id = :id AND u.password = :oldPassword")
+    int replacePasswordHash(@Param("id") Long id, @Param("oldPassword") String oldPassword,
+                            @Param("newPassword") String newPassword);
 }
\ No newline at end of file
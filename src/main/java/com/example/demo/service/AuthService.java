@@ -1,7 +1,11 @@
 package com.example.demo.service;
 
+import com.example.demo.common.security.JwtClaims;
 import com.example.demo.common.security.JwtTokenProvider;
+import com.example.demo.common.security.PasswordHashingPool;
 import com.example.demo.common.security.TokenBlacklist;
+import com.example.demo.common.security.UserPrincipal;
+import com.example.demo.common.util.ClientIpUtils;
 import com.example.demo.dto.ForgotPasswordRequest;
 import com.example.demo.dto.LoginRequest;
 import com.example.demo.dto.LoginResponse;
@@ -13,13 +17,14 @@ import com.example.demo.repository.UserRepository;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -32,12 +37,18 @@ public class AuthService {
 
     private final RoleRepository roleRepository;
 
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingPool passwordHashingPool;
 
     private final JwtTokenProvider jwtTokenProvider;
 
     private final TokenBlacklist tokenBlacklist;
 
+    private final TokenEpochService tokenEpochService;
+
+    private final UserPrincipalCache userPrincipalCache;
+
+    private final UsernameFilter usernameFilter;
+
     private final SystemMonitorService systemMonitorService;
 
     private final EmailService emailService;
@@ -50,52 +61,61 @@ public class AuthService {
     public LoginResponse login(LoginRequest request) {
         LoginResponse response = new LoginResponse();
 
-        // 查找用户
-        User user = userRepository.findByUsername(request.getUsername());
+        // 查找用户（含角色名称），优先命中缓存
+        UserPrincipal user = userPrincipalCache.getByUsername(request.getUsername());
         // 先判断用户是否存在
         if (user == null) {
             response.setSuccess(false);
             response.setMessage("用户名不存在");
             return response;
         }
-        // 查询用户角色
-        Optional<Role> role = roleRepository.findByCode(user.getRoleCode());
 
-        // 使用 passwordEncoder.matches 验证密码
-        if (user == null || !passwordEncoder.matches(request.getPassword(), user.getPassword())) {
+        // 在密码哈希线程池中验证密码，繁忙时抛出 RejectedExecutionException
+        if (!passwordHashingPool.matches(request.getPassword(), user.password())) {
             response.setSuccess(false);
             response.setMessage("密码错误");
             return response;
         }
 
-        if (!user.getEnabled()) {
+        if (!user.isEnabled()) {
             response.setSuccess(false);
             response.setMessage("用户已被禁用");
             return response;
         }
 
+        // BCrypt强度调整后，按新强度在后台重新加密
+        if (passwordHashingPool.needsRehash(user.password())) {
+            Long userId = user.id();
+            String oldHash = user.password();
+            passwordHashingPool.rehashAsync(request.getPassword(), newHash -> {
+                userRepository.replacePasswordHash(userId, oldHash, newHash);
+                userPrincipalCache.invalidate(userId);
+            });
+        }
+
         // 记录在线用户
         HttpServletRequest httpRequest = getCurrentHttpRequest();
         if (httpRequest != null) {
             String sessionId = httpRequest.getSession().getId();
-            String ipAddress = getClientIp(httpRequest);
+            String ipAddress = ClientIpUtils.getClientIp(httpRequest);
             String userAgent = httpRequest.getHeader("User-Agent");
 
-            systemMonitorService.userLogin(user.getId(), user.getUsername(),
+            systemMonitorService.userLogin(user.id(), user.username(),
                     sessionId, ipAddress, userAgent);
 
-            log.info("用户 {} 登录成功，会话ID已存储: {}", user.getUsername(), sessionId);
+            log.info("用户 {} 登录成功，会话ID已存储: {}", user.username(), sessionId);
         }
 
         // 使用 JWT 生成 token
-        String token = jwtTokenProvider.generateToken(user.getUsername(), user.getId(), 1L);
+        String token = jwtTokenProvider.generateToken(user.username(), user.id(), 1L,
+                tokenEpochService.currentEpoch(user.id()), roleCodes(user.roleCode()));
 
         // 构建用户信息
         LoginResponse.UserInfo userInfo = new LoginResponse.UserInfo();
-        userInfo.setId(user.getId());
-        userInfo.setUsername(user.getUsername());
-        userInfo.setName(user.getName());
-        userInfo.setRoleName(role.orElseThrow().getCode());
+        userInfo.setId(user.id());
+        userInfo.setUsername(user.username());
+        userInfo.setName(user.name());
+        userInfo.setRoleName(user.roleExists() ? user.roleCode() : null);
 
         response.setSuccess(true);
         response.setMessage("登录成功");
@@ -105,6 +125,20 @@ public class AuthService {
         return response;
     }
 
+    /**
+     * 按用户当前的token版本号重新签发token，用于修改密码等注销了全部token的操作之后让当前会话继续使用
+     *
+     * @return 用户不存在或已禁用时返回null
+     */
+    public String reissueToken(Long userId) {
+        UserPrincipal user = userPrincipalCache.getById(userId);
+        if (user == null || !user.isEnabled()) {
+            return null;
+        }
+        return jwtTokenProvider.generateToken(user.username(), user.id(), 1L,
+                tokenEpochService.currentEpoch(user.id()), roleCodes(user.roleCode()));
+    }
+
     public void logout(String token) {
         if (token == null) return;
 
@@ -113,8 +147,11 @@ public class AuthService {
             token = token.substring(7);
         }
 
-        // 加入黑名单，有效期24小时
-        tokenBlacklist.add(token, 24 * 60 * 60 * 1000L);
+        // 加入黑名单，保留到token自身过期为止；无法解析的token本身已无效，不需要记录
+        JwtClaims claims = jwtTokenProvider.getClaims(token);
+        if (claims != null) {
+            tokenBlacklist.revoke(token, claims.getExpiration().getTime());
+        }
 
         // 移除在线用户记录
         HttpServletRequest httpRequest = getCurrentHttpRequest();
@@ -129,8 +166,8 @@ public class AuthService {
     public LoginResponse register(RegisterRequest request) {
         LoginResponse response = new LoginResponse();
 
-        // 验证用户名是否已存在
-        if (userRepository.findByUsername(request.getUsername()) != null) {
+        // 验证用户名是否已存在；过滤器只是预检，并发注册或其他实例刚注册的同名用户由数据库唯一约束拦截
+        if (usernameFilter.exists(request.getUsername())) {
             response.setSuccess(false);
             response.setMessage("用户名已存在");
             return response;
@@ -146,7 +183,7 @@ public class AuthService {
         // 创建新用户
         User newUser = new User();
         newUser.setUsername(request.getUsername());
-        newUser.setPassword(passwordEncoder.encode(request.getPassword()));
+        newUser.setPassword(passwordHashingPool.encode(request.getPassword()));
         newUser.setEmail(request.getEmail());
         newUser.setPhone(request.getPhone());
         newUser.setName(request.getUsername()); // 默认用用户名作为姓名
@@ -156,13 +193,21 @@ public class AuthService {
         newUser.setCreateTime(LocalDateTime.now());
         newUser.setUpdateTime(LocalDateTime.now());
 
-        userRepository.save(newUser);
+        try {
+            userRepository.save(newUser);
+        } catch (DataIntegrityViolationException e) {
+            response.setSuccess(false);
+            response.setMessage("用户名已存在");
+            return response;
+        }
+        usernameFilter.add(newUser.getUsername());
 
         // 注册成功后自动生成token和用户信息，模拟登录
         Optional<Role> role = roleRepository.findByCode("user");
 
         // 生成JWT token
-        String token = jwtTokenProvider.generateToken(newUser.getUsername(), newUser.getId(), 1L);
+        String token = jwtTokenProvider.generateToken(newUser.getUsername(), newUser.getId(), 1L,
+                tokenEpochService.currentEpoch(newUser.getId()), roleCodes(newUser.getRoleCode()));
 
         // 构建用户信息
         LoginResponse.UserInfo userInfo = new LoginResponse.UserInfo();
@@ -230,14 +275,16 @@ public class AuthService {
         if (token != null && tokenBlacklist.contains(token)) {
             return false;
         }
-        return jwtTokenProvider.validateToken(token);
+        JwtClaims claims = jwtTokenProvider.getClaims(token);
+        return claims != null && tokenEpochService.isCurrent(claims);
     }
 
     public Long getUserIdByToken(String token) {
         if (token != null && tokenBlacklist.contains(token)) {
             return null;
         }
-        return jwtTokenProvider.getUserIdFromJWT(token);
+        JwtClaims claims = jwtTokenProvider.parseClaims(token);
+        return tokenEpochService.isCurrent(claims) ? claims.getUserId() : null;
     }
 
 
@@ -304,15 +351,23 @@ public class AuthService {
             return null;
         }
 
-        Long userId = getUserIdByToken(token);
-        if (userId == null) {
+        JwtClaims claims = jwtTokenProvider.parseClaims(token);
+        if (!tokenEpochService.isCurrent(claims)) {
             return null;
         }
+        // 角色已写入token，直接读取；旧token没有角色声明时再查库
+        if (!claims.getRoles().isEmpty()) {
+            return claims.getRoles().get(0);
+        }
 
-        User user = userRepository.findById(userId).orElse(null);
+        User user = userRepository.findById(claims.getUserId()).orElse(null);
         return user != null ? user.getRoleCode() : null;
     }
 
+    private List<String> roleCodes(String roleCode) {
+        return roleCode != null ? List.of(roleCode) : List.of();
+    }
+
     // 获取当前HTTP请求
     private HttpServletRequest getCurrentHttpRequest() {
         try {
@@ -323,19 +378,4 @@ public class AuthService {
             return null;
         }
     }
-
-    // 获取客户端IP
-    private String getClientIp(HttpServletRequest request) {
-        String ip = request.getHeader("X-Forwarded-For");
-        if (ip == null || ip.length() == 0 || "unknown".equalsIgnoreCase(ip)) {
-            ip = request.getHeader("Proxy-Client-IP");
-        }
-        if (ip == null || ip.length() == 0 || "unknown".equalsIgnoreCase(ip)) {
-            ip = request.getHeader("WL-Proxy-Client-IP");
-        }
-        if (ip == null || ip.length() == 0 || "unknown".equalsIgnoreCase(ip)) {
-            ip = request.getRemoteAddr();
-        }
-        return ip;
-    }
 }
\ No newline at end of file
@@ -0,0 +1,312 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.ExportJobDTO;
+import com.example.demo.dto.ExportJobRequest;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * 异步导出任务
+ * 导出在独立的有界线程池中生成文件到本地磁盘，请求线程只负责提交和查询进度
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ExportJobService {
+
+    public static final String TYPE_SYSTEM_LOG = "SYSTEM_LOG";
+    public static final String TYPE_OPERATION_LOG = "OPERATION_LOG";
+
+    // 导出类型 -> 所需菜单权限，与对应日志查询接口的规则一致
+    private static final Map<String, String> REQUIRED_MENUS = Map.of(
+            TYPE_SYSTEM_LOG, "/systemLogs",
+            TYPE_OPERATION_LOG, "/auditLogs");
+
+    private static final DateTimeFormatter FILE_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss");
+
+    private final ExportService exportService;
+
+    private final SystemLogService systemLogService;
+
+    private final OperationLogService operationLogService;
+
+    @Value("${app.export.jobs.dir:./data/exports}")
+    private String jobsDir;
+
+    // 同时执行的导出任务数
+    @Value("${app.export.jobs.max-concurrent:2}")
+    private int maxConcurrent;
+
+    // 排队等待的导出任务数，超出后拒绝提交
+    @Value("${app.export.jobs.queue-capacity:20}")
+    private int queueCapacity;
+
+    // 已完成任务及其文件的保留时间
+    @Value("${app.export.jobs.ttl-minutes:60}")
+    private long ttlMinutes;
+
+    private final Map<String, ExportJob> jobs = new ConcurrentHashMap<>();
+
+    private ThreadPoolExecutor executor;
+
+    private Path baseDir;
+
+    @PostConstruct
+    public void init() throws IOException {
+        baseDir = Paths.get(jobsDir).toAbsolutePath().normalize();
+        Files.createDirectories(baseDir);
+        // 目录可能被多个实例共享，其他实例的任务仍在轮询下载，只清理超过保留时间的文件
+        deleteExpiredFiles();
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        executor = new ThreadPoolExecutor(maxConcurrent, maxConcurrent, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, "export-job-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 提交导出任务
+     *
+     * @throws IllegalArgumentException  导出类型不支持
+     * @throws RejectedExecutionException 排队任务已满
+     */
+    public ExportJobDTO submit(ExportJobRequest request, Long ownerId) {
+        String type = request.getType() != null ? request.getType().trim().toUpperCase() : null;
+        String extension;
+        if (TYPE_SYSTEM_LOG.equals(type)) {
+            extension = ".xlsx";
+        } else if (TYPE_OPERATION_LOG.equals(type)) {
+            extension = ".csv";
+        } else {
+            throw new IllegalArgumentException("不支持的导出类型: " + request.getType());
+        }
+
+        String id = UUID.randomUUID().toString().replace("-", "");
+        String prefix = TYPE_SYSTEM_LOG.equals(type) ? "系统日志_" : "操作日志_";
+        ExportJob job = new ExportJob(id, type, ownerId, request,
+                prefix + LocalDateTime.now().format(FILE_TIME_FORMATTER) + extension,
+                baseDir.resolve(id + extension));
+        jobs.put(id, job);
+        try {
+            executor.execute(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(id);
+            throw e;
+        }
+        log.info("导出任务已提交: id={}, type={}, owner={}", id, type, ownerId);
+        return toDTO(job);
+    }
+
+    /**
+     * 查询任务，只能查询自己提交的任务
+     */
+    public ExportJobDTO getJob(String id, Long ownerId) {
+        ExportJob job = findJob(id, ownerId);
+        return job != null ? toDTO(job) : null;
+    }
+
+    /**
+     * 导出类型所需的菜单权限（菜单的前端路由路径），类型不支持时返回null
+     */
+    public static String requiredMenu(String type) {
+        return type != null ? REQUIRED_MENUS.get(type.trim().toUpperCase()) : null;
+    }
+
+    /**
+     * 获取已完成任务的文件，任务不存在、不属于当前用户或未完成时返回null
+     */
+    public Path getCompletedFile(String id, Long ownerId) {
+        ExportJob job = findJob(id, ownerId);
+        return job != null && job.status == JobStatus.COMPLETED ? job.file : null;
+    }
+
+    // 定时清理过期任务及文件
+    @Scheduled(fixedDelay = 5 * 60 * 1000)
+    public void evictExpiredJobs() {
+        LocalDateTime expireBefore = LocalDateTime.now().minusMinutes(ttlMinutes);
+        jobs.values().removeIf(job -> {
+            if (job.finishTime == null || job.finishTime.isAfter(expireBefore)) {
+                return false;
+            }
+            deleteQuietly(job.file);
+            return true;
+        });
+        deleteExpiredFiles();
+    }
+
+    // 按最后修改时间清理没有对应任务的遗留文件（重启前或其他实例生成的）
+    private void deleteExpiredFiles() {
+        long expireBeforeMillis = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(ttlMinutes);
+        try (Stream<Path> files = Files.list(baseDir)) {
+            files.filter(file -> isModifiedBefore(file, expireBeforeMillis)).forEach(this::deleteQuietly);
+        } catch (IOException e) {
+            log.warn("清理过期导出文件失败: {}", baseDir, e);
+        }
+    }
+
+    private boolean isModifiedBefore(Path file, long millis) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis() < millis;
+        } catch (IOException e) {
+            // 文件已被其他实例删除
+            return false;
+        }
+    }
+
+    private ExportJob findJob(String id, Long ownerId) {
+        ExportJob job = jobs.get(id);
+        if (job == null || !Objects.equals(job.ownerId, ownerId)) {
+            return null;
+        }
+        return job;
+    }
+
+    private void run(ExportJob job) {
+        job.status = JobStatus.RUNNING;
+        ExportJobRequest request = job.request;
+        try {
+            try (OutputStream outputStream = new CountingOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(job.file), 64 * 1024), job.bytesWritten)) {
+                if (TYPE_SYSTEM_LOG.equals(job.type)) {
+                    exportService.exportSystemLogs(consumer -> systemLogService.streamLogsForExport(
+                            request.getLevel(), request.getService(), request.getModule(), request.getUsername(),
+                            request.getStartTime(), request.getEndTime(), row -> {
+                                consumer.accept(row);
+                                job.rowsWritten.incrementAndGet();
+                            }), outputStream);
+                } else {
+                    exportService.exportOperationLogsCsv(consumer -> operationLogService.streamLogsForExport(
+                            request.getModule(), request.getOperator(), request.getOperationType(),
+                            request.getResult(), request.getRequestMethod(), request.getStatusCode(),
+                            request.getRequestUrl(), request.getStartTime(), request.getEndTime(), row -> {
+                                consumer.accept(row);
+                                job.rowsWritten.incrementAndGet();
+                            }), outputStream);
+                }
+            }
+            // 文件关闭（全部刷盘）后才标记完成，避免下载到不完整的文件
+            job.status = JobStatus.COMPLETED;
+            log.info("导出任务完成: id={}, rows={}, bytes={}", job.id, job.rowsWritten.get(), job.bytesWritten.get());
+        } catch (Exception e) {
+            log.error("导出任务失败: id={}", job.id, e);
+            job.errorMessage = e.getMessage();
+            job.status = JobStatus.FAILED;
+            deleteQuietly(job.file);
+        } finally {
+            job.finishTime = LocalDateTime.now();
+        }
+    }
+
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("删除导出文件失败: {}", file, e);
+        }
+    }
+
+    private ExportJobDTO toDTO(ExportJob job) {
+        ExportJobDTO dto = new ExportJobDTO();
+        dto.setId(job.id);
+        dto.setType(job.type);
+        dto.setStatus(job.status.name());
+        dto.setFileName(job.fileName);
+        dto.setRowsWritten(job.rowsWritten.get());
+        dto.setBytesWritten(job.bytesWritten.get());
+        dto.setErrorMessage(job.errorMessage);
+        dto.setCreateTime(job.createTime);
+        dto.setFinishTime(job.finishTime);
+        return dto;
+    }
+
+    private enum JobStatus {
+        PENDING, RUNNING, COMPLETED, FAILED
+    }
+
+    /**
+     * 导出任务状态，进度字段由导出线程更新，查询线程读取
+     */
+    private static final class ExportJob {
+
+        private final String id;
+        private final String type;
+        private final Long ownerId;
+        private final ExportJobRequest request;
+        private final String fileName;
+        private final Path file;
+        private final LocalDateTime createTime = LocalDateTime.now();
+        private final AtomicLong rowsWritten = new AtomicLong();
+        private final AtomicLong bytesWritten = new AtomicLong();
+        private volatile JobStatus status = JobStatus.PENDING;
+        private volatile String errorMessage;
+        private volatile LocalDateTime finishTime;
+
+        private ExportJob(String id, String type, Long ownerId, ExportJobRequest request, String fileName, Path file) {
+            this.id = id;
+            this.type = type;
+            this.ownerId = ownerId;
+            this.request = request;
+            this.fileName = fileName;
+            this.file = file;
+        }
+    }
+
+    /**
+     * 统计写入字节数
+     */
+    private static final class CountingOutputStream extends FilterOutputStream {
+
+        private final AtomicLong counter;
+
+        private CountingOutputStream(OutputStream out, AtomicLong counter) {
+            super(out);
+            this.counter = counter;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            counter.incrementAndGet();
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            counter.addAndGet(len);
+        }
+    }
+}
@@ -1,13 +1,23 @@
 package com.example.demo.service;
 
+import com.example.demo.entity.OperationLog;
 import com.example.demo.entity.SystemLog;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
 import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.time.format.DateTimeFormatter;
-import java.util.List;
+import java.util.EnumMap;
+import java.util.function.Consumer;
 
 @Service
 public class ExportService {
@@ -17,17 +27,47 @@ public class ExportService {
             "操作用户", "操作IP", "操作内容", "操作结果"
     };
 
+    private static final String[] OPERATION_LOG_HEADERS = {
+            "ID", "模块", "操作类型", "操作描述", "操作者", "请求方法", "状态码",
+            "响应时间(ms)", "操作结果", "访问时间", "IP地址"
+    };
+
+    private static final CSVFormat OPERATION_LOG_CSV_FORMAT = CSVFormat.DEFAULT.builder()
+            .setHeader(OPERATION_LOG_HEADERS)
+            .setRecordSeparator("\n")
+            .build();
+
     private static final DateTimeFormatter DATE_FORMATTER =
             DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
+    // 内存中保留的行数，超出的行刷到临时文件
+    @Value("${app.export.row-access-window:100}")
+    private int rowAccessWindow;
+
+    // CSV导出时每写入多少行刷新一次输出流，让客户端尽早收到数据
+    @Value("${app.export.csv-flush-rows:1000}")
+    private int csvFlushRows;
+
     /**
-     * 导出系统日志到Excel
+     * 导出数据源，逐行把数据交给回调，返回总行数
      */
-    public void exportSystemLogs(List<SystemLog> logs, OutputStream outputStream) {
-        Workbook workbook = null;
+    @FunctionalInterface
+    public interface RowSource<T> {
+        long forEachRow(Consumer<T> consumer);
+    }
+
+    /**
+     * 流式导出系统日志到Excel
+     * 使用SXSSF窗口写入，内存中只保留最近 rowAccessWindow 行，内存占用与总行数无关
+     *
+     * @return 导出的行数
+     */
+    public long exportSystemLogs(RowSource<SystemLog> source, OutputStream outputStream) {
+        SXSSFWorkbook workbook = null;
         try {
-            // 1. 创建工作簿（使用.xlsx格式）
-            workbook = new XSSFWorkbook();
+            // 1. 创建流式工作簿（使用.xlsx格式），临时文件启用压缩
+            workbook = new SXSSFWorkbook(rowAccessWindow);
+            workbook.setCompressTempFiles(true);
 
             // 2. 创建工作表
             Sheet sheet = workbook.createSheet("系统日志");
@@ -35,27 +75,26 @@ public class ExportService {
             // 3. 设置列宽
             setColumnWidth(sheet);
 
-            // 4. 创建标题行样式
-            CellStyle headerStyle = createHeaderStyle(workbook);
+            // 4. 创建样式（每个工作簿只创建一次，所有行共用）
+            StyleRegistry styles = new StyleRegistry(workbook);
 
-            // 5. 创建数据行样式
-            CellStyle dataStyle = createDataStyle(workbook);
+            // 5. 创建表头
+            createHeaderRow(sheet, styles.header);
 
-            // 6. 创建表头
-            createHeaderRow(sheet, headerStyle);
+            // 6. 填充数据
+            long rows = fillDataRows(sheet, source, styles);
 
-            // 7. 填充数据
-            fillDataRows(sheet, logs, dataStyle);
-
-            // 8. 写入输出流
+            // 7. 写入输出流
             workbook.write(outputStream);
+            return rows;
 
         } catch (Exception e) {
             throw new RuntimeException("生成Excel文件失败", e);
         } finally {
-            // 9. 关闭工作簿
+            // 8. 删除临时文件并关闭工作簿
             if (workbook != null) {
                 try {
+                    workbook.dispose();
                     workbook.close();
                 } catch (Exception e) {
                     // 忽略关闭异常
@@ -64,6 +103,54 @@ public class ExportService {
         }
     }
 
+    /**
+     * 流式导出操作日志到CSV
+     * 逐行写入缓冲输出流，每 csvFlushRows 行刷新一次，不在内存中拼接完整内容
+     *
+     * @return 导出的行数
+     */
+    public long exportOperationLogsCsv(RowSource<OperationLog> source, OutputStream outputStream) throws IOException {
+        // 写入UTF-8 BOM头，确保Excel正确识别编码
+        outputStream.write(0xEF);
+        outputStream.write(0xBB);
+        outputStream.write(0xBF);
+
+        BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), 16 * 1024);
+        CSVPrinter printer = new CSVPrinter(writer, OPERATION_LOG_CSV_FORMAT);
+        long[] written = {0};
+        try {
+            source.forEachRow(log -> {
+                try {
+                    printOperationLog(printer, log);
+                    if (++written[0] % csvFlushRows == 0) {
+                        printer.flush();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        printer.flush();
+        return written[0];
+    }
+
+    private void printOperationLog(CSVPrinter printer, OperationLog log) throws IOException {
+        printer.printRecord(
+                log.getId() != null ? log.getId() : 0,
+                log.getModule(),
+                log.getType(),
+                log.getOperation(),
+                log.getOperator(),
+                log.getRequestMethod(),
+                log.getStatusCode() != null ? log.getStatusCode() : 0,
+                log.getExecutionTime() != null ? log.getExecutionTime() : 0,
+                log.getResult() != null ? (log.getResult().equals("SUCCESS") ? "成功" : "失败") : "",
+                log.getAccessTime() != null ? log.getAccessTime().format(DATE_FORMATTER) : "",
+                log.getOperatorIp());
+    }
+
     /**
      * 设置列宽
      */
@@ -149,23 +236,26 @@ public class ExportService {
     /**
      * 填充数据行
      */
-    private void fillDataRows(Sheet sheet, List<SystemLog> logs, CellStyle dataStyle) {
-        if (logs == null || logs.isEmpty()) {
-            createNoDataRow(sheet, dataStyle);
-            return;
-        }
-
-        int rowNum = 1;
-        for (SystemLog log : logs) {
-            Row row = sheet.createRow(rowNum++);
-            createDataRow(row, log, rowNum - 1, dataStyle);
+    private long fillDataRows(Sheet sheet, RowSource<SystemLog> source, StyleRegistry styles) {
+        int[] rowNum = {1};
+        long rows = source.forEachRow(log -> {
+            Row row = sheet.createRow(rowNum[0]);
+            createDataRow(row, log, rowNum[0], styles);
+            rowNum[0]++;
+        });
+
+        if (rows == 0) {
+            createNoDataRow(sheet, styles.data);
         }
+        return rows;
     }
 
     /**
      * 创建数据行
      */
-    private void createDataRow(Row row, SystemLog log, int index, CellStyle dataStyle) {
+    private void createDataRow(Row row, SystemLog log, int index, StyleRegistry styles) {
+        CellStyle dataStyle = styles.data;
+
         // 序号
         Cell cell0 = row.createCell(0);
         cell0.setCellValue(index);
@@ -181,9 +271,8 @@ public class ExportService {
         // 日志级别
         Cell cell2 = row.createCell(2);
         cell2.setCellValue(log.getLevel());
-        // 可以根据级别设置不同的颜色
-        setLevelColor(cell2, log.getLevel());
-        cell2.setCellStyle(dataStyle);
+        // 根据级别使用不同颜色的共享样式
+        cell2.setCellStyle(styles.level(log.getLevel()));
 
         // 服务名称
         Cell cell3 = row.createCell(3);
@@ -213,53 +302,84 @@ public class ExportService {
     }
 
     /**
-     * 根据日志级别设置单元格颜色
+     * 日志级别对应的字体颜色分类
      */
-    private void setLevelColor(Cell cell, String level) {
-        if (cell == null) return;
-
-        Workbook workbook = cell.getSheet().getWorkbook();
-
-        // 1. 创建一个全新的单元格样式
-        CellStyle newStyle = workbook.createCellStyle();
-
-        // 2. 设置字体
-        Font font = workbook.createFont();
-        font.setFontName("宋体");
-        font.setFontHeightInPoints((short) 10);
+    private enum LevelColor {
+        ERROR(IndexedColors.RED, true),
+        WARN(IndexedColors.ORANGE, false),
+        INFO(IndexedColors.BLUE, false),
+        DEBUG(IndexedColors.GREY_50_PERCENT, false),
+        OTHER(null, false);
+
+        private final IndexedColors color;
+        private final boolean bold;
+
+        LevelColor(IndexedColors color, boolean bold) {
+            this.color = color;
+            this.bold = bold;
+        }
 
-        // 3. 根据日志级别设置字体颜色
-        if (level != null && !level.trim().isEmpty()) {
+        static LevelColor of(String level) {
+            if (level == null || level.isBlank()) {
+                return OTHER;
+            }
             String levelUpper = level.trim().toUpperCase();
-
             if (levelUpper.contains("ERROR") || levelUpper.contains("FATAL")) {
-                font.setColor(IndexedColors.RED.getIndex());
-                font.setBold(true);
-            } else if (levelUpper.contains("WARN")) {
-                font.setColor(IndexedColors.ORANGE.getIndex());
-            } else if (levelUpper.contains("INFO")) {
-                font.setColor(IndexedColors.BLUE.getIndex());
-            } else if (levelUpper.contains("DEBUG")) {
-                font.setColor(IndexedColors.GREY_50_PERCENT.getIndex());
+                return ERROR;
+            }
+            if (levelUpper.contains("WARN")) {
+                return WARN;
             }
-            // 其他级别保持默认颜色
+            if (levelUpper.contains("INFO")) {
+                return INFO;
+            }
+            if (levelUpper.contains("DEBUG")) {
+                return DEBUG;
+            }
+            return OTHER;
         }
+    }
 
-        newStyle.setFont(font);
+    /**
+     * 单个工作簿的样式注册表
+     * xlsx 样式总数上限约 64000，样式必须按类型共享，不能每行新建
+     */
+    private final class StyleRegistry {
 
-        // 4. 设置单元格边框
-        newStyle.setBorderTop(BorderStyle.THIN);
-        newStyle.setBorderRight(BorderStyle.THIN);
-        newStyle.setBorderBottom(BorderStyle.THIN);
-        newStyle.setBorderLeft(BorderStyle.THIN);
+        private final Workbook workbook;
+        private final CellStyle header;
+        private final CellStyle data;
+        private final EnumMap<LevelColor, CellStyle> levelStyles = new EnumMap<>(LevelColor.class);
 
-        // 5. 设置自动换行
-        newStyle.setWrapText(true);
+        private StyleRegistry(Workbook workbook) {
+            this.workbook = workbook;
+            this.header = createHeaderStyle(workbook);
+            this.data = createDataStyle(workbook);
+        }
 
-        // 6. 应用到单元格
-        cell.setCellStyle(newStyle);
-    }
+        /**
+         * 获取日志级别样式，同一级别只创建一次
+         */
+        private CellStyle level(String level) {
+            return levelStyles.computeIfAbsent(LevelColor.of(level), this::createLevelStyle);
+        }
 
+        private CellStyle createLevelStyle(LevelColor levelColor) {
+            if (levelColor.color == null) {
+                return data;
+            }
+            CellStyle style = workbook.createCellStyle();
+            style.cloneStyleFrom(data);
+
+            Font font = workbook.createFont();
+            font.setFontName("宋体");
+            font.setFontHeightInPoints((short) 10);
+            font.setColor(levelColor.color.getIndex());
+            font.setBold(levelColor.bold);
+            style.setFont(font);
+            return style;
+        }
+    }
 
     /**
      * 创建无数据行
@@ -0,0 +1,154 @@
+package com.example.demo.service;
+
+import com.example.demo.common.util.HierarchicalTimingWheel;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 本地内存在线状态存储
+ * 会话表 + 按最后访问时间到期的时间轮，在线人数直接取会话表大小，过期会话逐个移除，不需要全量扫描。
+ * 只在单实例部署时准确。
+ */
+public class LocalPresenceStore implements PresenceStore {
+
+    private final long timeoutMillis;
+
+    // 会话ID -> 在线会话
+    private final Map<String, Entry> sessions = new ConcurrentHashMap<>();
+
+    // 用户ID -> 会话ID，同一用户只保留最近一次登录的会话
+    private final Map<Long, String> sessionByUser = new ConcurrentHashMap<>();
+
+    private final HierarchicalTimingWheel<Entry> timingWheel;
+
+    public LocalPresenceStore(long timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+        this.timingWheel = new HierarchicalTimingWheel<>(1000, 3, System.currentTimeMillis());
+    }
+
+    @Override
+    public String name() {
+        return "local";
+    }
+
+    @Override
+    public OnlineSession login(OnlineSession session) {
+        Entry entry = new Entry(session);
+        OnlineSession previous = null;
+        String previousSessionId = sessionByUser.put(session.userId(), session.sessionId());
+        if (previousSessionId != null && !previousSessionId.equals(session.sessionId())) {
+            previous = logout(previousSessionId);
+        }
+        Entry replaced = sessions.put(session.sessionId(), entry);
+        if (replaced != null && !replaced.session.userId().equals(session.userId())) {
+            sessionByUser.remove(replaced.session.userId(), session.sessionId());
+        }
+        timingWheel.schedule(entry, session.lastAccessMillis() + timeoutMillis);
+        return previous;
+    }
+
+    @Override
+    public OnlineSession logout(String sessionId) {
+        Entry entry = sessions.remove(sessionId);
+        if (entry == null) {
+            return null;
+        }
+        sessionByUser.remove(entry.session.userId(), sessionId);
+        return entry.snapshot();
+    }
+
+    @Override
+    public List<OnlineSession> logoutByUsername(String username) {
+        List<OnlineSession> removed = new ArrayList<>();
+        for (Entry entry : sessions.values()) {
+            if (entry.session.username().equals(username)) {
+                OnlineSession session = logout(entry.session.sessionId());
+                if (session != null) {
+                    removed.add(session);
+                }
+            }
+        }
+        return removed;
+    }
+
+    @Override
+    public boolean touch(String sessionId, long nowMillis) {
+        Entry entry = sessions.get(sessionId);
+        if (entry == null) {
+            return false;
+        }
+        entry.lastAccessMillis = nowMillis;
+        return true;
+    }
+
+    @Override
+    public int count() {
+        return sessions.size();
+    }
+
+    @Override
+    public Optional<OnlineSession> get(String sessionId) {
+        Entry entry = sessions.get(sessionId);
+        return entry != null ? Optional.of(entry.snapshot()) : Optional.empty();
+    }
+
+    @Override
+    public List<OnlineSession> list() {
+        List<OnlineSession> list = new ArrayList<>(sessions.size());
+        for (Entry entry : sessions.values()) {
+            list.add(entry.snapshot());
+        }
+        list.sort(Comparator.comparingLong(OnlineSession::lastAccessMillis).reversed());
+        return list;
+    }
+
+    // 推进时间轮；到期时按实际最后访问时间判断，期间有访问的会话重新排期
+    @Override
+    public List<OnlineSession> expire(long nowMillis) {
+        List<Entry> due = new ArrayList<>();
+        timingWheel.advance(nowMillis, due::add);
+        List<OnlineSession> expired = new ArrayList<>();
+        for (Entry entry : due) {
+            if (sessions.get(entry.session.sessionId()) != entry) {
+                continue;
+            }
+            long expireAt = entry.lastAccessMillis + timeoutMillis;
+            if (expireAt > nowMillis && timingWheel.schedule(entry, expireAt)) {
+                continue;
+            }
+            if (sessions.remove(entry.session.sessionId(), entry)) {
+                sessionByUser.remove(entry.session.userId(), entry.session.sessionId());
+                expired.add(entry.snapshot());
+            }
+        }
+        return expired;
+    }
+
+    public int scheduled() {
+        return timingWheel.size();
+    }
+
+    /**
+     * 按对象身份区分同一会话ID的多次登录，旧的时间轮节点到期时直接忽略
+     */
+    private static final class Entry {
+
+        private final OnlineSession session;
+
+        private volatile long lastAccessMillis;
+
+        private Entry(OnlineSession session) {
+            this.session = session;
+            this.lastAccessMillis = session.lastAccessMillis();
+        }
+
+        private OnlineSession snapshot() {
+            return session.withLastAccess(lastAccessMillis);
+        }
+    }
+}
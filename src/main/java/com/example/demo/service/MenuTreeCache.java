@@ -0,0 +1,248 @@
+package com.example.demo.service;
+
+import com.example.demo.common.cache.CacheInvalidationBus;
+import com.example.demo.entity.Menu;
+import com.example.demo.entity.Role;
+import com.example.demo.entity.RoleMenu;
+import com.example.demo.repository.MenuRepository;
+import com.example.demo.repository.RoleMenuRepository;
+import com.example.demo.repository.RoleRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按角色预先构建的菜单树快照
+ * 一次加载全部菜单和角色菜单权限，按菜单ID建立索引后为每个角色生成菜单树，整体替换发布。
+ * 菜单树节点是脱离持久化上下文的副本，子节点列表不可修改，多个请求可以直接共享。
+ *
+ * 菜单或角色变更时递增版本号，下次读取发现快照版本落后时重建。
+ * 多实例部署时通过 {@link CacheInvalidationBus} 通知其他实例递增版本号。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MenuTreeCache {
+
+    // 拥有全部菜单的角色
+    private static final String SUPER_ROLE = "super";
+
+    private static final String CACHE_NAME = "menuTree";
+
+    private final MenuRepository menuRepository;
+
+    private final RoleRepository roleRepository;
+
+    private final RoleMenuRepository roleMenuRepository;
+
+    private final CacheInvalidationBus cacheInvalidationBus;
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final AtomicLong version = new AtomicLong();
+
+    private volatile Snapshot snapshot;
+
+    // 监控指标
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder buildCount = new LongAdder();
+    private volatile long lastBuildMillis;
+
+    @PostConstruct
+    public void subscribe() {
+        cacheInvalidationBus.subscribe(CACHE_NAME, key -> onRemoteInvalidation());
+    }
+
+    // 在演示数据初始化之后预先构建
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void init() {
+        version.incrementAndGet();
+        current();
+    }
+
+    /**
+     * 当前数据版本，菜单或角色修改后递增
+     */
+    public long version() {
+        return version.get();
+    }
+
+    /**
+     * 全部菜单的树
+     */
+    public List<Menu> getFullTree() {
+        return current().fullTree();
+    }
+
+    /**
+     * 指定角色可见的菜单树，包含有权限菜单的所有上级菜单；角色不存在时返回空列表
+     */
+    public List<Menu> getTree(String roleCode) {
+        Snapshot current = current();
+        if (SUPER_ROLE.equals(roleCode)) {
+            return current.fullTree();
+        }
+        return current.treesByRole().getOrDefault(roleCode, List.of());
+    }
+
+    /**
+     * 菜单或角色菜单权限已修改，并通知其他实例
+     * 在事务中调用时，事务结束后再递增一次并通知，丢弃事务提交前用旧数据构建的快照
+     */
+    public void invalidate() {
+        version.incrementAndGet();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    version.incrementAndGet();
+                    cacheInvalidationBus.publish(CACHE_NAME, null);
+                }
+            });
+        } else {
+            cacheInvalidationBus.publish(CACHE_NAME, null);
+        }
+    }
+
+    /**
+     * 获取缓存运行指标
+     */
+    public Map<String, Object> getMetrics() {
+        Snapshot current = snapshot;
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("version", version.get());
+        metrics.put("snapshotVersion", current != null ? current.version() : -1);
+        metrics.put("roles", current != null ? current.treesByRole().size() : 0);
+        metrics.put("hits", hitCount.sum());
+        metrics.put("builds", buildCount.sum());
+        metrics.put("lastBuildMillis", lastBuildMillis);
+        return metrics;
+    }
+
+    // 其他实例修改了菜单或角色：本实例二级缓存中的菜单、角色数据和查询结果可能已过期，先清除再重建
+    private void onRemoteInvalidation() {
+        entityManagerFactory.getCache().evict(Menu.class);
+        entityManagerFactory.getCache().evict(Role.class);
+        entityManagerFactory.getCache().evict(RoleMenu.class);
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictQueryRegions();
+        version.incrementAndGet();
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current != null && current.version() == version.get()) {
+            hitCount.increment();
+            return current;
+        }
+        synchronized (this) {
+            current = snapshot;
+            long expected = version.get();
+            if (current == null || current.version() != expected) {
+                current = build(expected);
+                snapshot = current;
+            }
+            return current;
+        }
+    }
+
+    // 先读取版本号再加载数据，加载期间发生的修改会使版本号继续前进，下次读取时重建
+    private Snapshot build(long buildVersion) {
+        long start = System.nanoTime();
+        List<Menu> menus = menuRepository.findAllByOrderBySortAsc();
+        Map<Long, Menu> menuById = new HashMap<>(menus.size() * 2);
+        for (Menu menu : menus) {
+            menuById.put(menu.getId(), menu);
+        }
+
+        Map<Long, Set<Long>> menuIdsByRole = new HashMap<>();
+        for (RoleMenu roleMenu : roleMenuRepository.findAll()) {
+            menuIdsByRole.computeIfAbsent(roleMenu.getRoleId(), id -> new HashSet<>()).add(roleMenu.getMenuCode());
+        }
+
+        Map<String, List<Menu>> treesByRole = new HashMap<>();
+        for (Role role : roleRepository.findAll()) {
+            if (role.getCode() == null) {
+                continue;
+            }
+            Set<Long> visible = withAncestors(menuIdsByRole.getOrDefault(role.getId(), Set.of()), menuById);
+            treesByRole.put(role.getCode(), buildTree(menus, visible));
+        }
+        Snapshot built = new Snapshot(buildVersion, buildTree(menus, menuById.keySet()), Map.copyOf(treesByRole));
+
+        buildCount.increment();
+        lastBuildMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        log.debug("菜单树快照已重建: version={}, menus={}, roles={}", buildVersion, menus.size(), treesByRole.size());
+        return built;
+    }
+
+    // 有权限的菜单加上其所有上级菜单，上级菜单仅用于显示
+    private static Set<Long> withAncestors(Set<Long> authorized, Map<Long, Menu> menuById) {
+        Set<Long> visible = new HashSet<>();
+        for (Long menuId : authorized) {
+            Menu menu = menuById.get(menuId);
+            while (menu != null && visible.add(menu.getId())) {
+                menu = menu.getParentId() != null ? menuById.get(menu.getParentId()) : null;
+            }
+        }
+        return visible;
+    }
+
+    // 按排序顺序复制可见菜单并挂到上级节点下，上级菜单不存在的节点不显示
+    private static List<Menu> buildTree(List<Menu> sortedMenus, Set<Long> visible) {
+        Map<Long, List<Menu>> childrenByParent = new HashMap<>();
+        for (Menu menu : sortedMenus) {
+            if (visible.contains(menu.getId())) {
+                Long parentId = menu.getParentId() == null ? 0L : menu.getParentId();
+                childrenByParent.computeIfAbsent(parentId, id -> new ArrayList<>()).add(menu);
+            }
+        }
+        return copyChildren(childrenByParent, 0L);
+    }
+
+    private static List<Menu> copyChildren(Map<Long, List<Menu>> childrenByParent, Long parentId) {
+        List<Menu> children = childrenByParent.get(parentId);
+        if (children == null) {
+            return List.of();
+        }
+        List<Menu> copies = new ArrayList<>(children.size());
+        for (Menu menu : children) {
+            Menu copy = new Menu();
+            copy.setId(menu.getId());
+            copy.setName(menu.getName());
+            copy.setPath(menu.getPath());
+            copy.setIcon(menu.getIcon());
+            copy.setSort(menu.getSort());
+            copy.setParentId(menu.getParentId());
+            copy.setComponent(menu.getComponent());
+            copy.setType(menu.getType());
+            copy.setAvailable(menu.getAvailable());
+            copy.setChildren(copyChildren(childrenByParent, menu.getId()));
+            copies.add(copy);
+        }
+        return List.copyOf(copies);
+    }
+
+    private record Snapshot(long version, List<Menu> fullTree, Map<String, List<Menu>> treesByRole) {
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.OnlineUser;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * 在线会话快照
+ */
+public record OnlineSession(String sessionId, Long userId, String username, String ipAddress, String userAgent,
+                            long loginMillis, long lastAccessMillis) {
+
+    public OnlineSession withLastAccess(long lastAccessMillis) {
+        return new OnlineSession(sessionId, userId, username, ipAddress, userAgent, loginMillis, lastAccessMillis);
+    }
+
+    public OnlineUser toOnlineUser() {
+        OnlineUser onlineUser = new OnlineUser();
+        onlineUser.setSessionId(sessionId);
+        onlineUser.setUserId(userId);
+        onlineUser.setUsername(username);
+        onlineUser.setIpAddress(ipAddress);
+        onlineUser.setUserAgent(userAgent);
+        onlineUser.setLoginTime(toLocalDateTime(loginMillis));
+        onlineUser.setLastAccessTime(toLocalDateTime(lastAccessMillis));
+        onlineUser.setIsActive(true);
+        return onlineUser;
+    }
+
+    private static LocalDateTime toLocalDateTime(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+    }
+}
@@ -0,0 +1,191 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.OnlineUser;
+import com.example.demo.repository.OnlineUserRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 在线用户登记表
+ * 在线状态以 {@link PresenceStore} 为准（本地内存或 Redis），在线人数和过期处理都不访问数据库。
+ * online_users 表只作为登录历史，由后台线程异步写入，查询在线状态时不读取。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OnlineUserRegistry {
+
+    private final OnlineUserRepository onlineUserRepository;
+
+    private final SessionAccessTracker sessionAccessTracker;
+
+    private final PresenceStore presenceStore;
+
+    @Value("${app.online-user.persist-queue-capacity:10000}")
+    private int persistQueueCapacity;
+
+    private ThreadPoolExecutor persistExecutor;
+
+    // 监控指标
+    private final LongAdder loginCount = new LongAdder();
+    private final LongAdder logoutCount = new LongAdder();
+    private final LongAdder expiredCount = new LongAdder();
+    private final LongAdder persistDroppedCount = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        persistExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(persistQueueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, "online-user-persist");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // 重启后之前的会话都已失效，历史记录统一标记为离线
+        persist(onlineUserRepository::markAllInactive);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        persistExecutor.shutdown();
+        if (!persistExecutor.awaitTermination(5, TimeUnit.SECONDS)) {
+            log.warn("在线用户历史记录未全部写入: pending={}", persistExecutor.getQueue().size());
+        }
+    }
+
+    /**
+     * 登记登录会话，同一用户之前的会话下线
+     */
+    public void login(Long userId, String username, String sessionId, String ipAddress, String userAgent) {
+        long now = System.currentTimeMillis();
+        OnlineSession session = new OnlineSession(sessionId, userId, username, ipAddress, userAgent, now, now);
+        OnlineSession previous = presenceStore.login(session);
+        if (previous != null) {
+            ended(previous);
+            log.info("清理用户 {} 的旧会话", username);
+        }
+        loginCount.increment();
+
+        OnlineUser record = session.toOnlineUser();
+        persist(() -> onlineUserRepository.save(record));
+    }
+
+    /**
+     * 会话下线
+     *
+     * @return 会话不存在时返回null
+     */
+    public OnlineUser logout(String sessionId) {
+        OnlineSession session = presenceStore.logout(sessionId);
+        if (session == null) {
+            return null;
+        }
+        ended(session);
+        logoutCount.increment();
+        return session.toOnlineUser();
+    }
+
+    /**
+     * 按用户名下线所有会话
+     *
+     * @return 下线的会话数
+     */
+    public int logoutByUsername(String username) {
+        List<OnlineSession> sessions = presenceStore.logoutByUsername(username);
+        sessions.forEach(this::ended);
+        logoutCount.add(sessions.size());
+        return sessions.size();
+    }
+
+    /**
+     * 记录一次访问；最后访问时间由 SessionAccessTracker 批量写入历史表
+     */
+    public void touch(String sessionId) {
+        if (sessionId != null && presenceStore.touch(sessionId, System.currentTimeMillis())) {
+            sessionAccessTracker.touch(sessionId);
+        }
+    }
+
+    public int count() {
+        return presenceStore.count();
+    }
+
+    public Optional<OnlineUser> get(String sessionId) {
+        return presenceStore.get(sessionId).map(OnlineSession::toOnlineUser);
+    }
+
+    /**
+     * 所有在线会话，按最后访问时间倒序
+     */
+    public List<OnlineUser> list() {
+        return presenceStore.list().stream().map(OnlineSession::toOnlineUser).toList();
+    }
+
+    // 每秒移除超时未访问的会话
+    @Scheduled(fixedRate = 1000)
+    public void expireSessions() {
+        List<OnlineSession> expired;
+        try {
+            expired = presenceStore.expire(System.currentTimeMillis());
+        } catch (DataAccessException e) {
+            log.warn("处理过期会话失败: {}", e.getMessage());
+            return;
+        }
+        for (OnlineSession session : expired) {
+            ended(session);
+            expiredCount.increment();
+            log.debug("会话已过期: user={}, session={}", session.username(), session.sessionId());
+        }
+    }
+
+    /**
+     * 获取在线用户运行指标
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("backend", presenceStore.name());
+        metrics.put("online", presenceStore.count());
+        metrics.put("logins", loginCount.sum());
+        metrics.put("logouts", logoutCount.sum());
+        metrics.put("expired", expiredCount.sum());
+        metrics.put("persistQueueDepth", persistExecutor.getQueue().size());
+        metrics.put("persistDropped", persistDroppedCount.sum());
+        return metrics;
+    }
+
+    // 会话已从在线状态中移除，历史记录标记为离线
+    private void ended(OnlineSession session) {
+        sessionAccessTracker.forget(session.sessionId());
+        persist(() -> onlineUserRepository.markInactive(session.sessionId()));
+    }
+
+    // 历史记录写入失败或队列已满时只记录日志，不影响在线状态
+    private void persist(Runnable task) {
+        try {
+            persistExecutor.execute(() -> {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    log.warn("写入在线用户历史记录失败: {}", e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            persistDroppedCount.increment();
+        }
+    }
+}
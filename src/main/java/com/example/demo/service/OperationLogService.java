@@ -1,21 +1,27 @@
 package com.example.demo.service;
 
+import com.example.demo.common.audit.AuditLogWriter;
+import com.example.demo.common.pagination.KeysetCursor;
+import com.example.demo.dto.CursorPage;
 import com.example.demo.entity.OperationLog;
 import com.example.demo.repository.OperationLogRepository;
+import jakarta.persistence.EntityManager;
 import jakarta.persistence.criteria.Predicate;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 @Slf4j
 @Service
@@ -24,11 +30,21 @@ public class OperationLogService {
 
     private final OperationLogRepository operationLogRepository;
 
-    @Async
+    private final AuditLogWriter auditLogWriter;
+
+    private final EntityManager entityManager;
+
+    // 键集分页排序：创建时间倒序，相同时间按ID倒序
+    private static final Sort KEYSET_SORT = Sort.by(Sort.Order.desc("createTime"), Sort.Order.desc("id"));
+
+    @Value("${app.export.fetch-size:500}")
+    private int exportFetchSize;
+
+    // 只入队，由后台写入器批量落库，不占用请求线程
     public void saveLog(OperationLog operationLog) {
         try {
             operationLog.setCreateTime(LocalDateTime.now());
-            operationLogRepository.save(operationLog);
+            auditLogWriter.submit(operationLog);
         } catch (Exception e) {
             log.error("保存操作日志失败", e);
         }
@@ -44,6 +60,73 @@ public class OperationLogService {
         return operationLogRepository.findAll(spec, pageable);
     }
 
+    /**
+     * 按 (createTime, id) 键集分页读取全部符合条件的日志，逐行回调
+     * 每批只查询 fetch-size 条，不使用 offset，也不执行 count 查询
+     *
+     * @return 读取的行数
+     */
+    public long streamLogsForExport(String module, String operator, String type,
+                                    String result, String requestMethod, Integer statusCode,
+                                    String requestUrl, LocalDateTime startTime, LocalDateTime endTime,
+                                    Consumer<OperationLog> consumer) {
+        Specification<OperationLog> spec = buildLogSpecification(module, operator, type, result,
+                requestMethod, statusCode, requestUrl, startTime, endTime);
+
+        long count = 0;
+        KeysetCursor cursor = null;
+        while (true) {
+            List<OperationLog> batch = findKeysetBatch(spec, cursor, exportFetchSize);
+            for (OperationLog operationLog : batch) {
+                consumer.accept(operationLog);
+            }
+            count += batch.size();
+            if (batch.size() < exportFetchSize) {
+                return count;
+            }
+
+            OperationLog last = batch.get(batch.size() - 1);
+            cursor = new KeysetCursor(last.getCreateTime(), last.getId());
+            // 已处理的实体不再需要，避免持久化上下文随批次增长
+            entityManager.clear();
+        }
+    }
+
+    /**
+     * 游标分页查询（不统计总数，翻到任意深度的代价都与第一页相同）
+     *
+     * @param cursor 上一页返回的 nextCursor，第一页传空
+     * @throws IllegalArgumentException 游标格式不正确
+     */
+    public CursorPage<OperationLog> getLogsByCursor(String cursor, int size, String module, String operator,
+                                                    String type, String result, String requestMethod,
+                                                    Integer statusCode, String requestUrl,
+                                                    LocalDateTime startTime, LocalDateTime endTime) {
+        Specification<OperationLog> spec = buildLogSpecification(module, operator, type, result,
+                requestMethod, statusCode, requestUrl, startTime, endTime);
+        List<OperationLog> rows = findKeysetBatch(spec, KeysetCursor.decode(cursor), size + 1);
+        return CursorPage.of(rows, size, row -> new KeysetCursor(row.getCreateTime(), row.getId()));
+    }
+
+    // 按 (createTime desc, id desc) 查询游标之后的 limit 条记录
+    private List<OperationLog> findKeysetBatch(Specification<OperationLog> spec, KeysetCursor cursor, int limit) {
+        Specification<OperationLog> pageSpec = cursor == null ? spec : spec.and(keysetAfter(cursor));
+        return operationLogRepository.findBy(pageSpec, q -> q.sortBy(KEYSET_SORT).limit(limit).all());
+    }
+
+    // 键集条件：排在 (createTime, id) 之后的记录，createTime 为空的记录排在最后
+    private Specification<OperationLog> keysetAfter(KeysetCursor cursor) {
+        return (root, query, cb) -> {
+            if (cursor.time() == null) {
+                return cb.and(cb.isNull(root.get("createTime")), cb.lessThan(root.get("id"), cursor.id()));
+            }
+            return cb.or(
+                    cb.lessThan(root.get("createTime"), cursor.time()),
+                    cb.and(cb.equal(root.get("createTime"), cursor.time()), cb.lessThan(root.get("id"), cursor.id())),
+                    cb.isNull(root.get("createTime")));
+        };
+    }
+
     // 构建日志查询条件
     private Specification<OperationLog> buildLogSpecification(String module, String operator, String type,
                                                               String result, String requestMethod, Integer statusCode,
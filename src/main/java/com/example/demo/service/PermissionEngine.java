@@ -0,0 +1,240 @@
+package com.example.demo.service;
+
+import com.example.demo.common.security.PathPermissionTrie;
+import com.example.demo.entity.Menu;
+import com.example.demo.entity.Role;
+import com.example.demo.entity.RoleMenu;
+import com.example.demo.repository.MenuRepository;
+import com.example.demo.repository.RoleMenuRepository;
+import com.example.demo.repository.RoleRepository;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Service;
+import org.springframework.web.util.UrlPathHelper;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 接口访问权限判断
+ * 把菜单编译为连续的权限位，每个角色编译为一个位图，接口路径通过前缀树映射到所需菜单的权限位；
+ * 每个请求只做一次前缀树查找和一次位与运算，不访问数据库。
+ *
+ * 与菜单树快照共用版本号，菜单或角色修改后下一个请求重新编译。
+ * 未配置规则的接口只要求登录。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PermissionEngine {
+
+    // 拥有全部权限的角色
+    private static final String SUPER_ROLE = "super";
+
+    private static final String ROLE_PREFIX = "ROLE_";
+
+    /**
+     * 接口 -> 所需菜单（菜单的前端路由路径），菜单为null表示登录即可访问，用于在通配规则中开放个别接口
+     */
+    static final List<Rule> RULES = List.of(
+            new Rule(null, "/api/users/**", "/user"),
+            new Rule(null, "/api/users/info", null),
+            new Rule(null, "/api/users/check-username", null),
+            new Rule(null, "/api/roles/**", "/role"),
+            new Rule("POST", "/api/menus/**", "/menu"),
+            new Rule("PUT", "/api/menus/**", "/menu"),
+            new Rule("DELETE", "/api/menus/**", "/menu"),
+            new Rule(null, "/api/orders/**", "/order"),
+            new Rule(null, "/api/system-monitor/metrics", "/monitor"),
+            new Rule(null, "/api/operation-logs/**", "/auditLogs"),
+            new Rule(null, "/api/system-logs/**", "/systemLogs"));
+
+    private final MenuRepository menuRepository;
+
+    private final RoleRepository roleRepository;
+
+    private final RoleMenuRepository roleMenuRepository;
+
+    private final MenuTreeCache menuTreeCache;
+
+    // 关闭时只记录拒绝次数，不拦截请求
+    @Value("${app.security.rbac.enforce:true}")
+    private boolean enforce;
+
+    private volatile Compiled compiled;
+
+    // 监控指标
+    private final LongAdder checkCount = new LongAdder();
+    private final LongAdder deniedCount = new LongAdder();
+    private final LongAdder compileCount = new LongAdder();
+    private volatile long lastCompileMillis;
+
+    /**
+     * 已登录用户是否可以访问该请求
+     * 按解码、去掉 ";" 参数并合并 "//" 后的应用内路径匹配，与 Spring MVC 路由时看到的路径一致，
+     * 避免 "/api/%75sers" 之类的写法绕过规则
+     */
+    public boolean isAllowed(Authentication authentication, HttpServletRequest request) {
+        String path = UrlPathHelper.defaultInstance.getPathWithinApplication(request);
+        List<String> roleCodes = roleCodes(authentication);
+        boolean allowed = check(roleCodes, request.getMethod(), path);
+        if (!allowed) {
+            deniedCount.increment();
+            log.debug("接口权限不足: roles={}, {} {}", roleCodes, request.getMethod(), path);
+        }
+        return allowed || !enforce;
+    }
+
+    /**
+     * 已登录用户是否拥有指定菜单（前端路由路径）的权限，用于请求路径无法区分的数据权限，如按类型导出
+     */
+    public boolean hasMenu(Authentication authentication, String menuPath) {
+        List<String> roleCodes = roleCodes(authentication);
+        checkCount.increment();
+        Compiled current = current();
+        boolean allowed = hasBit(current, roleCodes, current.bitByMenuPath().getOrDefault(menuPath, current.unresolvedBit()));
+        if (!allowed) {
+            deniedCount.increment();
+            log.debug("菜单权限不足: roles={}, menu={}", roleCodes, menuPath);
+        }
+        return allowed || !enforce;
+    }
+
+    /**
+     * 任一角色拥有该接口所需的权限位即可访问
+     */
+    public boolean check(List<String> roleCodes, String method, String path) {
+        checkCount.increment();
+        Compiled current = current();
+        int bit = current.trie().lookup(method, path);
+        if (bit < 0) {
+            return true;
+        }
+        return hasBit(current, roleCodes, bit);
+    }
+
+    private static boolean hasBit(Compiled current, List<String> roleCodes, int bit) {
+        for (String roleCode : roleCodes) {
+            long[] bits = current.roleBits().get(roleCode);
+            if (bits != null && (bits[bit >>> 6] & (1L << bit)) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 获取运行指标
+     */
+    public Map<String, Object> getMetrics() {
+        Compiled current = compiled;
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("enforce", enforce);
+        metrics.put("version", current != null ? current.version() : -1);
+        metrics.put("rules", current != null ? current.trie().size() : 0);
+        metrics.put("permissionBits", current != null ? current.bitCount() : 0);
+        metrics.put("roles", current != null ? current.roleBits().size() : 0);
+        metrics.put("checks", checkCount.sum());
+        metrics.put("denied", deniedCount.sum());
+        metrics.put("compiles", compileCount.sum());
+        metrics.put("lastCompileMillis", lastCompileMillis);
+        return metrics;
+    }
+
+    private static List<String> roleCodes(Authentication authentication) {
+        List<String> roleCodes = new ArrayList<>(1);
+        for (GrantedAuthority authority : authentication.getAuthorities()) {
+            String name = authority.getAuthority();
+            roleCodes.add(name.startsWith(ROLE_PREFIX) ? name.substring(ROLE_PREFIX.length()) : name);
+        }
+        return roleCodes;
+    }
+
+    private Compiled current() {
+        Compiled current = compiled;
+        long version = menuTreeCache.version();
+        if (current != null && current.version() == version) {
+            return current;
+        }
+        synchronized (this) {
+            current = compiled;
+            version = menuTreeCache.version();
+            if (current == null || current.version() != version) {
+                current = compile(version);
+                compiled = current;
+            }
+            return current;
+        }
+    }
+
+    // 菜单按ID排序后依次编号；规则引用的菜单不存在时编译为最后一位，只有超级管理员拥有
+    private Compiled compile(long version) {
+        long start = System.nanoTime();
+        List<Menu> menus = new ArrayList<>(menuRepository.findAll());
+        menus.sort(Comparator.comparing(Menu::getId));
+        Map<Long, Integer> bitByMenuId = new HashMap<>(menus.size() * 2);
+        Map<String, Integer> bitByMenuPath = new HashMap<>(menus.size() * 2);
+        for (int i = 0; i < menus.size(); i++) {
+            bitByMenuId.put(menus.get(i).getId(), i);
+            if (menus.get(i).getPath() != null) {
+                bitByMenuPath.putIfAbsent(menus.get(i).getPath(), i);
+            }
+        }
+        int unresolvedBit = menus.size();
+        int bitCount = menus.size() + 1;
+        int words = (bitCount + 63) >>> 6;
+
+        Map<Long, long[]> bitsByRoleId = new HashMap<>();
+        for (RoleMenu roleMenu : roleMenuRepository.findAll()) {
+            Integer bit = bitByMenuId.get(roleMenu.getMenuCode());
+            if (bit != null) {
+                bitsByRoleId.computeIfAbsent(roleMenu.getRoleId(), id -> new long[words])[bit >>> 6] |= 1L << bit;
+            }
+        }
+        Map<String, long[]> roleBits = new HashMap<>();
+        for (Role role : roleRepository.findAll()) {
+            if (role.getCode() != null) {
+                roleBits.put(role.getCode(), bitsByRoleId.getOrDefault(role.getId(), new long[words]));
+            }
+        }
+        long[] all = new long[words];
+        for (int bit = 0; bit < bitCount; bit++) {
+            all[bit >>> 6] |= 1L << bit;
+        }
+        roleBits.put(SUPER_ROLE, all);
+
+        PathPermissionTrie.Builder trie = PathPermissionTrie.builder();
+        for (Rule rule : RULES) {
+            int bit = rule.menuPath() == null ? PathPermissionTrie.OPEN
+                    : bitByMenuPath.getOrDefault(rule.menuPath(), unresolvedBit);
+            if (bit == unresolvedBit) {
+                log.warn("接口权限规则引用的菜单不存在，仅超级管理员可访问: {} -> {}", rule.pattern(), rule.menuPath());
+            }
+            trie.add(rule.method(), rule.pattern(), bit);
+        }
+
+        Compiled result = new Compiled(version, trie.build(), Map.copyOf(roleBits), Map.copyOf(bitByMenuPath),
+                unresolvedBit, bitCount);
+        compileCount.increment();
+        lastCompileMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        log.debug("接口权限已编译: version={}, menus={}, roles={}", version, menus.size(), roleBits.size());
+        return result;
+    }
+
+    record Rule(String method, String pattern, String menuPath) {
+    }
+
+    private record Compiled(long version, PathPermissionTrie trie, Map<String, long[]> roleBits,
+                            Map<String, Integer> bitByMenuPath, int unresolvedBit, int bitCount) {
+    }
+}
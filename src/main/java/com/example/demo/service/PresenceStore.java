@@ -0,0 +1,58 @@
+package com.example.demo.service;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 在线状态存储
+ * 单实例部署使用本地内存实现，多实例部署使用 Redis 实现，在线人数和会话在所有实例间共享。
+ */
+public interface PresenceStore {
+
+    /**
+     * 存储类型名称，用于监控指标
+     */
+    String name();
+
+    /**
+     * 登记会话，同一用户之前的会话被替换
+     *
+     * @return 被替换的旧会话，没有时返回null
+     */
+    OnlineSession login(OnlineSession session);
+
+    /**
+     * 会话下线
+     *
+     * @return 会话不存在时返回null
+     */
+    OnlineSession logout(String sessionId);
+
+    /**
+     * 下线指定用户名的所有会话
+     */
+    List<OnlineSession> logoutByUsername(String username);
+
+    /**
+     * 记录一次访问
+     *
+     * @return 会话可能在线时返回true
+     */
+    boolean touch(String sessionId, long nowMillis);
+
+    int count();
+
+    Optional<OnlineSession> get(String sessionId);
+
+    /**
+     * 所有在线会话，按最后访问时间倒序
+     */
+    List<OnlineSession> list();
+
+    /**
+     * 移除超时未访问的会话，由调用方定期执行
+     *
+     * @return 本次移除的会话
+     */
+    List<OnlineSession> expire(long nowMillis);
+}
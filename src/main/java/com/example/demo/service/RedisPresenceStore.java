@@ -0,0 +1,359 @@
+package com.example.demo.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.RedisZSetCommands;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Redis 在线状态存储，多实例共享
+ * - {prefix}sessions：有序集合，成员为会话ID，分数为最后访问时间，在线人数即 ZCARD
+ * - {prefix}info：哈希，会话ID -> 会话信息（JSON）
+ * - {prefix}users：哈希，用户ID -> 会话ID，同一用户只保留最近一次登录的会话
+ *
+ * 登录用 MULTI/EXEC 一次完成读取旧会话和写入新会话；
+ * 访问时间先在本地合并，由 {@link #expire} 定期用一个管道批量 ZADD XX 写入；
+ * 过期会话按分数范围分批取出，ZREM 成功的实例负责后续清理，多个实例同时执行不会重复下线。
+ */
+@Slf4j
+public class RedisPresenceStore implements PresenceStore {
+
+    // 每批处理的过期会话数
+    private static final int EXPIRE_BATCH_SIZE = 500;
+
+    // 每次最多处理的批数，剩余的留到下一轮
+    private static final int EXPIRE_MAX_BATCHES = 20;
+
+    private final StringRedisTemplate redisTemplate;
+
+    private final ObjectMapper objectMapper;
+
+    private final long timeoutMillis;
+
+    private final String sessionsKey;
+
+    private final String infoKey;
+
+    private final String usersKey;
+
+    // 尚未写入 Redis 的访问时间
+    private final Map<String, Long> pendingTouches = new ConcurrentHashMap<>();
+
+    // 本实例已确认仍在线的会话，访问时只合并到 pendingTouches
+    private final Set<String> knownSessions = ConcurrentHashMap.newKeySet();
+
+    public RedisPresenceStore(StringRedisTemplate redisTemplate, ObjectMapper objectMapper,
+                              long timeoutMillis, String keyPrefix) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.timeoutMillis = timeoutMillis;
+        this.sessionsKey = keyPrefix + "sessions";
+        this.infoKey = keyPrefix + "info";
+        this.usersKey = keyPrefix + "users";
+    }
+
+    @Override
+    public String name() {
+        return "redis";
+    }
+
+    @Override
+    public OnlineSession login(OnlineSession session) {
+        String sessionId = session.sessionId();
+        String userId = String.valueOf(session.userId());
+        String info = serialize(session);
+
+        // 读取旧会话和写入新会话放在同一个事务里，同一用户并发登录时不会漏掉被替换的会话
+        List<Object> results = redisTemplate.execute(new SessionCallback<List<Object>>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> List<Object> execute(RedisOperations<K, V> operations) {
+                RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                ops.multi();
+                ops.opsForHash().get(usersKey, userId);
+                ops.opsForHash().put(infoKey, sessionId, info);
+                ops.opsForZSet().add(sessionsKey, sessionId, session.lastAccessMillis());
+                ops.opsForHash().put(usersKey, userId, sessionId);
+                return ops.exec();
+            }
+        });
+        knownSessions.add(sessionId);
+
+        String previousSessionId = results != null && !results.isEmpty() ? (String) results.get(0) : null;
+        if (previousSessionId != null && !previousSessionId.equals(sessionId)) {
+            return logout(previousSessionId);
+        }
+        return null;
+    }
+
+    @Override
+    public OnlineSession logout(String sessionId) {
+        pendingTouches.remove(sessionId);
+        knownSessions.remove(sessionId);
+        List<Object> results = pipelined(connection -> {
+            connection.zScore(sessionsKey, sessionId);
+            connection.zRem(sessionsKey, sessionId);
+            connection.hGet(infoKey, sessionId);
+            connection.hDel(infoKey, sessionId);
+        });
+        if (!isRemoved(results.get(1)) || results.get(2) == null) {
+            return null;
+        }
+        Double score = (Double) results.get(0);
+        OnlineSession session = deserialize(sessionId, (String) results.get(2), score != null ? score.longValue() : 0L);
+        if (session != null) {
+            removeUserMapping(List.of(session));
+        }
+        return session;
+    }
+
+    @Override
+    public List<OnlineSession> logoutByUsername(String username) {
+        List<OnlineSession> removed = new ArrayList<>();
+        Map<Object, Object> entries = redisTemplate.opsForHash().entries(infoKey);
+        for (Map.Entry<Object, Object> entry : entries.entrySet()) {
+            OnlineSession session = deserialize((String) entry.getKey(), (String) entry.getValue(), 0L);
+            if (session != null && username.equals(session.username())) {
+                OnlineSession loggedOut = logout(session.sessionId());
+                if (loggedOut != null) {
+                    removed.add(loggedOut);
+                }
+            }
+        }
+        return removed;
+    }
+
+    // 已确认在线的会话只记录在本地，下一次 expire 时批量写入；
+    // 未确认的会话立即 ZADD XX 并读回分数，不在有序集合中的会话返回false且不会被重新加入
+    @Override
+    public boolean touch(String sessionId, long nowMillis) {
+        if (knownSessions.contains(sessionId)) {
+            pendingTouches.merge(sessionId, nowMillis, Math::max);
+            return true;
+        }
+        List<Object> results = pipelined(connection -> {
+            connection.zAdd(sessionsKey, nowMillis, sessionId, RedisZSetCommands.ZAddArgs.ifExists());
+            connection.zScore(sessionsKey, sessionId);
+        });
+        if (results.get(1) == null) {
+            return false;
+        }
+        knownSessions.add(sessionId);
+        return true;
+    }
+
+    @Override
+    public int count() {
+        Long count = redisTemplate.opsForZSet().zCard(sessionsKey);
+        return count != null ? count.intValue() : 0;
+    }
+
+    @Override
+    public Optional<OnlineSession> get(String sessionId) {
+        List<Object> results = pipelined(connection -> {
+            connection.zScore(sessionsKey, sessionId);
+            connection.hGet(infoKey, sessionId);
+        });
+        Double score = (Double) results.get(0);
+        if (score == null || results.get(1) == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(deserialize(sessionId, (String) results.get(1), score.longValue()));
+    }
+
+    @Override
+    public List<OnlineSession> list() {
+        Set<StringRedisConnection.StringTuple> tuples = redisTemplate.execute((RedisCallback<Set<StringRedisConnection.StringTuple>>)
+                connection -> ((StringRedisConnection) connection).zRevRangeWithScores(sessionsKey, 0, -1));
+        if (tuples == null || tuples.isEmpty()) {
+            return List.of();
+        }
+        List<String> sessionIds = new ArrayList<>(tuples.size());
+        List<Long> scores = new ArrayList<>(tuples.size());
+        for (StringRedisConnection.StringTuple tuple : tuples) {
+            sessionIds.add(tuple.getValueAsString());
+            scores.add(tuple.getScore().longValue());
+        }
+        List<Object> infos = redisTemplate.opsForHash().multiGet(infoKey, new ArrayList<>(sessionIds));
+        List<OnlineSession> sessions = new ArrayList<>(sessionIds.size());
+        for (int i = 0; i < sessionIds.size(); i++) {
+            OnlineSession session = deserialize(sessionIds.get(i), (String) infos.get(i), scores.get(i));
+            if (session != null) {
+                sessions.add(session);
+            }
+        }
+        return sessions;
+    }
+
+    @Override
+    public List<OnlineSession> expire(long nowMillis) {
+        flushTouches();
+
+        List<OnlineSession> expired = new ArrayList<>();
+        double maxScore = nowMillis - timeoutMillis;
+        for (int batch = 0; batch < EXPIRE_MAX_BATCHES; batch++) {
+            Set<ZSetOperations.TypedTuple<String>> candidates = redisTemplate.opsForZSet()
+                    .rangeByScoreWithScores(sessionsKey, Double.NEGATIVE_INFINITY, maxScore, 0, EXPIRE_BATCH_SIZE);
+            if (candidates == null || candidates.isEmpty()) {
+                break;
+            }
+            List<String> sessionIds = new ArrayList<>(candidates.size());
+            Map<String, Long> lastAccess = new LinkedHashMap<>();
+            for (ZSetOperations.TypedTuple<String> candidate : candidates) {
+                sessionIds.add(candidate.getValue());
+                lastAccess.put(candidate.getValue(), candidate.getScore() != null ? candidate.getScore().longValue() : 0L);
+            }
+
+            // 逐个 ZREM，返回1的会话由本实例负责清理
+            List<Object> removedFlags = pipelined(connection -> {
+                for (String sessionId : sessionIds) {
+                    connection.zRem(sessionsKey, sessionId);
+                }
+            });
+            List<String> removedIds = new ArrayList<>();
+            for (int i = 0; i < sessionIds.size(); i++) {
+                if (isRemoved(removedFlags.get(i))) {
+                    removedIds.add(sessionIds.get(i));
+                }
+            }
+            if (!removedIds.isEmpty()) {
+                expired.addAll(removeInfos(removedIds, lastAccess));
+            }
+            if (sessionIds.size() < EXPIRE_BATCH_SIZE) {
+                break;
+            }
+        }
+        return expired;
+    }
+
+    // 一个管道写入所有合并后的访问时间；XX 只更新仍在线的会话，已下线的不会被重新加入。
+    // CH 返回0说明会话已被其他实例下线（或分数未变），从已确认集合中移除，下次访问时重新确认
+    private void flushTouches() {
+        if (pendingTouches.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<String, Long>> batch = pendingTouches.entrySet().stream()
+                .map(entry -> Map.entry(entry.getKey(), entry.getValue()))
+                .toList();
+        RedisZSetCommands.ZAddArgs args = RedisZSetCommands.ZAddArgs.ifExists().ch();
+        List<Object> changed = pipelined(connection -> {
+            for (Map.Entry<String, Long> entry : batch) {
+                connection.zAdd(sessionsKey, entry.getValue(), entry.getKey(), args);
+            }
+        });
+        for (int i = 0; i < batch.size(); i++) {
+            Map.Entry<String, Long> entry = batch.get(i);
+            pendingTouches.remove(entry.getKey(), entry.getValue());
+            if (!isChanged(changed.get(i))) {
+                knownSessions.remove(entry.getKey());
+            }
+        }
+    }
+
+    private List<OnlineSession> removeInfos(List<String> sessionIds, Map<String, Long> lastAccess) {
+        String[] fields = sessionIds.toArray(new String[0]);
+        List<Object> results = pipelined(connection -> {
+            connection.hMGet(infoKey, fields);
+            connection.hDel(infoKey, fields);
+        });
+        @SuppressWarnings("unchecked")
+        List<String> infos = (List<String>) results.get(0);
+        List<OnlineSession> sessions = new ArrayList<>(sessionIds.size());
+        for (int i = 0; i < sessionIds.size(); i++) {
+            pendingTouches.remove(sessionIds.get(i));
+            knownSessions.remove(sessionIds.get(i));
+            OnlineSession session = deserialize(sessionIds.get(i), infos.get(i), lastAccess.get(sessionIds.get(i)));
+            if (session != null) {
+                sessions.add(session);
+            }
+        }
+        removeUserMapping(sessions);
+        return sessions;
+    }
+
+    // 只删除仍指向这些会话的用户映射，用户已在其他会话重新登录时保留
+    private void removeUserMapping(List<OnlineSession> sessions) {
+        if (sessions.isEmpty()) {
+            return;
+        }
+        String[] userIds = sessions.stream().map(session -> String.valueOf(session.userId())).toArray(String[]::new);
+        List<Object> current = redisTemplate.opsForHash().multiGet(usersKey, List.of((Object[]) userIds));
+        List<String> stale = new ArrayList<>();
+        for (int i = 0; i < sessions.size(); i++) {
+            if (sessions.get(i).sessionId().equals(current.get(i))) {
+                stale.add(userIds[i]);
+            }
+        }
+        if (!stale.isEmpty()) {
+            redisTemplate.opsForHash().delete(usersKey, stale.toArray());
+        }
+    }
+
+    private List<Object> pipelined(PipelineAction action) {
+        return redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            action.execute((StringRedisConnection) connection);
+            return null;
+        });
+    }
+
+    private static boolean isRemoved(Object result) {
+        return result instanceof Long count && count > 0;
+    }
+
+    private static boolean isChanged(Object result) {
+        return Boolean.TRUE.equals(result) || isRemoved(result);
+    }
+
+    private String serialize(OnlineSession session) {
+        Map<String, Object> info = new LinkedHashMap<>();
+        info.put("userId", session.userId());
+        info.put("username", session.username());
+        info.put("ipAddress", session.ipAddress());
+        info.put("userAgent", session.userAgent());
+        info.put("loginMillis", session.loginMillis());
+        try {
+            return objectMapper.writeValueAsString(info);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private OnlineSession deserialize(String sessionId, String json, long lastAccessMillis) {
+        if (json == null) {
+            return null;
+        }
+        try {
+            Map<?, ?> info = objectMapper.readValue(json, Map.class);
+            long loginMillis = ((Number) info.get("loginMillis")).longValue();
+            return new OnlineSession(sessionId,
+                    ((Number) info.get("userId")).longValue(),
+                    (String) info.get("username"),
+                    (String) info.get("ipAddress"),
+                    (String) info.get("userAgent"),
+                    loginMillis,
+                    lastAccessMillis > 0 ? lastAccessMillis : loginMillis);
+        } catch (JsonProcessingException | RuntimeException e) {
+            log.warn("在线会话信息格式错误: session={}, error={}", sessionId, e.getMessage());
+            return null;
+        }
+    }
+
+    @FunctionalInterface
+    private interface PipelineAction {
+        void execute(StringRedisConnection connection);
+    }
+}
@@ -1,14 +1,20 @@
 package com.example.demo.service;
 
+import com.example.demo.common.cache.TwoTierCache;
+import com.example.demo.common.cache.TwoTierCacheManager;
 import com.example.demo.entity.Role;
 import com.example.demo.entity.RoleMenu;
 import com.example.demo.repository.MenuRepository;
 import com.example.demo.repository.RoleMenuRepository;
 import com.example.demo.repository.RoleRepository;
+import com.example.demo.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
 import jakarta.annotation.Resource;
 import jakarta.persistence.criteria.Predicate;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
@@ -37,10 +43,46 @@ public class RoleService {
     @Resource
     private MenuRepository menuRepository;
 
+    @Resource
+    private UserRepository userRepository;
+
+    @Resource
+    private TokenEpochService tokenEpochService;
+
+    @Resource
+    private UserPrincipalCache userPrincipalCache;
+
+    @Resource
+    private MenuTreeCache menuTreeCache;
+
+    @Resource
+    private TwoTierCacheManager twoTierCacheManager;
+
+    @Value("${app.cache.tier.role-page.max-entries:200}")
+    private int rolePageMaxEntries;
+
+    @Value("${app.cache.tier.role-page.ttl-seconds:300}")
+    private long rolePageTtlSeconds;
+
+    // 角色分页结果，角色增删改时整体失效
+    private TwoTierCache<RolePage> rolePageCache;
+
+    @PostConstruct
+    public void init() {
+        rolePageCache = twoTierCacheManager.create("rolePage", RolePage.class,
+                rolePageMaxEntries, rolePageTtlSeconds, true);
+    }
+
     // 分页查询角色
     public Page<Role> getRolesByPage(int page, int size, String keyword) {
         Pageable pageable = PageRequest.of(page - 1, size, Sort.by(Sort.Direction.DESC, "createTime"));
 
+        String key = page + ":" + size + ":" + (StringUtils.hasText(keyword) ? keyword : "");
+        RolePage cached = rolePageCache.get(key, () -> loadRolesByPage(pageable, keyword));
+        return new PageImpl<>(cached.content(), pageable, cached.total());
+    }
+
+    private RolePage loadRolesByPage(Pageable pageable, String keyword) {
         Page<Role> rolePage;
         if (StringUtils.hasText(keyword)) {
             Specification<Role> spec = (root, query, cb) -> {
@@ -58,7 +100,7 @@ public class RoleService {
         // 为分页结果设置菜单权限
         setMenuPermissionsForRoles(rolePage.getContent());
 
-        return rolePage;
+        return new RolePage(rolePage.getContent(), rolePage.getTotalElements());
     }
 
     // 如果菜单权限存储的是菜单ID而不是代码
@@ -139,6 +181,8 @@ public class RoleService {
 
         // 保存菜单权限
         saveRoleMenus(savedRole.getId(), role.getMenuPermissions());
+        menuTreeCache.invalidate();
+        rolePageCache.clear();
 
         return savedRole;
     }
@@ -153,6 +197,9 @@ public class RoleService {
             throw new RuntimeException("角色代码已存在");
         }
 
+        // 角色变更后，持有该角色的用户需要重新登录以获取新的权限
+        String previousCode = existingRole.getCode();
+
         existingRole.setName(role.getName());
         existingRole.setCode(role.getCode());
         existingRole.setDescription(role.getDescription());
@@ -163,6 +210,12 @@ public class RoleService {
 
         // 更新菜单权限（先删除旧的，再保存新的）
         saveRoleMenus(id, role.getMenuPermissions());
+        menuTreeCache.invalidate();
+        rolePageCache.clear();
+
+        List<Long> affectedUserIds = userRepository.findIdsByRoleCode(previousCode);
+        userPrincipalCache.invalidate(affectedUserIds);
+        tokenEpochService.revokeAll(affectedUserIds);
 
         return updatedRole;
     }
@@ -174,6 +227,8 @@ public class RoleService {
         roleMenuRepository.deleteByRoleId(id);
         // 再删除角色
         roleRepository.deleteById(id);
+        menuTreeCache.invalidate();
+        rolePageCache.clear();
     }
 
     // 批量删除角色
@@ -183,6 +238,8 @@ public class RoleService {
         roleMenuRepository.deleteByRoleIdIn(ids);
         // 再批量删除角色
         roleRepository.deleteAllById(ids);
+        menuTreeCache.invalidate();
+        rolePageCache.clear();
     }
 
     // 检查角色代码是否存在
@@ -209,20 +266,6 @@ public class RoleService {
         return roleOptional;
     }
 
-    // 在 RoleService.java 中添加方法
-    private List<Long> getAuthorizedMenuIdsByRole(String roleCode) {
-        // 根据角色代码找到角色ID
-        Optional<Role> role = roleRepository.findByCode(roleCode);
-        if (role == null) {
-            return new ArrayList<>();
-        }
-
-        // 根据角色ID查询菜单权限
-        List<RoleMenu> roleMenus = roleMenuRepository.findByRoleId(role.orElseThrow().getId());
-
-        return roleMenus.stream()
-                .map(roleMenu -> Long.valueOf(roleMenu.getMenuCode()))
-                .collect(Collectors.toList());
+    private record RolePage(List<Role> content, long total) {
     }
-
-}
\ No newline at end of file
+}
@@ -0,0 +1,112 @@
+package com.example.demo.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 在线用户最后访问时间的合并写入
+ * 每个请求只更新内存中的 会话ID -> 最后访问时间，后台定期把有变化的会话批量写回 online_users，
+ * 同一会话在一个周期内的多次访问只写一次库。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SessionAccessTracker {
+
+    private static final String UPDATE_SQL = "UPDATE online_users SET last_access_time = ? WHERE session_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // 上次写库之后有访问的会话 -> 最后访问时间（毫秒）
+    private final Map<String, Long> pending = new ConcurrentHashMap<>();
+
+    // 监控指标
+    private final LongAdder touchCount = new LongAdder();
+    private final LongAdder writtenCount = new LongAdder();
+    private final LongAdder flushCount = new LongAdder();
+    private final LongAdder failedFlushCount = new LongAdder();
+    private volatile long lastFlushMillis;
+
+    /**
+     * 记录一次访问，只更新内存
+     */
+    public void touch(String sessionId) {
+        if (sessionId == null) {
+            return;
+        }
+        pending.merge(sessionId, System.currentTimeMillis(), Math::max);
+        touchCount.increment();
+    }
+
+    /**
+     * 会话已删除，丢弃尚未写库的访问时间
+     */
+    public void forget(String sessionId) {
+        if (sessionId != null) {
+            pending.remove(sessionId);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.online-user.access-flush-interval-ms:5000}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<String, Long>> batch = new ArrayList<>(pending.size());
+        for (Map.Entry<String, Long> entry : pending.entrySet()) {
+            batch.add(Map.entry(entry.getKey(), entry.getValue()));
+        }
+
+        long start = System.nanoTime();
+        try {
+            jdbcTemplate.batchUpdate(UPDATE_SQL, batch, batch.size(), (ps, entry) -> {
+                ps.setTimestamp(1, new Timestamp(entry.getValue()));
+                ps.setString(2, entry.getKey());
+            });
+            // 写库期间又有新访问的会话保留到下一轮
+            for (Map.Entry<String, Long> entry : batch) {
+                pending.remove(entry.getKey(), entry.getValue());
+            }
+            writtenCount.add(batch.size());
+        } catch (DataAccessException e) {
+            failedFlushCount.increment();
+            log.warn("写入在线用户访问时间失败，下次重试: {}", e.getMessage());
+        } finally {
+            flushCount.increment();
+            lastFlushMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    /**
+     * 获取写入运行指标
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("pending", pending.size());
+        metrics.put("touches", touchCount.sum());
+        metrics.put("written", writtenCount.sum());
+        metrics.put("flushes", flushCount.sum());
+        metrics.put("failedFlushes", failedFlushCount.sum());
+        metrics.put("lastFlushMillis", lastFlushMillis);
+        return metrics;
+    }
+}
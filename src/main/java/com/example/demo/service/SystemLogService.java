@@ -1,21 +1,34 @@
 package com.example.demo.service;
 
+import com.example.demo.common.pagination.KeysetCursor;
+import com.example.demo.dto.CursorPage;
 import com.example.demo.entity.SystemLog;
 import com.example.demo.repository.SystemLogRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
 import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
@@ -24,6 +37,14 @@ public class SystemLogService {
 
     private final SystemLogRepository systemLogRepository;
 
+    private final EntityManager entityManager;
+
+    // 键集分页排序：日志时间倒序，相同时间按ID倒序
+    private static final Sort KEYSET_SORT = Sort.by(Sort.Order.desc("timestamp"), Sort.Order.desc("id"));
+
+    @Value("${app.export.fetch-size:500}")
+    private int exportFetchSize;
+
     @Async
     public void saveSystemLog(SystemLog systemLog) {
         try {
@@ -74,6 +95,35 @@ public class SystemLogService {
         return systemLogRepository.findAll(spec, pageable);
     }
 
+    /**
+     * 游标分页查询（不统计总数，翻到任意深度的代价都与第一页相同）
+     *
+     * @param cursor 上一页返回的 nextCursor，第一页传空
+     * @throws IllegalArgumentException 游标格式不正确
+     */
+    public CursorPage<SystemLog> getSystemLogsByCursor(String cursor, int size, String level, String service,
+                                                       String module, String username,
+                                                       LocalDateTime startTime, LocalDateTime endTime) {
+        Specification<SystemLog> spec = buildSystemLogSpecification(level, service, module,
+                username, startTime, endTime);
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        if (after != null && after.time() == null) {
+            throw new IllegalArgumentException("无效的分页游标");
+        }
+        if (after != null) {
+            spec = spec.and(keysetAfter(after));
+        }
+        List<SystemLog> rows = systemLogRepository.findBy(spec, q -> q.sortBy(KEYSET_SORT).limit(size + 1).all());
+        return CursorPage.of(rows, size, row -> new KeysetCursor(row.getTimestamp(), row.getId()));
+    }
+
+    // 键集条件：排在 (timestamp, id) 之后的记录（timestamp 非空）
+    private Specification<SystemLog> keysetAfter(KeysetCursor cursor) {
+        return (root, query, cb) -> cb.or(
+                cb.lessThan(root.get("timestamp"), cursor.time()),
+                cb.and(cb.equal(root.get("timestamp"), cursor.time()), cb.lessThan(root.get("id"), cursor.id())));
+    }
+
     // 构建查询条件
     private Specification<SystemLog> buildSystemLogSpecification(String level, String service,
                                                                  String module, String username,
@@ -125,11 +175,37 @@ public class SystemLogService {
         systemLogRepository.deleteAll();
     }
 
-    public List<SystemLog> getLogsForExport(String level, String service, String module,
-                                            String username, LocalDateTime startTime,
-                                            LocalDateTime endTime) {
+    /**
+     * 流式读取导出数据，逐行回调，不把结果集整体加载到内存
+     * 回调在只读事务内执行，每行处理完立即从持久化上下文中移除
+     *
+     * @return 读取的行数
+     */
+    @Transactional(readOnly = true)
+    public long streamLogsForExport(String level, String service, String module,
+                                    String username, LocalDateTime startTime,
+                                    LocalDateTime endTime, Consumer<SystemLog> consumer) {
         Specification<SystemLog> spec = buildSystemLogSpecification(level, service, module,
                 username, startTime, endTime);
-        return systemLogRepository.findAll(spec);
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<SystemLog> criteria = cb.createQuery(SystemLog.class);
+        Root<SystemLog> root = criteria.from(SystemLog.class);
+        criteria.where(spec.toPredicate(root, criteria, cb));
+
+        TypedQuery<SystemLog> query = entityManager.createQuery(criteria)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, exportFetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .setHint(HibernateHints.HINT_CACHEABLE, false);
+
+        long count = 0;
+        try (Stream<SystemLog> stream = query.getResultStream()) {
+            for (SystemLog systemLog : (Iterable<SystemLog>) stream::iterator) {
+                consumer.accept(systemLog);
+                entityManager.detach(systemLog);
+                count++;
+            }
+        }
+        return count;
     }
 }
\ No newline at end of file
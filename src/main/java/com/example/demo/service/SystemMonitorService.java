@@ -7,6 +7,7 @@ import com.example.demo.repository.SystemInfoRepository;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -29,6 +30,11 @@ public class SystemMonitorService {
     private final SystemHealthService systemHealthService;
     private final VersionService versionService;
     private final SystemLogService systemLogService;
+    private final OnlineUserRegistry onlineUserRegistry;
+
+    // 离线会话历史记录保留天数
+    @Value("${app.online-user.history-retention-days:30}")
+    private int historyRetentionDays;
 
     // 系统启动时初始化系统信息
     @PostConstruct
@@ -135,29 +141,14 @@ public class SystemMonitorService {
 
     // 获取在线用户数量
     public Integer getOnlineUserCount() {
-        return (int) onlineUserRepository.countByIsActiveTrue();
+        return onlineUserRegistry.count();
     }
 
     // 用户登录时记录在线用户
-    @Transactional
     public void userLogin(Long userId, String username, String sessionId, String ipAddress, String userAgent) {
         try {
-            // 先清理该用户可能存在的旧会话（避免重复登录）
-            onlineUserRepository.findByUserId(userId).ifPresent(onlineUser -> {
-                onlineUserRepository.delete(onlineUser);
-                log.info("清理用户 {} 的旧会话", username);
-            });
-
-            OnlineUser onlineUser = new OnlineUser();
-            onlineUser.setSessionId(sessionId);
-            onlineUser.setUserId(userId);
-            onlineUser.setUsername(username);
-            onlineUser.setIpAddress(ipAddress);
-            onlineUser.setUserAgent(userAgent);
-            onlineUser.setIsActive(true);
-            onlineUser.setLastAccessTime(LocalDateTime.now()); // 设置初始访问时间
-
-            onlineUserRepository.save(onlineUser);
+            // 同一用户之前的会话会被下线（避免重复登录）
+            onlineUserRegistry.login(userId, username, sessionId, ipAddress, userAgent);
             log.info("用户 {} 登录系统，IP: {}", username, ipAddress);
             systemLogService.logInfo("用户服务",
                     String.format("用户 %s 登录系统", username));
@@ -167,22 +158,18 @@ public class SystemMonitorService {
     }
 
     // 用户退出时移除在线用户
-    @Transactional
     public void userLogout(String sessionId) {
         try {
-            // 通过sessionId查找
-            Optional<OnlineUser> onlineUserOpt = onlineUserRepository.findById(sessionId);
-            OnlineUser onlineUser = onlineUserOpt.get();
-            if (onlineUserOpt.isPresent()) {
-                onlineUserRepository.delete(onlineUser);
+            OnlineUser onlineUser = onlineUserRegistry.logout(sessionId);
+            if (onlineUser != null) {
                 log.info("用户 {} 通过会话退出系统，会话ID: {}", onlineUser.getUsername(), sessionId);
+                systemLogService.logInfo("用户服务",
+                        String.format("用户 %s 退出系统", onlineUser.getUsername()));
             } else {
                 log.warn("未找到会话ID对应的在线用户: {}", sessionId);
                 // 通过当前请求的用户信息来清理
                 cleanupByCurrentUser();
             }
-            systemLogService.logInfo("用户服务",
-                    String.format("用户 %s 退出系统", onlineUser.getUsername()));
         } catch (Exception e) {
             log.error("移除在线用户失败: {}", e.getMessage());
         }
@@ -197,10 +184,9 @@ public class SystemMonitorService {
                 String username = authentication.getName();
 
                 // 通过用户名查找并清理
-                List<OnlineUser> userSessions = onlineUserRepository.findByUsername(username);
-                if (!userSessions.isEmpty()) {
-                    onlineUserRepository.deleteAll(userSessions);
-                    log.info("通过用户认证信息清理了用户 {} 的 {} 个会话", username, userSessions.size());
+                int count = onlineUserRegistry.logoutByUsername(username);
+                if (count > 0) {
+                    log.info("通过用户认证信息清理了用户 {} 的 {} 个会话", username, count);
                 }
             }
         } catch (Exception e) {
@@ -212,32 +198,30 @@ public class SystemMonitorService {
      * 根据会话ID获取在线用户
      */
     public Optional<OnlineUser> getOnlineUserBySessionId(String sessionId) {
-        return onlineUserRepository.findById(sessionId);
+        return onlineUserRegistry.get(sessionId);
     }
 
     /**
      * 获取所有在线用户列表
      */
     public List<OnlineUser> getAllOnlineUsers() {
-        return onlineUserRepository.findByIsActiveTrue();
+        return onlineUserRegistry.list();
     }
 
-    // 更新用户最后访问时间
-    @Transactional
+    // 更新用户最后访问时间，只更新内存中的在线状态
     public void updateUserAccessTime(String sessionId) {
-        onlineUserRepository.updateLastAccessTime(sessionId, LocalDateTime.now());
+        onlineUserRegistry.touch(sessionId);
     }
 
-    // 定时清理过期会话（每5分钟执行一次）
+    // 过期会话由 OnlineUserRegistry 按最后访问时间逐个下线，这里只定期清理过旧的离线历史记录
     @Scheduled(fixedRate = 300000) // 5分钟
-    @Transactional
     public void cleanupExpiredSessions() {
-        LocalDateTime expireTime = LocalDateTime.now().minusMinutes(30); // 30分钟无活动视为过期
-        int deletedCount = onlineUserRepository.deleteByLastAccessTimeBefore(expireTime);
+        LocalDateTime before = LocalDateTime.now().minusDays(historyRetentionDays);
+        int deletedCount = onlineUserRepository.deleteInactiveBefore(before);
         if (deletedCount > 0) {
             systemLogService.logInfo("会话管理",
-                    String.format("清理了 %d 个过期会话", deletedCount));
-            log.info("清理了 {} 个过期会话", deletedCount);
+                    String.format("清理了 %d 条过期会话记录", deletedCount));
+            log.info("清理了 {} 条过期会话记录", deletedCount);
         }
     }
 
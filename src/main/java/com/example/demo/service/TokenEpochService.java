@@ -0,0 +1,172 @@
+package com.example.demo.service;
+
+import com.example.demo.common.cache.CacheInvalidationBus;
+import com.example.demo.common.security.JwtClaims;
+import com.example.demo.common.util.LongLongHashMap;
+import com.example.demo.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * 用户token版本号
+ * token中携带签发时用户的版本号(tep)，校验时与内存中的 userId -> 版本号 表比对，不一致即失效。
+ * 修改密码、删除用户、角色变更时只需递增版本号，即可一次性注销该用户的所有token，
+ * 不需要逐个加入黑名单。表项按需从数据库加载，每次校验只是一次基本类型哈希表查询。
+ * 多实例部署时注销通过 {@link CacheInvalidationBus} 通知其他实例从数据库刷新对应表项。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TokenEpochService {
+
+    static final String CACHE_NAME = "tokenEpoch";
+
+    // 未加载标记
+    private static final long MISSING = -1L;
+
+    // 用户不存在或已禁用，任何token都不匹配
+    private static final long REVOKED = Long.MAX_VALUE;
+
+    private final UserRepository userRepository;
+
+    private final CacheInvalidationBus cacheInvalidationBus;
+
+    private final LongLongHashMap epochs = new LongLongHashMap(1024);
+
+    private final StampedLock lock = new StampedLock();
+
+    // 整表清空的次数，懒加载期间发生过清空时不写入查询结果，避免清空前读到的旧版本号被缓存
+    private long generation;
+
+    @PostConstruct
+    public void init() {
+        cacheInvalidationBus.subscribe(CACHE_NAME, this::onRemoteRevoke);
+    }
+
+    /**
+     * token中的版本号是否仍是该用户的当前版本
+     */
+    public boolean isCurrent(JwtClaims claims) {
+        Long userId = claims.getUserId();
+        return userId != null && claims.getTokenEpoch() == currentEpoch(userId);
+    }
+
+    /**
+     * 获取用户当前的token版本号，首次访问时从数据库加载
+     */
+    public long currentEpoch(long userId) {
+        long stamp = lock.tryOptimisticRead();
+        long epoch = epochs.get(userId, MISSING);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                epoch = epochs.get(userId, MISSING);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return epoch != MISSING ? epoch : load(userId);
+    }
+
+    /**
+     * 注销用户的所有token
+     */
+    public void revokeAll(Long userId) {
+        revokeAll(List.of(userId));
+    }
+
+    /**
+     * 注销多个用户的所有token
+     * 在事务中调用时，内存表在事务提交后才刷新，回滚不会留下错误的版本号
+     */
+    public void revokeAll(Collection<Long> userIds) {
+        if (userIds == null || userIds.isEmpty()) {
+            return;
+        }
+        userRepository.incrementTokenEpoch(userIds);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    refresh(userIds);
+                    publish(userIds);
+                }
+            });
+        } else {
+            refresh(userIds);
+            publish(userIds);
+        }
+        log.info("已注销用户的全部token: userIds={}", userIds);
+    }
+
+    // 多个用户时让其他实例清空整表，与用户快照缓存的做法一致
+    private void publish(Collection<Long> userIds) {
+        cacheInvalidationBus.publish(CACHE_NAME, userIds.size() == 1 ? String.valueOf(userIds.iterator().next()) : null);
+    }
+
+    // 其他实例注销了token，数据库已提交，单个用户直接刷新，多个用户清空整表后按需重新加载
+    private void onRemoteRevoke(String key) {
+        if (key != null) {
+            refresh(List.of(Long.valueOf(key)));
+            return;
+        }
+        long stamp = lock.writeLock();
+        try {
+            epochs.clear();
+            generation++;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // 以数据库中的最新值覆盖内存表项
+    private void refresh(Collection<Long> userIds) {
+        for (Long userId : userIds) {
+            long epoch = queryEpoch(userId);
+            long stamp = lock.writeLock();
+            try {
+                epochs.put(userId, epoch);
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+    }
+
+    // 懒加载时不覆盖已有表项，避免并发注销刚写入的新版本被旧值覆盖
+    private long load(long userId) {
+        long stamp = lock.readLock();
+        long loadGeneration;
+        try {
+            loadGeneration = generation;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+        long epoch = queryEpoch(userId);
+        stamp = lock.writeLock();
+        try {
+            long existing = epochs.get(userId, MISSING);
+            if (existing != MISSING) {
+                return existing;
+            }
+            if (generation == loadGeneration) {
+                epochs.put(userId, epoch);
+            }
+            return epoch;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private long queryEpoch(long userId) {
+        Long epoch = userRepository.findActiveTokenEpoch(userId);
+        return epoch != null ? epoch : REVOKED;
+    }
+}
@@ -0,0 +1,206 @@
+package com.example.demo.service;
+
+import com.example.demo.common.cache.BoundedExpiringCache;
+import com.example.demo.common.cache.CacheInvalidationBus;
+import com.example.demo.common.security.UserPrincipal;
+import com.example.demo.entity.Role;
+import com.example.demo.entity.User;
+import com.example.demo.repository.RoleRepository;
+import com.example.demo.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 用户信息快照缓存
+ * 按用户ID和用户名缓存 {@link UserPrincipal}，登录和个人资料查询命中缓存时不访问数据库。
+ * 修改用户、删除用户、修改角色时显式失效，TTL兜底其他途径的修改。
+ *
+ * 快照包含密码哈希，只缓存在本地，不写入 Redis；多实例部署时通过 {@link CacheInvalidationBus} 通知其他实例失效。
+ *
+ * 未命中时先记下失效代数再查库，写入缓存后代数已变化说明查库期间发生过失效，撤销写入，
+ * 避免失效前读到的旧快照在失效后被写回缓存。
+ */
+@Service
+@RequiredArgsConstructor
+public class UserPrincipalCache {
+
+    private static final String CACHE_NAME = "userPrincipal";
+
+    private final UserRepository userRepository;
+
+    private final RoleRepository roleRepository;
+
+    private final CacheInvalidationBus cacheInvalidationBus;
+
+    @Value("${app.security.principal-cache.max-size:10000}")
+    private int maxSize;
+
+    @Value("${app.security.principal-cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    private BoundedExpiringCache<Long, UserPrincipal> byId;
+
+    // 用户名 -> 用户ID，快照只在 byId 中保存一份
+    private BoundedExpiringCache<String, Long> idByUsername;
+
+    // 每次失效（先于清除缓存）加1
+    private final AtomicLong generation = new AtomicLong();
+
+    // 监控指标
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder invalidationCount = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        byId = new BoundedExpiringCache<>(maxSize);
+        idByUsername = new BoundedExpiringCache<>(maxSize);
+        cacheInvalidationBus.subscribe(CACHE_NAME, this::onRemoteInvalidation);
+    }
+
+    /**
+     * 按用户ID获取快照，用户不存在时返回null
+     */
+    public UserPrincipal getById(Long userId) {
+        if (userId == null) {
+            return null;
+        }
+        UserPrincipal cached = byId.get(userId);
+        if (cached != null) {
+            hitCount.increment();
+            return cached;
+        }
+        missCount.increment();
+        long loadGeneration = generation.get();
+        return userRepository.findById(userId).map(user -> load(user, loadGeneration)).orElse(null);
+    }
+
+    /**
+     * 按用户名获取快照，用户不存在时返回null
+     */
+    public UserPrincipal getByUsername(String username) {
+        if (username == null) {
+            return null;
+        }
+        Long userId = idByUsername.get(username);
+        UserPrincipal cached = userId != null ? byId.get(userId) : null;
+        if (cached != null && username.equals(cached.username())) {
+            hitCount.increment();
+            return cached;
+        }
+        missCount.increment();
+        long loadGeneration = generation.get();
+        User user = userRepository.findByUsername(username);
+        return user != null ? load(user, loadGeneration) : null;
+    }
+
+    public void invalidate(Long userId) {
+        invalidate(List.of(userId));
+    }
+
+    /**
+     * 失效指定用户的快照，并通知其他实例
+     * 在事务中调用时，事务结束后再失效一次并通知，避免事务提交前被其他请求用旧数据重新加载
+     */
+    public void invalidate(Collection<Long> userIds) {
+        if (userIds == null || userIds.isEmpty()) {
+            return;
+        }
+        evict(userIds);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict(userIds);
+                    publish(userIds);
+                }
+            });
+        } else {
+            publish(userIds);
+        }
+    }
+
+    /**
+     * 获取缓存运行指标
+     */
+    public Map<String, Object> getMetrics() {
+        long hits = hitCount.sum();
+        long misses = missCount.sum();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("size", byId.size());
+        metrics.put("hits", hits);
+        metrics.put("misses", misses);
+        metrics.put("hitRate", hits + misses == 0 ? 0.0 : (double) hits / (hits + misses));
+        metrics.put("invalidations", invalidationCount.sum());
+        return metrics;
+    }
+
+    // 多个用户（如修改角色）时让其他实例清空整个缓存，避免逐个发送消息
+    private void publish(Collection<Long> userIds) {
+        cacheInvalidationBus.publish(CACHE_NAME, userIds.size() == 1 ? String.valueOf(userIds.iterator().next()) : null);
+    }
+
+    private void onRemoteInvalidation(String key) {
+        if (key == null) {
+            generation.incrementAndGet();
+            byId.clear();
+            idByUsername.clear();
+            invalidationCount.increment();
+        } else {
+            evict(List.of(Long.valueOf(key)));
+        }
+    }
+
+    private void evict(Collection<Long> userIds) {
+        generation.incrementAndGet();
+        for (Long userId : userIds) {
+            UserPrincipal cached = byId.get(userId);
+            byId.invalidate(userId);
+            if (cached != null) {
+                idByUsername.invalidate(cached.username());
+            }
+            invalidationCount.increment();
+        }
+    }
+
+    private UserPrincipal load(User user, long loadGeneration) {
+        Optional<Role> role = user.getRoleCode() != null ? roleRepository.findByCode(user.getRoleCode()) : Optional.empty();
+        UserPrincipal principal = new UserPrincipal(
+                user.getId(),
+                user.getUsername(),
+                user.getPassword(),
+                user.getName(),
+                user.getEmail(),
+                user.getPhone(),
+                user.getNickname(),
+                user.getDepartment(),
+                user.getPosition(),
+                user.getEnabled(),
+                user.getRoleCode(),
+                role.map(Role::getName).orElse("用户"),
+                role.isPresent(),
+                user.getCreateTime(),
+                user.getUpdateTime());
+
+        long expireAt = System.currentTimeMillis() + ttlSeconds * 1000;
+        byId.put(principal.id(), principal, expireAt);
+        idByUsername.put(principal.username(), principal.id(), expireAt);
+        if (generation.get() != loadGeneration) {
+            byId.invalidate(principal.id());
+            idByUsername.invalidate(principal.username());
+        }
+        return principal;
+    }
+}
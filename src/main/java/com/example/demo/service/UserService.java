@@ -1,12 +1,12 @@
 package com.example.demo.service;
 
 import com.example.demo.common.security.CustomUserDetails;
+import com.example.demo.common.security.PasswordHashingPool;
+import com.example.demo.common.security.UserPrincipal;
 import com.example.demo.dto.UserInfoDTO;
 import com.example.demo.entity.OperationLog;
-import com.example.demo.entity.Role;
 import com.example.demo.entity.User;
 import com.example.demo.repository.OperationLogRepository;
-import com.example.demo.repository.RoleRepository;
 import com.example.demo.repository.UserRepository;
 import jakarta.persistence.criteria.Predicate;
 import lombok.RequiredArgsConstructor;
@@ -15,7 +15,6 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
@@ -32,42 +31,37 @@ public class UserService {
 
     private final UserRepository userRepository;
     private final OperationLogRepository operationLogRepository;
-    private final RoleRepository roleRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingPool passwordHashingPool;
+    private final TokenEpochService tokenEpochService;
+    private final UserPrincipalCache userPrincipalCache;
+    private final UsernameFilter usernameFilter;
 
     public User findById(Long userId){
         return userRepository.findById(userId).orElse(null);
     }
 
     public UserInfoDTO getUserInfo(Long userId) {
-        User user = userRepository.findById(userId).orElse(null);
+        // 用户信息和角色名称从快照缓存读取，命中时不访问数据库
+        UserPrincipal user = userPrincipalCache.getById(userId);
         if (user == null) {
             return null;
         }
-        // 获取角色名称
-        String roleName = "用户";
-        if (user.getRoleCode() != null) {
-            Optional<Role> role = roleRepository.findByCode(user.getRoleCode());
-            if (role != null) {
-                roleName = role.orElseThrow().getName();
-            }
-        }
         UserInfoDTO dto = new UserInfoDTO(
-                user.getId(),
-                user.getUsername(),
-                user.getName(),
-                user.getRoleCode(),
-                user.getPassword(),
-                user.getEmail(),
-                user.getPhone(),
-                user.getNickname(),
-                user.getDepartment(),
-                user.getPosition(),
-                user.getEnabled(),
-                user.getCreateTime(),
-                user.getUpdateTime()
+                user.id(),
+                user.username(),
+                user.name(),
+                user.roleCode(),
+                user.password(),
+                user.email(),
+                user.phone(),
+                user.nickname(),
+                user.department(),
+                user.position(),
+                user.enabled(),
+                user.createTime(),
+                user.updateTime()
         );
-        dto.setRoleName(roleName);
+        dto.setRoleName(user.roleName());
         return dto;
     }
 
@@ -80,9 +74,11 @@ public class UserService {
         if (updatedUser.getName() != null) {
             user.setName(updatedUser.getName());
         }
+        boolean passwordChanged = false;
         if (updatedUser.getPassword() != null && !updatedUser.getPassword().isEmpty()) {
-            // 使用 PasswordEncoder 加密密码
-            user.setPassword(passwordEncoder.encode(updatedUser.getPassword()));
+            // 在密码哈希线程池中加密，繁忙时抛出 RejectedExecutionException
+            user.setPassword(passwordHashingPool.encode(updatedUser.getPassword()));
+            passwordChanged = true;
         }
         if (updatedUser.getNickname() != null) {
             user.setNickname(updatedUser.getNickname());
@@ -99,7 +95,13 @@ public class UserService {
         if (updatedUser.getPosition() != null) {
             user.setPosition(updatedUser.getPosition());
         }
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        userPrincipalCache.invalidate(userId);
+        // 修改密码后，之前签发的token全部失效
+        if (passwordChanged) {
+            tokenEpochService.revokeAll(userId);
+        }
+        return saved;
     }
 
     // 分页查询用户
@@ -132,17 +134,19 @@ public class UserService {
     // 批量删除用户
     public void deleteUsers(List<Long> ids) {
         userRepository.deleteAllById(ids);
+        usernameFilter.removed(ids.size());
+        userPrincipalCache.invalidate(ids);
+        tokenEpochService.revokeAll(ids);
     }
 
     // 检查用户名是否存在
     public boolean isUsernameExists(String username) {
-        return userRepository.findByUsername(username) != null;
+        return usernameFilter.exists(username);
     }
 
     // 检查用户名是否存在（排除指定ID）
     public boolean isUsernameExists(String username, Long excludeId) {
-        User user = userRepository.findByUsername(username);
-        return user != null && !user.getId().equals(excludeId);
+        return usernameFilter.existsExcept(username, excludeId);
     }
 
     // 查询用户今日访问次数
@@ -0,0 +1,218 @@
+package com.example.demo.service;
+
+import com.example.demo.common.cache.CacheInvalidationBus;
+import com.example.demo.common.security.TokenFingerprint;
+import com.example.demo.common.util.BloomFilter;
+import com.example.demo.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 用户名布隆过滤器
+ * 注册页面每次输入都会检查用户名是否可用，绝大多数用户名并不存在。
+ * 过滤器判定"一定不存在"时直接返回，只有"可能存在"时才按用户名索引查库。
+ *
+ * 布隆过滤器不支持删除，删除用户后对应的位保留，只会多一次查库；
+ * 新增超过容量或删除累计较多时，按数据库当前数据重建。
+ *
+ * 过滤器只用于减少查库，不保证准确：多实例部署时新增的用户名通过 {@link CacheInvalidationBus} 广播给其他实例，
+ * 消息到达前其他实例可能误判为"不存在"，用户名唯一性最终由数据库唯一约束保证。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UsernameFilter {
+
+    // 重建期间新增的用户可能尚未提交、扫描不到，重建完成后从最近新增的用户名中补回
+    private static final int RECENT_CAPACITY = 1024;
+
+    static final String CACHE_NAME = "usernameFilter";
+
+    private final UserRepository userRepository;
+
+    private final CacheInvalidationBus cacheInvalidationBus;
+
+    @Value("${app.security.username-filter.expected-users:100000}")
+    private int expectedUsers;
+
+    @Value("${app.security.username-filter.bloom-fpp:0.01}")
+    private double bloomFpp;
+
+    // 启动时数据库加载完成之前为null，此时所有查询直接查库
+    private volatile BloomFilter bloomFilter;
+
+    private final Object writeLock = new Object();
+
+    private long capacity;
+
+    private long insertions;
+
+    private long removals;
+
+    private final Deque<String> recentUsernames = new ArrayDeque<>();
+
+    // 监控指标
+    private final LongAdder checkCount = new LongAdder();
+    private final LongAdder definiteMissCount = new LongAdder();
+    private final LongAdder falsePositiveCount = new LongAdder();
+
+    // 在演示数据初始化之后执行
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void init() {
+        cacheInvalidationBus.subscribe(CACHE_NAME, this::onRemoteAdd);
+        rebuild();
+    }
+
+    /**
+     * 用户名是否已存在
+     */
+    public boolean exists(String username) {
+        return existingUserId(username) != null;
+    }
+
+    /**
+     * 用户名是否已被其他用户使用
+     */
+    public boolean existsExcept(String username, Long excludeId) {
+        Long userId = existingUserId(username);
+        return userId != null && !userId.equals(excludeId);
+    }
+
+    /**
+     * 新增用户保存后调用；在事务中调用时事务提交后才加入，回滚不会留下多余的用户名
+     * 加入本地过滤器后广播给其他实例
+     */
+    public void add(String username) {
+        if (username == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    addLocal(username);
+                    cacheInvalidationBus.publish(CACHE_NAME, username);
+                }
+            });
+        } else {
+            addLocal(username);
+            cacheInvalidationBus.publish(CACHE_NAME, username);
+        }
+    }
+
+    // 其他实例新增了用户名；key为null时按数据库重建
+    private void onRemoteAdd(String username) {
+        if (username != null) {
+            addLocal(username);
+        } else {
+            rebuild();
+        }
+    }
+
+    private void addLocal(String username) {
+        synchronized (writeLock) {
+            if (recentUsernames.size() >= RECENT_CAPACITY) {
+                recentUsernames.removeFirst();
+            }
+            recentUsernames.addLast(username);
+            BloomFilter filter = bloomFilter;
+            if (filter != null) {
+                filter.put(TokenFingerprint.highHash(username), TokenFingerprint.lowHash(username));
+                insertions++;
+            }
+        }
+    }
+
+    /**
+     * 删除用户后调用，删除较多时定期重建以降低误判率
+     */
+    public void removed(int count) {
+        synchronized (writeLock) {
+            removals += count;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.security.username-filter.rebuild-check-interval-ms:300000}")
+    public void rebuildIfNeeded() {
+        boolean needed;
+        synchronized (writeLock) {
+            needed = bloomFilter != null && (insertions > capacity || removals > capacity / 4);
+        }
+        if (needed) {
+            rebuild();
+        }
+    }
+
+    /**
+     * 获取过滤器运行指标
+     */
+    public Map<String, Object> getMetrics() {
+        BloomFilter filter = bloomFilter;
+        long checks = checkCount.sum();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("ready", filter != null);
+        metrics.put("checks", checks);
+        metrics.put("definiteMisses", definiteMissCount.sum());
+        metrics.put("falsePositives", falsePositiveCount.sum());
+        metrics.put("skipRate", checks == 0 ? 0.0 : (double) definiteMissCount.sum() / checks);
+        metrics.put("estimatedFalsePositiveRate", filter != null ? filter.estimatedFalsePositiveRate() : 0.0);
+        metrics.put("bloomBits", filter != null ? filter.getBitCount() : 0);
+        return metrics;
+    }
+
+    private Long existingUserId(String username) {
+        if (username == null) {
+            return null;
+        }
+        checkCount.increment();
+        BloomFilter filter = bloomFilter;
+        if (filter != null && !filter.mightContain(TokenFingerprint.highHash(username), TokenFingerprint.lowHash(username))) {
+            definiteMissCount.increment();
+            return null;
+        }
+        Long userId = userRepository.findIdByUsername(username);
+        if (userId == null && filter != null) {
+            falsePositiveCount.increment();
+        }
+        return userId;
+    }
+
+    // 按数据库当前数据重建，完成后整体替换，查询线程始终看到完整的过滤器
+    private void rebuild() {
+        List<String> usernames = userRepository.findAllUsernames();
+        long newCapacity = Math.max(expectedUsers, usernames.size() * 2L);
+        BloomFilter filter = new BloomFilter(newCapacity, bloomFpp);
+        for (String username : usernames) {
+            filter.put(TokenFingerprint.highHash(username), TokenFingerprint.lowHash(username));
+        }
+        synchronized (writeLock) {
+            List<String> recent = new ArrayList<>(recentUsernames);
+            for (String username : recent) {
+                filter.put(TokenFingerprint.highHash(username), TokenFingerprint.lowHash(username));
+            }
+            bloomFilter = filter;
+            capacity = newCapacity;
+            insertions = usernames.size() + recent.size();
+            removals = 0;
+        }
+        log.info("用户名布隆过滤器已重建: users={}, bits={}", usernames.size(), filter.getBitCount());
+    }
+}
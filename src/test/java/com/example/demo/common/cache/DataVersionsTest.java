@@ -0,0 +1,73 @@
+package com.example.demo.common.cache;
+
+import com.example.demo.entity.Menu;
+import com.example.demo.entity.Product;
+import com.example.demo.support.StandInRedisServer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 数据版本号多实例测试
+ * 一个实例修改数据后，其他实例的版本号也要变化，否则其他实例会一直按旧 ETag 返回304
+ */
+class DataVersionsTest {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private static StandInRedisServer server;
+
+    private static LettuceConnectionFactory connectionFactory;
+
+    private static StringRedisTemplate redisTemplate;
+
+    @BeforeAll
+    static void startRedis() throws Exception {
+        server = new StandInRedisServer();
+        connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration("127.0.0.1", server.getPort()));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+    }
+
+    @AfterAll
+    static void stopRedis() throws Exception {
+        connectionFactory.destroy();
+        server.close();
+    }
+
+    @Test
+    void bumpOnOneInstanceChangesVersionOnOthers() throws Exception {
+        String channel = "invalidation:" + UUID.randomUUID();
+        RedisInvalidationBus busA = new RedisInvalidationBus(redisTemplate, OBJECT_MAPPER, channel);
+        RedisInvalidationBus busB = new RedisInvalidationBus(redisTemplate, OBJECT_MAPPER, channel);
+        busA.start();
+        busB.start();
+        try {
+            // 只测试广播，不注册 Hibernate 事件监听
+            DataVersions nodeA = new DataVersions(null, busA);
+            DataVersions nodeB = new DataVersions(null, busB);
+            long menuVersion = nodeB.version(Menu.class);
+            long productVersion = nodeB.version(Product.class);
+
+            nodeA.bump(Menu.class);
+            long deadline = System.currentTimeMillis() + 5000;
+            while (nodeB.version(Menu.class) == menuVersion && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            assertEquals(menuVersion + 1, nodeB.version(Menu.class), "未收到其他实例的版本号变更");
+            assertEquals(productVersion, nodeB.version(Product.class));
+        } finally {
+            busA.close();
+            busB.close();
+        }
+    }
+}
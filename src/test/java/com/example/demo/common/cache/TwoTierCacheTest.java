@@ -0,0 +1,169 @@
+package com.example.demo.common.cache;
+
+import com.example.demo.support.StandInRedisServer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 两级缓存测试
+ * 两个缓存管理器共享同一个本地 Redis 替身，模拟多实例部署下的 Redis 共享层和发布订阅失效
+ */
+class TwoTierCacheTest {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private static StandInRedisServer server;
+
+    private static LettuceConnectionFactory connectionFactory;
+
+    private static StringRedisTemplate redisTemplate;
+
+    @BeforeAll
+    static void startRedis() throws Exception {
+        server = new StandInRedisServer();
+        connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration("127.0.0.1", server.getPort()));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+    }
+
+    @AfterAll
+    static void stopRedis() throws Exception {
+        connectionFactory.destroy();
+        server.close();
+    }
+
+    @Test
+    void instancesShareRedisTierAndInvalidateEachOther() throws Exception {
+        String channel = "invalidation:" + UUID.randomUUID();
+        RedisInvalidationBus busA = startBus(channel);
+        RedisInvalidationBus busB = startBus(channel);
+        try {
+            String prefix = UUID.randomUUID() + ":";
+            TwoTierCache<Item> nodeA = new TwoTierCacheManager(busA, redisTemplate, OBJECT_MAPPER, prefix)
+                    .create("items", Item.class, 100, 60, true);
+            TwoTierCache<Item> nodeB = new TwoTierCacheManager(busB, redisTemplate, OBJECT_MAPPER, prefix)
+                    .create("items", Item.class, 100, 60, true);
+            AtomicInteger loads = new AtomicInteger();
+
+            assertEquals(new Item("a", 1), nodeA.get("a", () -> load(loads, "a", 1)));
+            // 另一个实例从 Redis 层读取，不再调用加载函数
+            assertEquals(new Item("a", 1), nodeB.get("a", () -> load(loads, "a", 99)));
+            assertEquals(new Item("a", 1), nodeB.get("a", () -> load(loads, "a", 99)));
+            assertEquals(1, loads.get());
+            assertEquals(1L, nodeB.getMetrics().get("remoteHits"));
+            assertEquals(1L, nodeB.getMetrics().get("localHits"));
+
+            // 实例A修改数据后，实例B的本地条目被清除，重新加载到新值
+            nodeA.evict("a");
+            awaitRemoteInvalidations(nodeB, 1);
+            assertEquals(new Item("a", 2), nodeB.get("a", () -> load(loads, "a", 2)));
+            assertEquals(new Item("a", 2), nodeA.get("a", () -> load(loads, "a", 99)));
+
+            nodeB.get("b", () -> load(loads, "b", 1));
+            nodeB.clear();
+            awaitRemoteInvalidations(nodeA, 1);
+            assertEquals(new Item("a", 3), nodeA.get("a", () -> load(loads, "a", 3)));
+            assertEquals(new Item("b", 3), nodeA.get("b", () -> load(loads, "b", 3)));
+        } finally {
+            busA.close();
+            busB.close();
+        }
+    }
+
+    @Test
+    void localOnlyModeCachesWithoutRedis() {
+        TwoTierCacheManager manager = new TwoTierCacheManager(new LocalInvalidationBus(), null, OBJECT_MAPPER, "cache:");
+        TwoTierCache<Item> cache = manager.create("items", Item.class, 100, 60, true);
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get("a", () -> load(loads, "a", 1));
+        assertEquals(new Item("a", 1), cache.get("a", () -> load(loads, "a", 99)));
+        assertEquals(1, loads.get());
+
+        cache.evict("a");
+        assertEquals(new Item("a", 2), cache.get("a", () -> load(loads, "a", 2)));
+        assertEquals(false, cache.getMetrics().get("remoteTier"));
+        assertEquals(0L, cache.getMetrics().get("remoteErrors"));
+    }
+
+    @Test
+    void loadOverlappingInvalidationIsNotCached() throws Exception {
+        String channel = "invalidation:" + UUID.randomUUID();
+        RedisInvalidationBus busA = startBus(channel);
+        RedisInvalidationBus busB = startBus(channel);
+        try {
+            String prefix = UUID.randomUUID() + ":";
+            TwoTierCache<Item> nodeA = new TwoTierCacheManager(busA, redisTemplate, OBJECT_MAPPER, prefix)
+                    .create("items", Item.class, 100, 60, true);
+            TwoTierCache<Item> nodeB = new TwoTierCacheManager(busB, redisTemplate, OBJECT_MAPPER, prefix)
+                    .create("items", Item.class, 100, 60, true);
+            AtomicInteger loads = new AtomicInteger();
+
+            // 加载读到旧数据后，修改数据的一方完成提交并失效缓存，旧数据不能写入任何一级
+            Item stale = nodeA.get("a", () -> {
+                Item loaded = load(loads, "a", 1);
+                nodeA.evict("a");
+                return loaded;
+            });
+            assertEquals(new Item("a", 1), stale);
+            assertEquals(1L, nodeA.getMetrics().get("staleLoads"));
+            assertEquals(new Item("a", 2), nodeA.get("a", () -> load(loads, "a", 2)));
+
+            // 其他实例的失效消息在加载期间到达时同样不写入
+            nodeB.get("b", () -> {
+                Item loaded = load(loads, "b", 1);
+                nodeA.evict("b");
+                awaitRemoteInvalidationsUnchecked(nodeB, 1);
+                return loaded;
+            });
+            assertEquals(new Item("b", 2), nodeB.get("b", () -> load(loads, "b", 2)));
+            assertEquals(new Item("b", 2), nodeA.get("b", () -> load(loads, "b", 99)));
+        } finally {
+            busA.close();
+            busB.close();
+        }
+    }
+
+    private static RedisInvalidationBus startBus(String channel) {
+        RedisInvalidationBus bus = new RedisInvalidationBus(redisTemplate, OBJECT_MAPPER, channel);
+        bus.start();
+        return bus;
+    }
+
+    private static Item load(AtomicInteger loads, String name, int version) {
+        loads.incrementAndGet();
+        return new Item(name, version);
+    }
+
+    private static void awaitRemoteInvalidations(TwoTierCache<?> cache, long expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while ((long) cache.getMetrics().get("remoteInvalidations") < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertTrue((long) cache.getMetrics().get("remoteInvalidations") >= expected, "未收到其他实例的失效消息");
+    }
+
+    private static void awaitRemoteInvalidationsUnchecked(TwoTierCache<?> cache, long expected) {
+        try {
+            awaitRemoteInvalidations(cache, expected);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    record Item(String name, int version) {
+    }
+}
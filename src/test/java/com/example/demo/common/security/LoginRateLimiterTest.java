@@ -0,0 +1,110 @@
+package com.example.demo.common.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LoginRateLimiterTest {
+
+    @Test
+    void bucketRefillsOverTime() {
+        // 容量2，每分钟补充60个（每秒1个）
+        LoginRateLimiter.BucketTable buckets = new LoginRateLimiter.BucketTable(16, 2, 60);
+        assertEquals(0, buckets.tryAcquire("k", 1));
+        assertEquals(0, buckets.tryAcquire("k", 1));
+        assertEquals(1000, buckets.tryAcquire("k", 1));
+        assertEquals(500, buckets.tryAcquire("k", 501));
+        assertEquals(0, buckets.tryAcquire("k", 1001));
+        assertTrue(buckets.tryAcquire("k", 1001) > 0);
+        // 长时间不用后补满，但不超过容量
+        assertEquals(0, buckets.tryAcquire("k", 100_000));
+        assertEquals(0, buckets.tryAcquire("k", 100_000));
+        assertTrue(buckets.tryAcquire("k", 100_000) > 0);
+    }
+
+    @Test
+    void keySharingOneSlotWithExhaustedKeyIsNotRejected() {
+        LoginRateLimiter.BucketTable buckets = new LoginRateLimiter.BucketTable(16, 1, 1);
+        int[] victimSlots = buckets.slotsOf("attacker");
+        String sharesOne = null;
+        String sharesBoth = null;
+        for (int i = 0; (sharesOne == null || sharesBoth == null) && i < 100_000; i++) {
+            String key = "user-" + i;
+            int[] slots = buckets.slotsOf(key);
+            long shared = Arrays.stream(slots).filter(slot -> slot == victimSlots[0] || slot == victimSlots[1]).count();
+            if (shared == 1 && sharesOne == null) {
+                sharesOne = key;
+            } else if (shared == 2 && sharesBoth == null) {
+                sharesBoth = key;
+            }
+        }
+        assertNotNull(sharesOne);
+        assertNotNull(sharesBoth);
+
+        assertEquals(0, buckets.tryAcquire("attacker", 1));
+        assertTrue(buckets.tryAcquire("attacker", 1) > 0);
+        // 只有一个槽被占满时，另一个槽仍可放行
+        assertEquals(0, buckets.tryAcquire(sharesOne, 1));
+        // 两个槽都被占满时才拒绝
+        assertTrue(buckets.tryAcquire(sharesBoth, 1) > 0);
+    }
+
+    @Test
+    void retryAfterIsTimeUntilNextToken() {
+        LoginRateLimiter limiter = newLimiter("");
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, limiter.tryAcquire("10.0.0." + i, "admin", now));
+        }
+        // 用户名每分钟补充5个，补足一个需要12秒；大小写不同视为同一用户名
+        assertEquals(12, limiter.tryAcquire("10.0.0.9", "ADMIN", now));
+        assertEquals(7, limiter.tryAcquire("10.0.0.9", "admin", now + 5_000));
+        assertEquals(1, limiter.tryAcquire("10.0.0.9", "admin", now + 11_500));
+        assertEquals(0, limiter.tryAcquire("10.0.0.9", "admin", now + 12_000));
+        assertEquals(3L, limiter.getMetrics().get("usernameRejected"));
+    }
+
+    @Test
+    void forwardedForIsOnlyTrustedFromConfiguredProxies() {
+        LoginRateLimiter direct = newLimiter("");
+        // 客户端直连时伪造的 X-Forwarded-For 不起作用，轮换请求头也会耗尽同一个IP的令牌
+        for (int i = 0; i < 20; i++) {
+            assertEquals(0, direct.tryAcquire(request("203.0.113.7", "198.51.100." + i), "user" + i));
+        }
+        assertTrue(direct.tryAcquire(request("203.0.113.7", "198.51.100.99"), "other") > 0);
+
+        LoginRateLimiter proxied = newLimiter("10.0.0.1, 10.0.0.2");
+        for (int i = 0; i < 20; i++) {
+            // 客户端自己追加的地址在最左侧，取受信任代理之前的第一个地址
+            assertEquals(0, proxied.tryAcquire(request("10.0.0.1", "1.2.3." + i + ", 203.0.113.7, 10.0.0.2"), "user" + i));
+        }
+        assertTrue(proxied.tryAcquire(request("10.0.0.1", "9.9.9.9, 203.0.113.7, 10.0.0.2"), "other") > 0);
+        assertEquals(0, proxied.tryAcquire(request("10.0.0.1", "203.0.113.8"), "other"));
+    }
+
+    private static LoginRateLimiter newLimiter(String trustedProxies) {
+        LoginRateLimiter limiter = new LoginRateLimiter();
+        ReflectionTestUtils.setField(limiter, "enabled", true);
+        ReflectionTestUtils.setField(limiter, "slots", 65536);
+        ReflectionTestUtils.setField(limiter, "ipCapacity", 20);
+        ReflectionTestUtils.setField(limiter, "ipRefillPerMinute", 10);
+        ReflectionTestUtils.setField(limiter, "usernameCapacity", 5);
+        ReflectionTestUtils.setField(limiter, "usernameRefillPerMinute", 5);
+        ReflectionTestUtils.setField(limiter, "trustedProxiesConfig", trustedProxies);
+        limiter.init();
+        return limiter;
+    }
+
+    private static MockHttpServletRequest request(String remoteAddr, String forwardedFor) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/auth/login");
+        request.setRemoteAddr(remoteAddr);
+        request.addHeader("X-Forwarded-For", forwardedFor);
+        return request;
+    }
+}
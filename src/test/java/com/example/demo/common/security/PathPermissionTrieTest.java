@@ -0,0 +1,43 @@
+package com.example.demo.common.security;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PathPermissionTrieTest {
+
+    private final PathPermissionTrie trie = PathPermissionTrie.builder()
+            .add(null, "/api/users/**", 1)
+            .add(null, "/api/users/info", PathPermissionTrie.OPEN)
+            .add("DELETE", "/api/users/{id}", 2)
+            .add("POST", "/api/menus/**", 3)
+            .add(null, "/api/roles/*/menus", 4)
+            .build();
+
+    @Test
+    void mostSpecificRuleWins() {
+        assertEquals(1, trie.lookup("GET", "/api/users/getUsersPage"));
+        assertEquals(1, trie.lookup("GET", "/api/users"));
+        assertEquals(1, trie.lookup("GET", "/api/users/1/extra"));
+        assertEquals(PathPermissionTrie.OPEN, trie.lookup("GET", "/api/users/info"));
+        assertEquals(2, trie.lookup("DELETE", "/api/users/7"));
+        assertEquals(1, trie.lookup("PUT", "/api/users/7"));
+        assertEquals(4, trie.lookup("GET", "/api/roles/9/menus"));
+    }
+
+    @Test
+    void unmatchedMethodOrPathHasNoRule() {
+        assertEquals(3, trie.lookup("POST", "/api/menus"));
+        assertEquals(PathPermissionTrie.NO_RULE, trie.lookup("GET", "/api/menus/tree"));
+        assertEquals(PathPermissionTrie.NO_RULE, trie.lookup("GET", "/api/roles/9"));
+        assertEquals(PathPermissionTrie.NO_RULE, trie.lookup("GET", "/api/profile/userInfo"));
+        assertEquals(PathPermissionTrie.NO_RULE, trie.lookup("GET", "/"));
+    }
+
+    @Test
+    void doubleWildcardMustBeLast() {
+        assertThrows(IllegalArgumentException.class,
+                () -> PathPermissionTrie.builder().add(null, "/api/**/users", 1));
+    }
+}
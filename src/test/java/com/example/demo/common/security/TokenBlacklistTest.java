@@ -0,0 +1,90 @@
+package com.example.demo.common.security;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBlacklistTest {
+
+    private static final long HOUR = 3_600_000L;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void revokedTokensAreFoundUntilTheyExpire() throws Exception {
+        TokenBlacklist blacklist = newBlacklist(100);
+        long now = System.currentTimeMillis();
+        blacklist.revoke("live", now + HOUR);
+        blacklist.revoke("short", now + 1000);
+        blacklist.revoke("already-expired", now - 1);
+
+        assertTrue(blacklist.contains("live"));
+        assertTrue(blacklist.contains("short"));
+        assertFalse(blacklist.contains("already-expired"));
+        assertFalse(blacklist.contains("never-revoked"));
+        assertEquals(2, blacklist.size());
+
+        Thread.sleep(2100);
+        blacklist.expireTokens();
+        assertFalse(blacklist.contains("short"));
+        assertTrue(blacklist.contains("live"));
+        assertEquals(1, blacklist.size());
+        assertEquals(1L, blacklist.getMetrics().get("expired"));
+    }
+
+    @Test
+    void bloomFilterRebuildsAreAmortizedBeyondExpectedTokens() {
+        TokenBlacklist blacklist = newBlacklist(100);
+        long expireAt = System.currentTimeMillis() + HOUR;
+        for (int i = 0; i < 10_000; i++) {
+            blacklist.revoke("token-" + i, expireAt);
+        }
+        // 每次重建容量翻倍：100 -> 202 -> 406 -> ... ，而不是超过100之后每次注销都重建
+        long rebuilds = (long) blacklist.getMetrics().get("bloomRebuilds");
+        assertTrue(rebuilds > 0 && rebuilds <= 8, "重建次数: " + rebuilds);
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(blacklist.contains("token-" + i));
+        }
+    }
+
+    @Test
+    void snapshotRoundTripKeepsUnexpiredTokens() {
+        TokenBlacklist first = newBlacklist(100);
+        long now = System.currentTimeMillis();
+        first.revoke("a", now + HOUR);
+        first.revoke("b", now + 2 * HOUR);
+        first.shutdown();
+        assertTrue(Files.exists(dir.resolve("revoked-tokens.bin")));
+        assertEquals(2, first.getMetrics().get("lastSnapshotEntries"));
+
+        TokenBlacklist restored = newBlacklist(100);
+        assertEquals(2, restored.size());
+        assertTrue(restored.contains("a"));
+        assertTrue(restored.contains("b"));
+        assertFalse(restored.contains("c"));
+    }
+
+    @Test
+    void corruptSnapshotIsIgnored() throws Exception {
+        Files.write(dir.resolve("revoked-tokens.bin"), new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+        TokenBlacklist blacklist = newBlacklist(100);
+        assertEquals(0, blacklist.size());
+    }
+
+    private TokenBlacklist newBlacklist(int expectedTokens) {
+        TokenBlacklist blacklist = new TokenBlacklist();
+        ReflectionTestUtils.setField(blacklist, "expectedTokens", expectedTokens);
+        ReflectionTestUtils.setField(blacklist, "bloomFpp", 0.001);
+        ReflectionTestUtils.setField(blacklist, "snapshotFile", dir.resolve("revoked-tokens.bin").toString());
+        blacklist.init();
+        return blacklist;
+    }
+}
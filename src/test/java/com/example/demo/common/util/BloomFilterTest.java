@@ -0,0 +1,50 @@
+package com.example.demo.common.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BloomFilterTest {
+
+    @Test
+    void insertedValuesAreAlwaysFound() {
+        BloomFilter filter = new BloomFilter(10_000, 0.001);
+        SplittableRandom random = new SplittableRandom(42);
+        long[][] values = new long[10_000][];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = new long[]{random.nextLong(), random.nextLong()};
+            filter.put(values[i][0], values[i][1]);
+        }
+        for (long[] value : values) {
+            assertTrue(filter.mightContain(value[0], value[1]));
+        }
+    }
+
+    @Test
+    void falsePositiveRateStaysNearTargetAtCapacity() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        SplittableRandom random = new SplittableRandom(7);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put(random.nextLong(), random.nextLong());
+        }
+        int falsePositives = 0;
+        int probes = 100_000;
+        for (int i = 0; i < probes; i++) {
+            if (filter.mightContain(random.nextLong(), random.nextLong())) {
+                falsePositives++;
+            }
+        }
+        double rate = (double) falsePositives / probes;
+        assertTrue(rate < 0.02, "误判率过高: " + rate);
+        assertTrue(filter.estimatedFalsePositiveRate() < 0.02);
+    }
+
+    @Test
+    void invalidFalsePositiveRateIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(100, 0.0));
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(100, 1.0));
+    }
+}
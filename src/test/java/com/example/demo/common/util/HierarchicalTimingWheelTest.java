@@ -0,0 +1,60 @@
+package com.example.demo.common.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HierarchicalTimingWheelTest {
+
+    @Test
+    void itemsExpireAtTheirTickAcrossLevels() {
+        HierarchicalTimingWheel<Long> wheel = new HierarchicalTimingWheel<>(1L, 3, 0L);
+        // 分别落在第0层、第1层、第2层
+        long[] expireAts = {5, 63, 64, 100, 4095, 4096, 5000, 200_000};
+        for (long expireAt : expireAts) {
+            assertTrue(wheel.schedule(expireAt, expireAt));
+        }
+        assertEquals(expireAts.length, wheel.size());
+
+        for (long expireAt : expireAts) {
+            List<Long> expired = new ArrayList<>();
+            wheel.advance(expireAt - 1, expired::add);
+            assertTrue(expired.isEmpty(), "提前到期: " + expireAt + " -> " + expired);
+            wheel.advance(expireAt, expired::add);
+            assertEquals(List.of(expireAt), expired);
+        }
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void itemsBeyondTopLevelAreRescheduledUntilDue() {
+        // 两层只覆盖 4096 个 tick
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(10L, 2, 0L);
+        wheel.schedule("far", 100_000);
+        List<String> expired = new ArrayList<>();
+        wheel.advance(99_990, expired::add);
+        assertTrue(expired.isEmpty());
+        assertEquals(1, wheel.size());
+        wheel.advance(100_000, expired::add);
+        assertEquals(List.of("far"), expired);
+    }
+
+    @Test
+    void pastOrCurrentTickIsRejected() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(1000L, 3, 10_000L);
+        assertFalse(wheel.schedule("past", 9_000));
+        assertFalse(wheel.schedule("now", 10_000));
+        // 不足一个 tick 的部分向上取整
+        assertTrue(wheel.schedule("soon", 10_001));
+        List<String> expired = new ArrayList<>();
+        wheel.advance(10_999, expired::add);
+        assertTrue(expired.isEmpty());
+        wheel.advance(11_000, expired::add);
+        assertEquals(List.of("soon"), expired);
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.demo.controller;
+
+import com.example.demo.entity.Menu;
+import com.example.demo.repository.MenuRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 条件请求测试：200 -> 304 -> 数据修改 -> 200
+ * 使用内存数据库，启动时按演示数据初始化
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:conditional-request")
+@AutoConfigureMockMvc
+class ConditionalRequestTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MenuRepository menuRepository;
+
+    private String authorization;
+
+    @BeforeEach
+    void login() throws Exception {
+        String body = mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("username", "admin", "password", "123456"))))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        authorization = "Bearer " + objectMapper.readTree(body).get("token").asText();
+    }
+
+    @Test
+    void menusRevalidateUntilMenuChanges() throws Exception {
+        String etag = mockMvc.perform(get("/api/menus/all").header(HttpHeaders.AUTHORIZATION, authorization))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+
+        mockMvc.perform(get("/api/menus/all").header(HttpHeaders.AUTHORIZATION, authorization)
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        Menu menu = menuRepository.findAll().get(0);
+        menu.setSort(menu.getSort() != null ? menu.getSort() + 1 : 1);
+        menuRepository.save(menu);
+
+        String changed = mockMvc.perform(get("/api/menus/all").header(HttpHeaders.AUTHORIZATION, authorization)
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(etag, changed);
+
+        mockMvc.perform(get("/api/menus/all").header(HttpHeaders.AUTHORIZATION, authorization)
+                        .header(HttpHeaders.IF_NONE_MATCH, changed))
+                .andExpect(status().isNotModified());
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.demo.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 个人中心接口测试：修改密码后当前会话拿到新token继续使用，其他token失效
+ * 使用内存数据库，启动时按演示数据初始化
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:profile-controller")
+@AutoConfigureMockMvc
+class ProfileControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void changePasswordReturnsTokenForCurrentSession() throws Exception {
+        String current = login("user", "123456");
+        String otherDevice = login("user", "123456");
+
+        String body = mockMvc.perform(post("/api/profile/change-password").header(HttpHeaders.AUTHORIZATION, current)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("oldPassword", "123456",
+                                "newPassword", "654321", "confirmPassword", "654321"))))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        JsonNode response = objectMapper.readTree(body);
+        assertTrue(response.get("success").asBoolean());
+        String reissued = "Bearer " + response.get("token").asText();
+
+        mockMvc.perform(get("/api/users/info").header(HttpHeaders.AUTHORIZATION, reissued))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/users/info").header(HttpHeaders.AUTHORIZATION, current))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/api/users/info").header(HttpHeaders.AUTHORIZATION, otherDevice))
+                .andExpect(status().isUnauthorized());
+        login("user", "654321");
+    }
+
+    private String login(String username, String password) throws Exception {
+        String body = mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("username", username, "password", password))))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        JsonNode response = objectMapper.readTree(body);
+        assertTrue(response.get("success").asBoolean(), body);
+        return "Bearer " + response.get("token").asText();
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.demo.controller;
+
+import com.example.demo.entity.User;
+import com.example.demo.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Map;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 用户管理接口测试：角色变更和删除后，用户之前的token立即失效
+ * 使用内存数据库，启动时按演示数据初始化
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:user-controller")
+@AutoConfigureMockMvc
+class UserControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void roleChangeAndDeleteRevokeExistingTokens() throws Exception {
+        String admin = login("admin");
+        String user = login("user");
+        String guest = login("guest");
+        mockMvc.perform(get("/api/users/info").header(HttpHeaders.AUTHORIZATION, user))
+                .andExpect(status().isOk());
+
+        // 只改名字时token保持有效
+        User existing = userRepository.findByUsername("user");
+        mockMvc.perform(put("/api/users/" + existing.getId()).header(HttpHeaders.AUTHORIZATION, admin)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("name", "改名", "roleCode", "user"))))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/users/info").header(HttpHeaders.AUTHORIZATION, user))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(put("/api/users/" + existing.getId()).header(HttpHeaders.AUTHORIZATION, admin)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("name", "改名", "roleCode", "guest"))))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/users/info").header(HttpHeaders.AUTHORIZATION, user))
+                .andExpect(status().isUnauthorized());
+
+        Long guestId = userRepository.findByUsername("guest").getId();
+        mockMvc.perform(delete("/api/users/" + guestId).header(HttpHeaders.AUTHORIZATION, admin))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/users/info").header(HttpHeaders.AUTHORIZATION, guest))
+                .andExpect(status().isUnauthorized());
+    }
+
+    private String login(String username) throws Exception {
+        String body = mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("username", username, "password", "123456"))))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return "Bearer " + objectMapper.readTree(body).get("token").asText();
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.demo.repository;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * 校验日志、通知、待办相关查询在 H2 上都能走索引
+ * 通过 StatementInspector 捕获 Hibernate 生成的 SQL，再用 EXPLAIN 检查执行计划中没有全表扫描
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.example.demo.repository.RepositoryIndexUsageTest$SqlCapture")
+class RepositoryIndexUsageTest {
+
+    private static final LocalDateTime START = LocalDateTime.now().minusDays(7);
+    private static final LocalDateTime END = LocalDateTime.now();
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private OperationLogRepository operationLogRepository;
+
+    @Autowired
+    private SystemLogRepository systemLogRepository;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private TodoRepository todoRepository;
+
+    @BeforeEach
+    void clearCapturedSql() {
+        SqlCapture.STATEMENTS.clear();
+    }
+
+    @Test
+    void operationLogQueriesUseIndexes() {
+        assertIndexed(() -> operationLogRepository.findTop10ByOrderByCreateTimeDesc());
+        assertIndexed(() -> operationLogRepository.countByOperatorIdAndCreateTimeBetween(1L, START, END));
+        assertIndexed(() -> operationLogRepository.countByOperatorIdAndAccessTimeBetween(1L, START, END));
+        assertIndexed(() -> operationLogRepository.countByOperatorIdAndResultAndCreateTimeBetween(1L, "SUCCESS", START, END));
+        assertIndexed(() -> operationLogRepository.findTop5ByOperatorIdOrderByCreateTimeDesc(1L));
+    }
+
+    @Test
+    void systemLogQueriesUseIndexes() {
+        assertIndexed(() -> systemLogRepository.findTop10ByOrderByTimestampDesc());
+        assertIndexed(() -> systemLogRepository.countByLevelAndTimestampBetween("ERROR", START, END));
+    }
+
+    @Test
+    void notificationQueriesUseIndexes() {
+        PageRequest page = PageRequest.of(0, 10);
+        assertIndexed(() -> notificationRepository.findByReceiverIdAndStatusOrderByCreateTimeDesc(1L, "UNREAD", page));
+        assertIndexed(() -> notificationRepository.findByReceiverIdOrderByCreateTimeDesc(1L, page));
+        assertIndexed(() -> notificationRepository.findByReceiverIdAndTypeOrderByCreateTimeDesc(1L, "SYSTEM", page));
+        assertIndexed(() -> notificationRepository.countUnreadByReceiverId(1L));
+        assertIndexed(() -> notificationRepository.markAsRead(1L, END, END));
+        assertIndexed(() -> notificationRepository.batchMarkAsRead(List.of(1L, 2L), 1L, END, END));
+        assertIndexed(() -> notificationRepository.markAllAsRead(1L, END, END));
+        assertIndexed(() -> notificationRepository.findByReceiverIdAndImportantAndStatusOrderByCreateTimeDesc(1L, true, "UNREAD", page));
+        assertIndexed(() -> notificationRepository.findExpiredNotifications(END));
+        assertIndexed(() -> notificationRepository.archiveExpiredNotifications(END, END));
+    }
+
+    @Test
+    void todoQueriesUseIndexes() {
+        assertIndexed(() -> todoRepository.findByUserIdAndCompletedOrderByDueTimeAsc(1L, false));
+        assertIndexed(() -> todoRepository.findByUserIdAndCompleted(1L, false, PageRequest.of(0, 10)));
+        assertIndexed(() -> todoRepository.findByUserIdAndDueTimeBetweenAndCompleted(1L, START, END, false));
+        assertIndexed(() -> todoRepository.findByUserIdAndPriorityAndCompleted(1L, "HIGH", false));
+        assertIndexed(() -> todoRepository.countByUserIdAndCompleted(1L, false));
+    }
+
+    // 执行查询，对捕获到的每条SQL做EXPLAIN，断言执行计划中没有全表扫描
+    private void assertIndexed(Runnable query) {
+        SqlCapture.STATEMENTS.clear();
+        query.run();
+        List<String> statements = new ArrayList<>(SqlCapture.STATEMENTS);
+        assertFalse(statements.isEmpty(), "未捕获到SQL");
+
+        for (String sql : statements) {
+            String plan = explain(sql);
+            assertFalse(plan.contains("tableScan"), () -> "查询未使用索引:\n" + sql + "\n执行计划:\n" + plan);
+        }
+    }
+
+    // 参数统一绑定为NULL，H2 在准备语句时即确定索引选择，与参数值无关
+    private String explain(String sql) {
+        return jdbcTemplate.execute((Connection connection) -> {
+            try (PreparedStatement ps = connection.prepareStatement("EXPLAIN " + sql)) {
+                int count = ps.getParameterMetaData().getParameterCount();
+                for (int i = 1; i <= count; i++) {
+                    ps.setNull(i, Types.NULL);
+                }
+                try (ResultSet rs = ps.executeQuery()) {
+                    StringBuilder plan = new StringBuilder();
+                    while (rs.next()) {
+                        plan.append(rs.getString(1));
+                    }
+                    return plan.toString();
+                }
+            }
+        });
+    }
+
+    /**
+     * 记录 Hibernate 发出的所有SQL
+     */
+    public static class SqlCapture implements StatementInspector {
+
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.demo.repository;
+
+import com.example.demo.common.cache.LocalCacheRegionFactory;
+import com.example.demo.config.SecondLevelCacheConfig;
+import com.example.demo.entity.Menu;
+import com.example.demo.entity.Product;
+import com.example.demo.entity.Role;
+import com.example.demo.entity.RoleMenu;
+import com.example.demo.entity.SystemInfo;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 校验基础数据的热点查询在预热后命中二级缓存，不再向数据库发SQL，且修改后能读到新数据
+ * 每次仓库调用使用独立的事务和 EntityManager，排除一级缓存的影响
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.example.demo.repository.SecondLevelCacheTest$SqlCapture")
+@Import(SecondLevelCacheConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SecondLevelCacheTest {
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private MenuRepository menuRepository;
+
+    @Autowired
+    private RoleMenuRepository roleMenuRepository;
+
+    @Autowired
+    private SystemInfoRepository systemInfoRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private LocalCacheRegionFactory regionFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Long roleId;
+
+    @BeforeEach
+    void seed() {
+        roleMenuRepository.deleteAll();
+        menuRepository.deleteAll();
+        roleRepository.deleteAll();
+        systemInfoRepository.deleteAll();
+        productRepository.deleteAll();
+
+        Role role = new Role();
+        role.setCode("admin");
+        role.setName("管理员");
+        roleId = roleRepository.save(role).getId();
+        for (int i = 0; i < 3; i++) {
+            Menu menu = new Menu();
+            menu.setName("菜单" + i);
+            menu.setPath("/menu" + i);
+            menu.setSort(i);
+            Long menuId = menuRepository.save(menu).getId();
+            RoleMenu roleMenu = new RoleMenu();
+            roleMenu.setRoleId(roleId);
+            roleMenu.setMenuCode(menuId);
+            roleMenuRepository.save(roleMenu);
+        }
+        SystemInfo systemInfo = new SystemInfo();
+        systemInfo.setSystemVersion("1.0.0");
+        systemInfoRepository.save(systemInfo);
+        Product product = new Product();
+        product.setName("商品");
+        product.setPrice(BigDecimal.TEN);
+        product.setStatus("active");
+        productRepository.save(product);
+    }
+
+    @Test
+    void hotReadsStopIssuingSqlAfterWarmUp() {
+        readHotData();
+
+        SqlCapture.STATEMENTS.clear();
+        for (int i = 0; i < 3; i++) {
+            readHotData();
+        }
+        assertEquals(List.of(), SqlCapture.STATEMENTS);
+
+        Map<String, Object> metrics = regionFactory.getMetrics();
+        for (String region : List.of("role", "menu", "system-info", "product", "default-query-results-region")) {
+            assertTrue(((Number) ((Map<?, ?>) metrics.get(region)).get("hits")).longValue() > 0, region);
+        }
+    }
+
+    @Test
+    void writesInvalidateCachedEntitiesAndQueries() {
+        readHotData();
+
+        Role role = roleRepository.findByCode("admin").orElseThrow();
+        role.setName("系统管理员");
+        roleRepository.save(role);
+        // 批量删除语句不经过实体缓存，由 Hibernate 按表失效相关缓存
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> roleMenuRepository.deleteByRoleId(roleId));
+
+        assertEquals("系统管理员", roleRepository.findByCode("admin").orElseThrow().getName());
+        assertEquals(List.of(), roleMenuRepository.findMenuCodesByRoleId(roleId));
+    }
+
+    private void readHotData() {
+        assertTrue(roleRepository.findByCode("admin").isPresent());
+        assertEquals(3, roleMenuRepository.findMenuCodesByRoleId(roleId).size());
+        assertEquals(3, menuRepository.findAllByOrderBySortAsc().size());
+        assertTrue(systemInfoRepository.findFirstByOrderByIdAsc().isPresent());
+        assertEquals(1, productRepository.findPopularProducts().size());
+    }
+
+    public static class SqlCapture implements StatementInspector {
+
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.demo.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 导出任务文件清理测试
+ */
+class ExportJobServiceTest {
+
+    @TempDir
+    Path jobsDir;
+
+    private ExportJobService service;
+
+    @AfterEach
+    void shutdown() {
+        if (service != null) {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    void startupKeepsFilesWithinRetentionWindow() throws Exception {
+        Path recent = Files.writeString(jobsDir.resolve("recent.csv"), "a");
+        Path expired = Files.writeString(jobsDir.resolve("expired.csv"), "b");
+        Files.setLastModifiedTime(expired, FileTime.from(Instant.now().minus(Duration.ofMinutes(61))));
+
+        service = new ExportJobService(null, null, null);
+        ReflectionTestUtils.setField(service, "jobsDir", jobsDir.toString());
+        ReflectionTestUtils.setField(service, "maxConcurrent", 1);
+        ReflectionTestUtils.setField(service, "queueCapacity", 1);
+        ReflectionTestUtils.setField(service, "ttlMinutes", 60L);
+        service.init();
+
+        assertTrue(Files.exists(recent));
+        assertFalse(Files.exists(expired));
+
+        // 定时清理同样处理没有对应任务的遗留文件
+        Files.setLastModifiedTime(recent, FileTime.from(Instant.now().minus(Duration.ofMinutes(61))));
+        service.evictExpiredJobs();
+        assertFalse(Files.exists(recent));
+    }
+}
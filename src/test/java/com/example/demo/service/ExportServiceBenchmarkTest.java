@@ -0,0 +1,167 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.SystemLog;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.IndexedColors;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * 系统日志Excel导出基准测试
+ * 对比旧实现（XSSFWorkbook + 每行新建样式）与当前实现（SXSSF + 共享样式）的耗时和堆内存峰值
+ *
+ * 默认不执行，运行方式：
+ * mvn test -Dtest=ExportServiceBenchmarkTest -Dbenchmark=true -Dbenchmark.rows=10000,100000,1000000
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ExportServiceBenchmarkTest {
+
+    private static final String[] LEVELS = {"INFO", "WARNING", "ERROR", "DEBUG", "CRITICAL"};
+
+    @Test
+    void benchmarkSystemLogExport() throws Exception {
+        ExportService exportService = new ExportService();
+        ReflectionTestUtils.setField(exportService, "rowAccessWindow", 100);
+
+        System.out.printf("%-10s %-8s %12s %14s %s%n", "rows", "impl", "time(ms)", "peakHeap(MB)", "result");
+        for (String value : System.getProperty("benchmark.rows", "10000,100000,1000000").split(",")) {
+            int rows = Integer.parseInt(value.trim());
+            run(rows, "before", out -> legacyExport(rows, out));
+            run(rows, "after", out -> exportService.exportSystemLogs(consumer -> generate(rows, consumer), out));
+        }
+    }
+
+    private void run(int rows, String impl, ExportTask task) throws InterruptedException {
+        System.gc();
+        HeapSampler sampler = new HeapSampler();
+        sampler.start();
+        CountingOutputStream out = new CountingOutputStream();
+        long start = System.nanoTime();
+        String result;
+        try {
+            task.export(out);
+            result = "OK, " + out.count / 1024 + " KB";
+        } catch (Throwable e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            result = "FAILED: " + cause.getClass().getSimpleName() + " " + cause.getMessage();
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        long peakMb = sampler.stopAndGetPeak() / (1024 * 1024);
+        System.out.printf("%-10d %-8s %12d %14d %s%n", rows, impl, elapsedMillis, peakMb, result);
+    }
+
+    private static long generate(int rows, Consumer<SystemLog> consumer) {
+        LocalDateTime now = LocalDateTime.now();
+        SystemLog log = new SystemLog();
+        for (int i = 0; i < rows; i++) {
+            log.setId((long) i);
+            log.setCreateTime(now.minusSeconds(i));
+            log.setLevel(LEVELS[i % LEVELS.length]);
+            log.setService("用户服务");
+            log.setModule("用户管理");
+            log.setUsername("admin");
+            log.setIpAddress("127.0.0.1");
+            log.setOperation("查询用户列表 #" + i);
+            consumer.accept(log);
+        }
+        return rows;
+    }
+
+    /**
+     * 旧实现：全量 XSSFWorkbook，日志级别列每行新建 CellStyle 和 Font
+     */
+    private static void legacyExport(int rows, OutputStream out) throws Exception {
+        try (Workbook workbook = new XSSFWorkbook()) {
+            Sheet sheet = workbook.createSheet("系统日志");
+            CellStyle dataStyle = workbook.createCellStyle();
+            int[] rowNum = {1};
+            generate(rows, log -> {
+                Row row = sheet.createRow(rowNum[0]);
+                row.createCell(0).setCellValue(rowNum[0]++);
+                row.createCell(1).setCellValue(log.getCreateTime().toString());
+                Cell levelCell = row.createCell(2);
+                levelCell.setCellValue(log.getLevel());
+                CellStyle levelStyle = workbook.createCellStyle();
+                Font font = workbook.createFont();
+                font.setColor(IndexedColors.RED.getIndex());
+                levelStyle.setFont(font);
+                levelCell.setCellStyle(levelStyle);
+                row.createCell(3).setCellValue(log.getService());
+                row.createCell(4).setCellValue(log.getModule());
+                row.createCell(5).setCellValue(log.getUsername());
+                row.createCell(6).setCellValue(log.getIpAddress());
+                Cell operation = row.createCell(7);
+                operation.setCellValue(log.getOperation());
+                operation.setCellStyle(dataStyle);
+            });
+            workbook.write(out);
+        }
+    }
+
+    @FunctionalInterface
+    private interface ExportTask {
+        void export(OutputStream out) throws Exception;
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+
+    /**
+     * 后台线程定时采样已用堆内存，记录峰值
+     */
+    private static final class HeapSampler extends Thread {
+
+        private final MemoryMXBean memoryBean = ManagementFactory.getMemoryMXBean();
+        private final AtomicBoolean running = new AtomicBoolean(true);
+        private final AtomicLong peak = new AtomicLong();
+
+        private HeapSampler() {
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            while (running.get()) {
+                peak.accumulateAndGet(memoryBean.getHeapMemoryUsage().getUsed(), Math::max);
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+
+        long stopAndGetPeak() throws InterruptedException {
+            running.set(false);
+            join();
+            return peak.get();
+        }
+    }
+}
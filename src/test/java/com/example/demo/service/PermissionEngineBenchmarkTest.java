@@ -0,0 +1,165 @@
+package com.example.demo.service;
+
+import com.example.demo.common.cache.LocalInvalidationBus;
+import com.example.demo.entity.Menu;
+import com.example.demo.entity.Role;
+import com.example.demo.entity.RoleMenu;
+import com.example.demo.repository.MenuRepository;
+import com.example.demo.repository.RoleMenuRepository;
+import com.example.demo.repository.RoleRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.util.AntPathMatcher;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 接口权限判断基准测试
+ * 对比逐请求查库（按角色代码查角色、查角色菜单、按路径查菜单，规则用 AntPathMatcher 逐条匹配）
+ * 与编译后的权限引擎（前缀树 + 角色位图）的单次判断耗时，并校验两者结论一致。
+ *
+ * 默认不执行，运行方式：
+ * mvn test -Dtest=PermissionEngineBenchmarkTest -Dbenchmark=true -Dbenchmark.iterations=20000
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DataJpaTest
+@Import({PermissionEngine.class, MenuTreeCache.class, LocalInvalidationBus.class})
+class PermissionEngineBenchmarkTest {
+
+    private static final String[] ROLES = {"super", "admin", "user", "guest"};
+
+    private static final String[][] REQUESTS = {
+            {"GET", "/api/users/getUsersPage"},
+            {"GET", "/api/users/info"},
+            {"DELETE", "/api/users/7"},
+            {"GET", "/api/roles/page"},
+            {"POST", "/api/menus"},
+            {"GET", "/api/menus/tree"},
+            {"GET", "/api/orders/getOrdersByPage"},
+            {"GET", "/api/system-monitor/metrics"},
+            {"GET", "/api/operation-logs/cursor"},
+            {"GET", "/api/analysis/quick-stats"},
+            {"GET", "/api/profile/userInfo"},
+    };
+
+    private static final AntPathMatcher PATH_MATCHER = new AntPathMatcher();
+
+    @Autowired
+    private PermissionEngine permissionEngine;
+
+    @Autowired
+    private MenuRepository menuRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private RoleMenuRepository roleMenuRepository;
+
+    @BeforeEach
+    void seed() {
+        roleMenuRepository.deleteAll();
+        menuRepository.deleteAll();
+        roleRepository.deleteAll();
+
+        String[] paths = {"/home", "/workstation", "/profile", "/analysis", "/dashboard", "/userA", "/order",
+                "/sysManagement", "/user", "/role", "/menu", "/monitor", "/system", "/logManagement",
+                "/auditLogs", "/systemLogs"};
+        for (int i = 0; i < paths.length; i++) {
+            Menu menu = new Menu();
+            menu.setName("菜单" + i);
+            menu.setPath(paths[i]);
+            menu.setSort(i);
+            menu.setType(1);
+            menuRepository.save(menu);
+        }
+        Map<String, List<String>> grants = Map.of(
+                "super", List.of(paths),
+                "admin", List.of(paths),
+                "user", List.of("/home", "/workstation", "/profile", "/analysis", "/dashboard", "/userA"),
+                "guest", List.of("/workstation", "/profile"));
+        for (String code : ROLES) {
+            Role role = new Role();
+            role.setCode(code);
+            role.setName(code);
+            role = roleRepository.save(role);
+            for (String path : grants.get(code)) {
+                RoleMenu roleMenu = new RoleMenu();
+                roleMenu.setRoleId(role.getId());
+                roleMenu.setMenuCode(menuRepository.findByPath(path).getId());
+                roleMenuRepository.save(roleMenu);
+            }
+        }
+        roleMenuRepository.flush();
+    }
+
+    @Test
+    void benchmarkPermissionCheck() {
+        // 先校验两种实现的结论一致
+        for (String role : ROLES) {
+            for (String[] request : REQUESTS) {
+                assertEquals(legacyCheck(role, request[0], request[1]),
+                        permissionEngine.check(List.of(role), request[0], request[1]),
+                        role + " " + request[0] + " " + request[1]);
+            }
+        }
+
+        int iterations = Integer.getInteger("benchmark.iterations", 20000);
+        System.out.printf("%-8s %12s %12s%n", "impl", "checks", "ns/check");
+        for (int round = 0; round < 3; round++) {
+            run("db", iterations / 10, (role, method, path) -> legacyCheck(role, method, path));
+            run("engine", iterations, (role, method, path) -> permissionEngine.check(List.of(role), method, path));
+        }
+    }
+
+    private static void run(String impl, int iterations, Check check) {
+        int checks = 0;
+        int allowed = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            String[] request = REQUESTS[i % REQUESTS.length];
+            if (check.allowed(ROLES[i % ROLES.length], request[0], request[1])) {
+                allowed++;
+            }
+            checks++;
+        }
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("%-8s %12d %12d  (allowed=%d)%n", impl, checks, elapsed / checks, allowed);
+    }
+
+    /**
+     * 旧方式：每次请求逐条匹配规则，再查库判断角色是否拥有所需菜单
+     */
+    private boolean legacyCheck(String roleCode, String method, String path) {
+        Comparator<String> specificity = PATH_MATCHER.getPatternComparator(path);
+        Optional<PermissionEngine.Rule> rule = PermissionEngine.RULES.stream()
+                .filter(r -> r.method() == null || r.method().equals(method))
+                .filter(r -> PATH_MATCHER.match(r.pattern(), path))
+                .min(Comparator.comparing(PermissionEngine.Rule::pattern, specificity)
+                        .thenComparing(r -> r.method() == null));
+        if (rule.isEmpty() || rule.get().menuPath() == null || "super".equals(roleCode)) {
+            return true;
+        }
+        Optional<Role> role = roleRepository.findByCode(roleCode);
+        Menu menu = menuRepository.findByPath(rule.get().menuPath());
+        if (role.isEmpty() || menu == null) {
+            return false;
+        }
+        return roleMenuRepository.findByRoleId(role.get().getId()).stream()
+                .anyMatch(roleMenu -> menu.getId().equals(roleMenu.getMenuCode()));
+    }
+
+    @FunctionalInterface
+    private interface Check {
+        boolean allowed(String role, String method, String path);
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.demo.service;
+
+import com.example.demo.common.cache.LocalInvalidationBus;
+import com.example.demo.entity.Menu;
+import com.example.demo.entity.Role;
+import com.example.demo.entity.RoleMenu;
+import com.example.demo.repository.MenuRepository;
+import com.example.demo.repository.RoleMenuRepository;
+import com.example.demo.repository.RoleRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 接口权限判断测试
+ */
+@DataJpaTest
+@Import({PermissionEngine.class, MenuTreeCache.class, LocalInvalidationBus.class})
+class PermissionEngineTest {
+
+    @Autowired
+    private PermissionEngine permissionEngine;
+
+    @Autowired
+    private MenuRepository menuRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private RoleMenuRepository roleMenuRepository;
+
+    @BeforeEach
+    void seed() {
+        roleMenuRepository.deleteAll();
+        menuRepository.deleteAll();
+        roleRepository.deleteAll();
+
+        String[] paths = {"/profile", "/user", "/auditLogs", "/systemLogs"};
+        for (int i = 0; i < paths.length; i++) {
+            Menu menu = new Menu();
+            menu.setName("菜单" + i);
+            menu.setPath(paths[i]);
+            menu.setSort(i);
+            menu.setType(1);
+            menuRepository.save(menu);
+        }
+        Map<String, List<String>> grants = Map.of(
+                "admin", List.of(paths),
+                "guest", List.of("/profile"));
+        grants.forEach((code, menus) -> {
+            Role role = new Role();
+            role.setCode(code);
+            role.setName(code);
+            role = roleRepository.save(role);
+            for (String path : menus) {
+                RoleMenu roleMenu = new RoleMenu();
+                roleMenu.setRoleId(role.getId());
+                roleMenu.setMenuCode(menuRepository.findByPath(path).getId());
+                roleMenuRepository.save(roleMenu);
+            }
+        });
+        roleMenuRepository.flush();
+    }
+
+    @Test
+    void encodedOrNonNormalizedPathIsStillDenied() {
+        Authentication guest = authentication("guest");
+        for (String uri : List.of("/api/users/1", "/api/%75sers/1", "/api/users;jsessionid=x/1",
+                "/api//users/1")) {
+            assertFalse(permissionEngine.isAllowed(guest, request("GET", "", uri)), uri);
+        }
+        assertFalse(permissionEngine.isAllowed(guest, request("GET", "/app", "/app/api/%75sers/1")));
+        assertTrue(permissionEngine.isAllowed(authentication("admin"), request("GET", "", "/api/%75sers/1")));
+        assertTrue(permissionEngine.isAllowed(guest, request("GET", "", "/api/%75sers/info")));
+    }
+
+    @Test
+    void exportTypeRequiresLogMenu() {
+        Authentication guest = authentication("guest");
+        Authentication admin = authentication("admin");
+        for (String type : List.of(ExportJobService.TYPE_SYSTEM_LOG, ExportJobService.TYPE_OPERATION_LOG)) {
+            String menu = ExportJobService.requiredMenu(type);
+            assertFalse(permissionEngine.hasMenu(guest, menu), type);
+            assertTrue(permissionEngine.hasMenu(admin, menu), type);
+            assertTrue(permissionEngine.hasMenu(authentication("super"), menu), type);
+        }
+        assertFalse(permissionEngine.hasMenu(admin, "/missing"));
+    }
+
+    private static Authentication authentication(String roleCode) {
+        return new UsernamePasswordAuthenticationToken(roleCode, null,
+                AuthorityUtils.createAuthorityList("ROLE_" + roleCode));
+    }
+
+    private static MockHttpServletRequest request(String method, String contextPath, String uri) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+        request.setContextPath(contextPath);
+        return request;
+    }
+}
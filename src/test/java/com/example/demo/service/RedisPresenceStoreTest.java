@@ -0,0 +1,136 @@
+package com.example.demo.service;
+
+import com.example.demo.support.StandInRedisServer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Redis 在线状态存储测试
+ * 两个存储实例共享同一个本地 Redis 替身，模拟多实例部署
+ */
+class RedisPresenceStoreTest {
+
+    private static final long TIMEOUT_MILLIS = 60_000;
+
+    private static StandInRedisServer server;
+
+    private static LettuceConnectionFactory connectionFactory;
+
+    private static StringRedisTemplate redisTemplate;
+
+    @BeforeAll
+    static void startRedis() throws Exception {
+        server = new StandInRedisServer();
+        connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration("127.0.0.1", server.getPort()));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+    }
+
+    @AfterAll
+    static void stopRedis() throws Exception {
+        connectionFactory.destroy();
+        server.close();
+    }
+
+    @Test
+    void instancesShareOnlineCountAndReplaceSessionsOfSameUser() {
+        String prefix = uniquePrefix();
+        RedisPresenceStore nodeA = newStore(prefix);
+        RedisPresenceStore nodeB = newStore(prefix);
+        long now = System.currentTimeMillis();
+
+        assertNull(nodeA.login(session("s1", 1L, "admin", now)));
+        assertNull(nodeB.login(session("s2", 2L, "user", now)));
+        assertEquals(2, nodeA.count());
+        assertEquals(2, nodeB.count());
+        assertEquals("user", nodeA.get("s2").orElseThrow().username());
+
+        // 同一用户在另一个实例上重新登录，旧会话下线
+        OnlineSession replaced = nodeB.login(session("s3", 1L, "admin", now + 1));
+        assertEquals("s1", replaced.sessionId());
+        assertEquals(2, nodeA.count());
+        assertTrue(nodeA.get("s1").isEmpty());
+        assertEquals(List.of("s3", "s2"), nodeA.list().stream().map(OnlineSession::sessionId).toList());
+
+        assertEquals("s2", nodeA.logout("s2").sessionId());
+        assertNull(nodeB.logout("s2"));
+        assertEquals(1, nodeB.logoutByUsername("admin").size());
+        assertEquals(0, nodeA.count());
+    }
+
+    @Test
+    void expiredSessionIsEndedByExactlyOneInstance() {
+        String prefix = uniquePrefix();
+        RedisPresenceStore nodeA = newStore(prefix);
+        RedisPresenceStore nodeB = newStore(prefix);
+        long loginAt = System.currentTimeMillis();
+
+        nodeA.login(session("idle", 1L, "admin", loginAt));
+        nodeA.login(session("active", 2L, "user", loginAt));
+
+        // 活跃会话的访问记录在 B 上，过期检查前先批量写入
+        long later = loginAt + TIMEOUT_MILLIS + 1;
+        assertTrue(nodeB.touch("active", later - 1000));
+        assertFalse(nodeB.touch("gone", later - 1000));
+
+        List<OnlineSession> expiredOnB = nodeB.expire(later);
+        List<OnlineSession> expiredOnA = nodeA.expire(later);
+
+        assertEquals(List.of("idle"), expiredOnB.stream().map(OnlineSession::sessionId).toList());
+        assertTrue(expiredOnA.isEmpty());
+        assertEquals(1, nodeA.count());
+        assertEquals(later - 1000, nodeA.get("active").orElseThrow().lastAccessMillis());
+        // XX 不会把已不存在的会话重新加入
+        assertTrue(nodeA.get("gone").isEmpty());
+
+        // 过期用户重新登录时不会把新会话当作旧会话下线
+        assertNull(nodeA.login(session("idle-2", 1L, "admin", later)));
+    }
+
+    @Test
+    void touchReportsSessionsEndedOnOtherInstances() {
+        String prefix = uniquePrefix();
+        RedisPresenceStore nodeA = newStore(prefix);
+        RedisPresenceStore nodeB = newStore(prefix);
+        long now = System.currentTimeMillis();
+
+        nodeA.login(session("s1", 1L, "admin", now));
+        assertTrue(nodeA.touch("s1", now + 1));
+        assertTrue(nodeB.touch("s1", now + 2));
+        assertFalse(nodeB.touch("never-seen", now + 2));
+
+        // A 上下线后自己立即感知；B 在下一次批量写入时发现会话已不存在
+        assertEquals("s1", nodeA.logout("s1").sessionId());
+        assertFalse(nodeA.touch("s1", now + 3));
+        assertTrue(nodeB.touch("s1", now + 3));
+        assertTrue(nodeB.expire(now + 3).isEmpty());
+        assertFalse(nodeB.touch("s1", now + 4));
+        assertTrue(nodeA.get("s1").isEmpty());
+    }
+
+    private static RedisPresenceStore newStore(String prefix) {
+        return new RedisPresenceStore(redisTemplate, new ObjectMapper(), TIMEOUT_MILLIS, prefix);
+    }
+
+    private static String uniquePrefix() {
+        return "presence-test:" + UUID.randomUUID() + ":";
+    }
+
+    private static OnlineSession session(String sessionId, Long userId, String username, long now) {
+        return new OnlineSession(sessionId, userId, username, "127.0.0.1", "JUnit", now, now);
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.demo.service;
+
+import com.example.demo.common.cache.RedisInvalidationBus;
+import com.example.demo.entity.User;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.support.StandInRedisServer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * token版本号多实例测试
+ * 两个服务实例共享数据库，通过本地 Redis 替身的发布订阅传递注销消息
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TokenEpochServiceTest {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private static StandInRedisServer server;
+
+    private static LettuceConnectionFactory connectionFactory;
+
+    private static StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final List<RedisInvalidationBus> buses = new ArrayList<>();
+
+    private final List<Long> userIds = new ArrayList<>();
+
+    @BeforeAll
+    static void startRedis() throws Exception {
+        server = new StandInRedisServer();
+        connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration("127.0.0.1", server.getPort()));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+    }
+
+    @AfterAll
+    static void stopRedis() throws Exception {
+        connectionFactory.destroy();
+        server.close();
+    }
+
+    @AfterEach
+    void cleanUp() throws Exception {
+        for (RedisInvalidationBus bus : buses) {
+            bus.close();
+        }
+        userRepository.deleteAllById(userIds);
+    }
+
+    @Test
+    void revokeOnOneInstanceIsSeenByOthers() throws Exception {
+        String channel = "invalidation:" + UUID.randomUUID();
+        TokenEpochService nodeA = startNode(channel);
+        TokenEpochService nodeB = startNode(channel);
+        long first = createUser();
+        long second = createUser();
+
+        assertEquals(0, nodeA.currentEpoch(first));
+        assertEquals(0, nodeB.currentEpoch(first));
+        assertEquals(0, nodeB.currentEpoch(second));
+
+        nodeA.revokeAll(first);
+        assertEquals(1, nodeA.currentEpoch(first));
+        awaitEpoch(nodeB, first, 1);
+
+        nodeA.revokeAll(List.of(first, second));
+        awaitEpoch(nodeB, first, 2);
+        assertEquals(1, nodeB.currentEpoch(second));
+    }
+
+    private TokenEpochService startNode(String channel) {
+        RedisInvalidationBus bus = new RedisInvalidationBus(redisTemplate, OBJECT_MAPPER, channel);
+        bus.start();
+        buses.add(bus);
+        TokenEpochService service = new TokenEpochService(userRepository, bus);
+        service.init();
+        return service;
+    }
+
+    private long createUser() {
+        User user = new User();
+        user.setUsername("epoch_" + UUID.randomUUID().toString().substring(0, 8));
+        user.setPassword("x");
+        long id = userRepository.save(user).getId();
+        userIds.add(id);
+        return id;
+    }
+
+    private static void awaitEpoch(TokenEpochService service, long userId, long expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (service.currentEpoch(userId) != expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(expected, service.currentEpoch(userId), "未收到其他实例的注销消息");
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.demo.service;
+
+import com.example.demo.common.cache.LocalInvalidationBus;
+import com.example.demo.entity.User;
+import com.example.demo.repository.RoleRepository;
+import com.example.demo.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 用户信息快照缓存测试
+ * 通过代理统计按ID、按用户名查询用户的次数，并可在查库之后、写入缓存之前插入操作
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class UserPrincipalCacheTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    private final AtomicInteger userQueries = new AtomicInteger();
+
+    // 查库之后执行，模拟并发的修改和失效
+    private Consumer<Long> afterQuery = id -> {
+    };
+
+    private UserPrincipalCache cache;
+
+    private Long userId;
+
+    @BeforeEach
+    void setUp() {
+        User user = new User();
+        user.setUsername("principal_test");
+        user.setPassword("hash-1");
+        user.setName("旧名字");
+        userId = userRepository.save(user).getId();
+
+        UserRepository counting = (UserRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{UserRepository.class}, (proxy, method, args) -> {
+                    Object result;
+                    try {
+                        result = method.invoke(userRepository, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                    if (method.getName().equals("findById") || method.getName().equals("findByUsername")) {
+                        userQueries.incrementAndGet();
+                        afterQuery.accept(userId);
+                    }
+                    return result;
+                });
+        cache = new UserPrincipalCache(counting, roleRepository, new LocalInvalidationBus());
+        ReflectionTestUtils.setField(cache, "maxSize", 100);
+        ReflectionTestUtils.setField(cache, "ttlSeconds", 300L);
+        cache.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteById(userId);
+    }
+
+    @Test
+    void repeatedReadsAreServedFromCache() {
+        assertEquals("旧名字", cache.getByUsername("principal_test").name());
+        assertEquals("旧名字", cache.getById(userId).name());
+        assertEquals("旧名字", cache.getByUsername("principal_test").name());
+        assertEquals("旧名字", cache.getById(userId).name());
+        assertEquals(1, userQueries.get());
+        assertEquals(3L, cache.getMetrics().get("hits"));
+    }
+
+    @Test
+    void updateIsVisibleImmediately() {
+        cache.getById(userId);
+        rename("新名字");
+        cache.invalidate(userId);
+
+        assertEquals("新名字", cache.getById(userId).name());
+        assertEquals("新名字", cache.getByUsername("principal_test").name());
+        assertEquals(2, userQueries.get());
+    }
+
+    @Test
+    void invalidationDuringLoadIsNotOverwrittenByStaleSnapshot() {
+        // 查库读到旧数据后、写入缓存前，另一个请求修改了用户并失效缓存
+        afterQuery = id -> {
+            afterQuery = ignored -> {
+            };
+            rename("新名字");
+            cache.invalidate(id);
+        };
+        assertEquals("旧名字", cache.getById(userId).name());
+
+        assertEquals("新名字", cache.getById(userId).name());
+        assertEquals("新名字", cache.getByUsername("principal_test").name());
+    }
+
+    private void rename(String name) {
+        User user = userRepository.findById(userId).orElseThrow();
+        user.setName(name);
+        userRepository.saveAndFlush(user);
+    }
+}
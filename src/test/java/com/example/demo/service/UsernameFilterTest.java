@@ -0,0 +1,110 @@
+package com.example.demo.service;
+
+import com.example.demo.common.cache.RedisInvalidationBus;
+import com.example.demo.entity.User;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.support.StandInRedisServer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 用户名过滤器多实例测试
+ * 两个过滤器实例共享数据库，通过本地 Redis 替身的发布订阅同步新增的用户名
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class UsernameFilterTest {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private static StandInRedisServer server;
+
+    private static LettuceConnectionFactory connectionFactory;
+
+    private static StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final List<RedisInvalidationBus> buses = new ArrayList<>();
+
+    private final List<Long> userIds = new ArrayList<>();
+
+    @BeforeAll
+    static void startRedis() throws Exception {
+        server = new StandInRedisServer();
+        connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration("127.0.0.1", server.getPort()));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+    }
+
+    @AfterAll
+    static void stopRedis() throws Exception {
+        connectionFactory.destroy();
+        server.close();
+    }
+
+    @AfterEach
+    void cleanUp() throws Exception {
+        for (RedisInvalidationBus bus : buses) {
+            bus.close();
+        }
+        userRepository.deleteAllById(userIds);
+    }
+
+    @Test
+    void usernameAddedOnOneInstanceIsSeenByOthers() throws Exception {
+        String channel = "invalidation:" + UUID.randomUUID();
+        UsernameFilter nodeA = startNode(channel);
+        UsernameFilter nodeB = startNode(channel);
+        String username = "filter_" + UUID.randomUUID().toString().substring(0, 8);
+
+        assertFalse(nodeA.exists(username));
+        assertFalse(nodeB.exists(username));
+
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("x");
+        userIds.add(userRepository.save(user).getId());
+        nodeA.add(username);
+        assertTrue(nodeA.exists(username));
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!nodeB.exists(username) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertTrue(nodeB.exists(username), "未收到其他实例新增的用户名");
+        assertEquals(0L, nodeB.getMetrics().get("falsePositives"));
+    }
+
+    private UsernameFilter startNode(String channel) {
+        RedisInvalidationBus bus = new RedisInvalidationBus(redisTemplate, OBJECT_MAPPER, channel);
+        bus.start();
+        buses.add(bus);
+        UsernameFilter filter = new UsernameFilter(userRepository, bus);
+        ReflectionTestUtils.setField(filter, "expectedUsers", 1000);
+        ReflectionTestUtils.setField(filter, "bloomFpp", 0.01);
+        filter.init();
+        return filter;
+    }
+}
@@ -0,0 +1,418 @@
+package com.example.demo.support;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 测试用的本地 Redis 替身
+ * 只实现 RESP2 协议和在线状态存储、两级缓存用到的有序集合、哈希、发布订阅、事务命令，数据保存在内存中，不处理键过期。
+ * 所有连接的命令执行和输出都在同一把锁内，发布消息时可以直接写入订阅连接。
+ */
+public class StandInRedisServer implements AutoCloseable {
+
+    private final ServerSocket serverSocket;
+
+    private final Map<String, Map<String, Double>> zsets = new HashMap<>();
+
+    private final Map<String, Map<String, String>> hashes = new HashMap<>();
+
+    private final Map<String, Set<Connection>> subscribers = new HashMap<>();
+
+    public StandInRedisServer() throws IOException {
+        serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(this::acceptLoop, "stand-in-redis");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                Thread worker = new Thread(() -> serve(socket), "stand-in-redis-conn");
+                worker.setDaemon(true);
+                worker.start();
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        Connection connection = null;
+        try (socket) {
+            InputStream in = new BufferedInputStream(socket.getInputStream());
+            connection = new Connection(new BufferedOutputStream(socket.getOutputStream()));
+            while (true) {
+                List<String> command = readCommand(in);
+                synchronized (this) {
+                    execute(command, connection);
+                    if (in.available() == 0) {
+                        connection.out.flush();
+                    }
+                }
+            }
+        } catch (IOException ignored) {
+            // 客户端断开
+        } finally {
+            if (connection != null) {
+                synchronized (this) {
+                    for (String channel : connection.channels) {
+                        subscribers.getOrDefault(channel, new LinkedHashSet<>()).remove(connection);
+                    }
+                }
+            }
+        }
+    }
+
+    private void execute(List<String> command, Connection connection) throws IOException {
+        OutputStream out = connection.out;
+        String name = command.get(0).toUpperCase(Locale.ROOT);
+        // 事务中的命令先排队，EXEC 时在同一把锁内依次执行，回复按数组返回
+        if (connection.queued != null && !List.of("EXEC", "DISCARD", "MULTI").contains(name)) {
+            connection.queued.add(command);
+            simple(out, "QUEUED");
+            return;
+        }
+        switch (name) {
+            case "MULTI" -> {
+                if (connection.queued != null) {
+                    error(out, "ERR MULTI calls can not be nested");
+                    return;
+                }
+                connection.queued = new ArrayList<>();
+                simple(out, "OK");
+            }
+            case "EXEC" -> {
+                if (connection.queued == null) {
+                    error(out, "ERR EXEC without MULTI");
+                    return;
+                }
+                List<List<String>> queued = connection.queued;
+                connection.queued = null;
+                out.write(("*" + queued.size() + "\r\n").getBytes(StandardCharsets.UTF_8));
+                for (List<String> queuedCommand : queued) {
+                    execute(queuedCommand, connection);
+                }
+            }
+            case "DISCARD" -> {
+                if (connection.queued == null) {
+                    error(out, "ERR DISCARD without MULTI");
+                    return;
+                }
+                connection.queued = null;
+                simple(out, "OK");
+            }
+            case "PING" -> simple(out, "PONG");
+            case "SELECT", "CLIENT" -> simple(out, "OK");
+            case "DEL" -> {
+                long removed = 0;
+                for (String key : command.subList(1, command.size())) {
+                    boolean zsetRemoved = zsets.remove(key) != null;
+                    boolean hashRemoved = hashes.remove(key) != null;
+                    if (zsetRemoved || hashRemoved) {
+                        removed++;
+                    }
+                }
+                integer(out, removed);
+            }
+            case "EXPIRE", "PEXPIRE" -> integer(out, zsets.containsKey(command.get(1)) || hashes.containsKey(command.get(1)) ? 1 : 0);
+            case "PUBLISH" -> publish(command.get(1), command.get(2), out);
+            case "SUBSCRIBE" -> {
+                for (String channel : command.subList(1, command.size())) {
+                    subscribers.computeIfAbsent(channel, key -> new LinkedHashSet<>()).add(connection);
+                    connection.channels.add(channel);
+                    subscription(out, "subscribe", channel, connection.channels.size());
+                }
+            }
+            case "UNSUBSCRIBE" -> {
+                List<String> channels = command.size() > 1
+                        ? command.subList(1, command.size()) : new ArrayList<>(connection.channels);
+                for (String channel : channels) {
+                    subscribers.getOrDefault(channel, new LinkedHashSet<>()).remove(connection);
+                    connection.channels.remove(channel);
+                    subscription(out, "unsubscribe", channel, connection.channels.size());
+                }
+                if (channels.isEmpty()) {
+                    subscription(out, "unsubscribe", null, 0);
+                }
+            }
+            case "ZADD" -> zadd(command, out);
+            case "ZREM" -> {
+                Map<String, Double> zset = zsets.getOrDefault(command.get(1), new HashMap<>());
+                long removed = command.subList(2, command.size()).stream()
+                        .filter(member -> zset.remove(member) != null).count();
+                integer(out, removed);
+            }
+            case "ZSCORE" -> {
+                Double score = zsets.getOrDefault(command.get(1), Map.of()).get(command.get(2));
+                bulk(out, score != null ? formatScore(score) : null);
+            }
+            case "ZCARD" -> integer(out, zsets.getOrDefault(command.get(1), Map.of()).size());
+            case "ZRANGEBYSCORE" -> zrangeByScore(command, out);
+            case "ZREVRANGE" -> zrevrange(command, out);
+            case "HSET" -> {
+                Map<String, String> hash = hashes.computeIfAbsent(command.get(1), key -> new HashMap<>());
+                long added = 0;
+                for (int i = 2; i + 1 < command.size(); i += 2) {
+                    if (hash.put(command.get(i), command.get(i + 1)) == null) {
+                        added++;
+                    }
+                }
+                integer(out, added);
+            }
+            case "HGET" -> bulk(out, hashes.getOrDefault(command.get(1), Map.of()).get(command.get(2)));
+            case "HMGET" -> {
+                Map<String, String> hash = hashes.getOrDefault(command.get(1), Map.of());
+                List<String> values = new ArrayList<>();
+                for (String field : command.subList(2, command.size())) {
+                    values.add(hash.get(field));
+                }
+                array(out, values);
+            }
+            case "HDEL" -> {
+                Map<String, String> hash = hashes.getOrDefault(command.get(1), new HashMap<>());
+                long removed = command.subList(2, command.size()).stream()
+                        .filter(field -> hash.remove(field) != null).count();
+                integer(out, removed);
+            }
+            case "HGETALL" -> {
+                List<String> values = new ArrayList<>();
+                hashes.getOrDefault(command.get(1), Map.of()).forEach((field, value) -> {
+                    values.add(field);
+                    values.add(value);
+                });
+                array(out, values);
+            }
+            default -> error(out, "ERR unknown command '" + command.get(0) + "'");
+        }
+    }
+
+    private void publish(String channel, String message, OutputStream out) throws IOException {
+        Set<Connection> receivers = subscribers.getOrDefault(channel, Set.of());
+        for (Connection receiver : receivers) {
+            receiver.out.write("*3\r\n".getBytes(StandardCharsets.UTF_8));
+            bulk(receiver.out, "message");
+            bulk(receiver.out, channel);
+            bulk(receiver.out, message);
+            receiver.out.flush();
+        }
+        integer(out, receivers.size());
+    }
+
+    private static void subscription(OutputStream out, String kind, String channel, int count) throws IOException {
+        out.write("*3\r\n".getBytes(StandardCharsets.UTF_8));
+        bulk(out, kind);
+        bulk(out, channel);
+        integer(out, count);
+    }
+
+    // ZADD key [NX|XX] [CH] score member ...，CH 时返回新增和分数有变化的成员数
+    private void zadd(List<String> command, OutputStream out) throws IOException {
+        Map<String, Double> zset = zsets.computeIfAbsent(command.get(1), key -> new HashMap<>());
+        boolean onlyExisting = false;
+        boolean onlyNew = false;
+        boolean countChanged = false;
+        int index = 2;
+        while (index < command.size()) {
+            String option = command.get(index).toUpperCase(Locale.ROOT);
+            if (option.equals("XX")) {
+                onlyExisting = true;
+            } else if (option.equals("NX")) {
+                onlyNew = true;
+            } else if (option.equals("CH")) {
+                countChanged = true;
+            } else {
+                break;
+            }
+            index++;
+        }
+        long added = 0;
+        long changed = 0;
+        for (; index + 1 < command.size(); index += 2) {
+            String member = command.get(index + 1);
+            boolean exists = zset.containsKey(member);
+            if ((onlyExisting && !exists) || (onlyNew && exists)) {
+                continue;
+            }
+            Double previous = zset.put(member, parseScore(command.get(index)));
+            if (!exists) {
+                added++;
+            } else if (!previous.equals(zset.get(member))) {
+                changed++;
+            }
+        }
+        integer(out, countChanged ? added + changed : added);
+    }
+
+    // ZRANGEBYSCORE key min max [WITHSCORES] [LIMIT offset count]
+    private void zrangeByScore(List<String> command, OutputStream out) throws IOException {
+        double min = parseScore(command.get(2));
+        double max = parseScore(command.get(3));
+        boolean withScores = false;
+        int offset = 0;
+        int count = -1;
+        for (int i = 4; i < command.size(); i++) {
+            String option = command.get(i).toUpperCase(Locale.ROOT);
+            if (option.equals("WITHSCORES")) {
+                withScores = true;
+            } else if (option.equals("LIMIT")) {
+                offset = Integer.parseInt(command.get(++i));
+                count = Integer.parseInt(command.get(++i));
+            }
+        }
+        List<Map.Entry<String, Double>> entries = sorted(command.get(1)).stream()
+                .filter(entry -> entry.getValue() >= min && entry.getValue() <= max)
+                .skip(offset)
+                .limit(count < 0 ? Long.MAX_VALUE : count)
+                .toList();
+        array(out, flatten(entries, withScores));
+    }
+
+    // ZREVRANGE key start stop [WITHSCORES]
+    private void zrevrange(List<String> command, OutputStream out) throws IOException {
+        List<Map.Entry<String, Double>> entries = new ArrayList<>(sorted(command.get(1)));
+        Collections.reverse(entries);
+        int size = entries.size();
+        int start = Integer.parseInt(command.get(2));
+        int stop = Integer.parseInt(command.get(3));
+        start = Math.max(start < 0 ? size + start : start, 0);
+        stop = Math.min(stop < 0 ? size + stop : stop, size - 1);
+        List<Map.Entry<String, Double>> range = start <= stop ? entries.subList(start, stop + 1) : List.of();
+        boolean withScores = command.size() > 4 && command.get(4).equalsIgnoreCase("WITHSCORES");
+        array(out, flatten(range, withScores));
+    }
+
+    private List<Map.Entry<String, Double>> sorted(String key) {
+        return zsets.getOrDefault(key, Map.of()).entrySet().stream()
+                .map(entry -> Map.entry(entry.getKey(), entry.getValue()))
+                .sorted(Map.Entry.<String, Double>comparingByValue().thenComparing(Map.Entry.comparingByKey(Comparator.naturalOrder())))
+                .toList();
+    }
+
+    private static List<String> flatten(List<Map.Entry<String, Double>> entries, boolean withScores) {
+        List<String> values = new ArrayList<>();
+        for (Map.Entry<String, Double> entry : entries) {
+            values.add(entry.getKey());
+            if (withScores) {
+                values.add(formatScore(entry.getValue()));
+            }
+        }
+        return values;
+    }
+
+    private static double parseScore(String value) {
+        return switch (value.toLowerCase(Locale.ROOT)) {
+            case "-inf" -> Double.NEGATIVE_INFINITY;
+            case "+inf", "inf" -> Double.POSITIVE_INFINITY;
+            default -> Double.parseDouble(value);
+        };
+    }
+
+    private static String formatScore(double score) {
+        return score == Math.rint(score) && !Double.isInfinite(score)
+                ? String.valueOf((long) score) : String.valueOf(score);
+    }
+
+    private static List<String> readCommand(InputStream in) throws IOException {
+        String header = readLine(in);
+        if (!header.startsWith("*")) {
+            throw new IOException("只支持数组格式的命令: " + header);
+        }
+        int count = Integer.parseInt(header.substring(1));
+        List<String> command = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int length = Integer.parseInt(readLine(in).substring(1));
+            byte[] data = in.readNBytes(length);
+            if (data.length < length) {
+                throw new EOFException();
+            }
+            readLine(in);
+            command.add(new String(data, StandardCharsets.UTF_8));
+        }
+        return command;
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int b;
+        while ((b = in.read()) != '\r') {
+            if (b < 0) {
+                throw new EOFException();
+            }
+            line.append((char) b);
+        }
+        in.read();
+        return line.toString();
+    }
+
+    private static void simple(OutputStream out, String value) throws IOException {
+        out.write(("+" + value + "\r\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void error(OutputStream out, String message) throws IOException {
+        out.write(("-" + message + "\r\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void integer(OutputStream out, long value) throws IOException {
+        out.write((":" + value + "\r\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void bulk(OutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.write("$-1\r\n".getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+        byte[] data = value.getBytes(StandardCharsets.UTF_8);
+        out.write(("$" + data.length + "\r\n").getBytes(StandardCharsets.UTF_8));
+        out.write(data);
+        out.write("\r\n".getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void array(OutputStream out, List<String> values) throws IOException {
+        out.write(("*" + values.size() + "\r\n").getBytes(StandardCharsets.UTF_8));
+        for (String value : values) {
+            bulk(out, value);
+        }
+    }
+
+    private static final class Connection {
+
+        private final OutputStream out;
+
+        private final Set<String> channels = new LinkedHashSet<>();
+
+        // MULTI 之后排队的命令，不在事务中时为null
+        private List<List<String>> queued;
+
+        private Connection(OutputStream out) {
+            this.out = out;
+        }
+    }
+}